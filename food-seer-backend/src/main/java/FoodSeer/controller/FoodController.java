@@ -1,36 +1,76 @@
 package FoodSeer.controller;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import FoodSeer.dto.FoodCacheStatsDto;
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodImportResultDto;
+import FoodSeer.dto.FoodPageDto;
+import FoodSeer.dto.FoodQueryDto;
+import FoodSeer.dto.FoodUpdateDto;
+import FoodSeer.dto.FoodUpdateResultDto;
+import FoodSeer.service.FoodImportService;
 import FoodSeer.service.FoodService;
+import FoodSeer.service.impl.CatalogVersion;
+import FoodSeer.service.impl.FoodCache;
+import jakarta.servlet.http.HttpServletRequest;
 
 /**
  * Controller class for food
  */
-@CrossOrigin ( "*" )
+@CrossOrigin ( origins = "*", exposedHeaders = { FoodController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG } )
 @RestController
 @RequestMapping ( "/api/foods" )
 public class FoodController {
 
+    /** Response header carrying the cursor for the next page of foods */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     /**
      * Food service to use
      */
     @Autowired
     private FoodService foodService;
 
+    /**
+     * Bulk import service to use
+     */
+    @Autowired
+    private FoodImportService foodImportService;
+
+    /**
+     * Catalog version, sent as the ETag of catalog reads
+     */
+    @Autowired
+    private CatalogVersion    catalogVersion;
+
+    /**
+     * Catalog cache, for its statistics
+     */
+    @Autowired
+    private FoodCache   foodCache;
+
     /**
      * Gets the food based on the ID parameter
      *
@@ -49,7 +89,7 @@ public class FoodController {
      *
      * @param foodDto
      *            The food DTO to create
-     * @return response from creation
+     * @return response from creation, or 409 if the name is already in use
      */
     @PostMapping
     public ResponseEntity<FoodDto> createFood ( @RequestBody final FoodDto foodDto ) {
@@ -62,18 +102,181 @@ public class FoodController {
             return new ResponseEntity<>( foodDto, HttpStatus.BAD_REQUEST );
         }
 
-        final FoodDto savedFoodDto = foodService.createFood( foodDto );
-        return ResponseEntity.ok( savedFoodDto );
+        try {
+            final FoodDto savedFoodDto = foodService.createFood( foodDto );
+            return ResponseEntity.ok( savedFoodDto );
+        }
+        catch ( final IllegalArgumentException e ) {
+            // the food was valid above, so another request took the name since
+            return new ResponseEntity<>( foodDto, HttpStatus.CONFLICT );
+        }
     }
 
     /**
-     * REST API method to provide GET access to all foods in the system
+     * REST API method to provide GET access to the foods in the system. With
+     * no parameters the whole catalog is returned. When any filter, sort key
+     * or page parameter is given the query is evaluated by the database and
+     * a single page is returned; the cursor for the following page (if any)
+     * is sent in the X-Next-Cursor header.
+     *
+     * Every response carries the catalog version as its ETag. A request whose
+     * If-None-Match still matches is answered with 304 before the database is
+     * touched.
      *
-     * @return JSON representation of all foods
+     * @param ifNoneMatch
+     *            ETag the client already has, if any
+     * @param name
+     *            only foods whose name starts with this prefix
+     * @param minPrice
+     *            minimum price
+     * @param maxPrice
+     *            maximum price
+     * @param inStock
+     *            true for in-stock foods, false for sold out foods
+     * @param excludeAllergens
+     *            leave out foods containing any of these allergens
+     * @param sort
+     *            sort key: name, price, amount or id
+     * @param limit
+     *            page size
+     * @param cursor
+     *            cursor from the previous page
+     * @return JSON representation of the matching foods
      */
     @GetMapping
-    public List<FoodDto> getFoods () {
-        return foodService.getAllFoods();
+    public ResponseEntity<List<FoodDto>> getFoods (
+            @RequestHeader ( value = HttpHeaders.IF_NONE_MATCH, required = false ) final String ifNoneMatch,
+            @RequestParam ( required = false ) final String name,
+            @RequestParam ( required = false ) final Integer minPrice,
+            @RequestParam ( required = false ) final Integer maxPrice,
+            @RequestParam ( required = false ) final Boolean inStock,
+            @RequestParam ( required = false ) final List<String> excludeAllergens,
+            @RequestParam ( required = false ) final String sort,
+            @RequestParam ( required = false ) final Integer limit,
+            @RequestParam ( required = false ) final String cursor ) {
+        // read the version first: a change during the load gives a newer ETag
+        final String etag = catalogVersion.etag();
+        if ( CatalogVersion.matches( ifNoneMatch, etag ) ) {
+            return ResponseEntity.status( HttpStatus.NOT_MODIFIED ).eTag( etag ).build();
+        }
+
+        if ( name == null && minPrice == null && maxPrice == null && inStock == null && excludeAllergens == null
+                && sort == null && limit == null && cursor == null ) {
+            return ResponseEntity.ok().eTag( etag ).body( foodService.getAllFoods() );
+        }
+
+        final FoodPageDto page;
+        try {
+            page = foodService.queryFoods(
+                    new FoodQueryDto( name, minPrice, maxPrice, inStock, excludeAllergens, sort, limit, cursor ) );
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag( etag );
+        if ( page.nextCursor() != null ) {
+            response.header( NEXT_CURSOR_HEADER, page.nextCursor() );
+        }
+        return response.body( page.foods() );
+    }
+
+    /**
+     * Type-ahead search over food names. Matches words by prefix, tolerates
+     * typos and puts foods in stock first.
+     *
+     * @param q
+     *            the text typed so far
+     * @param limit
+     *            maximum number of foods (default 10)
+     * @return the best matching foods, best first
+     */
+    @GetMapping ( "/search" )
+    public ResponseEntity<List<FoodDto>> searchFoods ( @RequestParam final String q,
+            @RequestParam ( required = false ) final Integer limit ) {
+        try {
+            return ResponseEntity.ok( foodService.searchFoods( q, limit ) );
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+    }
+
+    /**
+     * Foods frequently ordered together with the given food, learned from
+     * fulfilled orders.
+     *
+     * @param id
+     *            the food id
+     * @param limit
+     *            maximum number of foods (default 10)
+     * @return the related foods, most frequent first
+     */
+    @GetMapping ( "{id}/related" )
+    public ResponseEntity<List<FoodDto>> getRelatedFoods ( @PathVariable ( "id" ) final Long id,
+            @RequestParam ( required = false ) final Integer limit ) {
+        try {
+            return ResponseEntity.ok( foodService.getRelatedFoods( id, limit ) );
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+    }
+
+    /**
+     * Sets the stock level at or below which a food is reported as low.
+     *
+     * @param id
+     *            the food id
+     * @param threshold
+     *            the threshold; leave out to use the default
+     * @return the updated food
+     */
+    @PostMapping ( "{id}/reorderThreshold" )
+    @PreAuthorize ( "hasAnyRole('ADMIN', 'STAFF')" )
+    public ResponseEntity<FoodDto> setReorderThreshold ( @PathVariable ( "id" ) final Long id,
+            @RequestParam ( required = false ) final Integer threshold ) {
+        try {
+            return ResponseEntity.ok( foodService.setReorderThreshold( id, threshold ) );
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+    }
+
+    /**
+     * Bulk imports foods from a CSV (text/csv) or NDJSON
+     * (application/x-ndjson) upload. The body is streamed, so files of any
+     * size can be sent. Every row is validated like a single create; rows
+     * that are invalid or whose name already exists are listed in the
+     * response instead of failing the import.
+     *
+     * @param request
+     *            the request carrying the file as its body
+     * @return number of foods imported and the rejected rows
+     * @throws IOException
+     *             if the upload cannot be read
+     */
+    @PostMapping ( value = "/import", consumes = { "text/csv", MediaType.APPLICATION_NDJSON_VALUE } )
+    @PreAuthorize ( "hasRole('ADMIN')" )
+    public ResponseEntity<FoodImportResultDto> importFoods ( final HttpServletRequest request ) throws IOException {
+        final FoodImportService.Format format = MediaType.APPLICATION_NDJSON
+                .isCompatibleWith( MediaType.parseMediaType( request.getContentType() ) )
+                        ? FoodImportService.Format.NDJSON : FoodImportService.Format.CSV;
+        try ( Reader reader = new InputStreamReader( request.getInputStream(), StandardCharsets.UTF_8 ) ) {
+            return ResponseEntity.ok( foodImportService.importFoods( reader, format ) );
+        }
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the food catalog cache.
+     *
+     * @return cache statistics
+     */
+    @GetMapping ( "/cache/stats" )
+    @PreAuthorize ( "hasRole('ADMIN')" )
+    public ResponseEntity<FoodCacheStatsDto> getCacheStats () {
+        return ResponseEntity.ok( foodCache.getStats() );
     }
 
     /**
@@ -130,5 +333,23 @@ public class FoodController {
         return ResponseEntity.ok(updatedFood);
     }
 
+    /**
+     * Applies many food changes (amount, price and/or allergies) in one
+     * transaction, e.g. a nightly restock. Each change names its food by id
+     * or by name; fields left out are not changed.
+     *
+     * @param updates
+     *            the changes
+     * @return the result of each change, in request order
+     */
+    @PostMapping ( "/updateFoods" )
+    @PreAuthorize ( "hasAnyRole('ADMIN', 'STAFF')" )
+    public ResponseEntity<List<FoodUpdateResultDto>> updateFoods ( @RequestBody final List<FoodUpdateDto> updates ) {
+        if ( updates == null || updates.isEmpty() ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+        return ResponseEntity.ok( foodService.updateFoods( updates ) );
+    }
+
 
 }
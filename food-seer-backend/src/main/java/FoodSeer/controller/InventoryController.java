@@ -1,24 +1,35 @@
 package FoodSeer.controller;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import FoodSeer.dto.InventoryChangesDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.LowStockDto;
 import FoodSeer.service.InventoryService;
+import FoodSeer.service.impl.CatalogVersion;
 
 /**
  * Controller for FoodSeer's inventory.
  * The inventory represents the full list of available foods in the system.
- * This is typically a singleton entry in the database.
+ * It is read straight from the foods table; there is no inventory entity.
  */
-@CrossOrigin("*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
@@ -29,16 +40,31 @@ public class InventoryController {
     @Autowired
     private InventoryService inventoryService;
 
+    /**
+     * Catalog version, sent as the ETag of the inventory.
+     */
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     /**
      * REST API endpoint to provide GET access to the FoodSeer inventory.
+     * The response carries the catalog version as its ETag; a request whose
+     * If-None-Match still matches gets 304 without the inventory being read.
      *
+     * @param ifNoneMatch
+     *            ETag the client already has, if any
      * @return ResponseEntity containing the current inventory
      */
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     @GetMapping
-    public ResponseEntity<InventoryDto> getInventory() {
+    public ResponseEntity<InventoryDto> getInventory(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+        final String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         final InventoryDto inventoryDto = inventoryService.getInventory();
-        return ResponseEntity.ok(inventoryDto);
+        return ResponseEntity.ok().eTag(etag).body(inventoryDto);
     }
 
     /**
@@ -54,4 +80,52 @@ public class InventoryController {
         final InventoryDto savedInventoryDto = inventoryService.updateInventory(inventoryDto);
         return ResponseEntity.ok(savedInventoryDto);
     }
+
+    /**
+     * REST API endpoint listing the foods whose stock is at or below their
+     * reorder threshold.
+     *
+     * @return the low foods, least stocked first
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping("/lowStock")
+    public ResponseEntity<List<LowStockDto>> getLowStock() {
+        return ResponseEntity.ok(inventoryService.getLowStock());
+    }
+
+    /**
+     * Server-sent event stream of low stock crossings: a "low" event when a
+     * food drops to its reorder threshold and a "restocked" event when it
+     * goes back above it. Each event carries the food as a LowStockDto.
+     *
+     * @return the event stream
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping(value = "/lowStock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStock() {
+        return inventoryService.streamLowStock();
+    }
+
+    /**
+     * REST API endpoint returning the inventory changes after a sequence
+     * number. Clients keep the latest value of the response and pass it as
+     * since on their next sync; while hasMore is true more changes are
+     * waiting right away.
+     *
+     * @param since
+     *            sequence number the client has seen, 0 for everything
+     * @param limit
+     *            most changes to return
+     * @return ResponseEntity with the changes, or 400 for a bad since or limit
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @GetMapping("/changes")
+    public ResponseEntity<InventoryChangesDto> getChanges(@RequestParam(defaultValue = "0") final long since,
+            @RequestParam(required = false) final Integer limit) {
+        try {
+            return ResponseEntity.ok(inventoryService.getChanges(since, limit));
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
 }
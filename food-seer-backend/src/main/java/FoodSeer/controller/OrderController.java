@@ -1,8 +1,11 @@
 package FoodSeer.controller;
 
+import java.net.URI;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,99 +14,226 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import FoodSeer.dto.FulfillmentResultDto;
+import FoodSeer.dto.FulfillmentTicketDto;
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderPageDto;
 import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.service.OrderService;
+import FoodSeer.service.impl.FulfillmentQueue;
+import FoodSeer.service.impl.IdempotencyStore;
 
 /**
  * Controller for Orders in the FoodSeer system.
  * Provides endpoints for managing and fulfilling food orders.
  */
-@CrossOrigin("*")
+@CrossOrigin(origins = "*", exposedHeaders = { OrderController.NEXT_CURSOR_HEADER, HttpHeaders.LOCATION,
+        IdempotencyStore.REPLAYED_HEADER })
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    /** Response header carrying the cursor of the next page */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     /** Connection to OrderService */
     @Autowired
     private OrderService orderService;
 
+    /** Queue of orders fulfilled asynchronously */
+    @Autowired
+    private FulfillmentQueue fulfillmentQueue;
+
+    /** Responses to requests made with an Idempotency-Key */
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
     /**
      * Retrieves all orders in the system.
+     * Without limit and cursor every order is returned; with either, one page
+     * is returned and the cursor of the next page is sent in the
+     * X-Next-Cursor header.
      *
-     * @return JSON list of all orders
+     * @param limit maximum number of orders per page
+     * @param cursor cursor of the page, from the previous page's header
+     * @return JSON list of orders, or 400 for a bad limit or cursor
      */
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     @GetMapping
-    public List<OrderDto> getOrders() {
-        return orderService.getAllOrders();
+    public ResponseEntity<List<OrderDto>> getOrders(@RequestParam(required = false) final Integer limit,
+            @RequestParam(required = false) final String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(orderService.getAllOrders());
+        }
+        return page(() -> orderService.getOrderPage(null, limit, cursor));
     }
 
     /**
      * Retrieves all fulfilled orders.
+     * Without limit and cursor every order is returned; with either, one page
+     * is returned and the cursor of the next page is sent in the
+     * X-Next-Cursor header.
      *
-     * @return JSON list of fulfilled orders
+     * @param limit maximum number of orders per page
+     * @param cursor cursor of the page, from the previous page's header
+     * @return JSON list of orders, or 400 for a bad limit or cursor
      */
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     @GetMapping("/fulfilledOrders")
-    public List<OrderDto> getFulfilledOrders() {
-        return orderService.getAllFulfilledOrders();
+    public ResponseEntity<List<OrderDto>> getFulfilledOrders(@RequestParam(required = false) final Integer limit,
+            @RequestParam(required = false) final String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(orderService.getAllFulfilledOrders());
+        }
+        return page(() -> orderService.getOrderPage(true, limit, cursor));
     }
 
     /**
      * Retrieves all unfulfilled orders.
+     * Without limit and cursor every order is returned; with either, one page
+     * is returned and the cursor of the next page is sent in the
+     * X-Next-Cursor header.
      *
-     * @return JSON list of unfulfilled orders
+     * @param limit maximum number of orders per page
+     * @param cursor cursor of the page, from the previous page's header
+     * @return JSON list of orders, or 400 for a bad limit or cursor
      */
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     @GetMapping("/unfulfilledOrders")
-    public List<OrderDto> getUnfulfilledOrders() {
-        return orderService.getAllUnfulfilledOrders();
+    public ResponseEntity<List<OrderDto>> getUnfulfilledOrders(@RequestParam(required = false) final Integer limit,
+            @RequestParam(required = false) final String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(orderService.getAllUnfulfilledOrders());
+        }
+        return page(() -> orderService.getOrderPage(false, limit, cursor));
     }
 
     /**
-     * Creates a new order.
+     * Creates a new order, holding its stock. A retry with the same
+     * Idempotency-Key gets the first response back without creating
+     * another order.
      *
      * @param orderDto the order to create
-     * @return ResponseEntity containing the created order
+     * @param idempotencyKey the client's key for this request, if any
+     * @return ResponseEntity containing the created order, 400 if a food
+     *         does not have enough stock or the key is invalid, 409 if a
+     *         request with the key is still running, or 422 if the key was
+     *         used for a different order
      */
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     @PostMapping
-    public ResponseEntity<OrderDto> createOrder(@RequestBody final OrderDto orderDto) {
-        final OrderDto savedOrderDto = orderService.createOrder(orderDto);
-        return ResponseEntity.ok(savedOrderDto);
+    public ResponseEntity<OrderDto> createOrder(@RequestBody final OrderDto orderDto,
+            @RequestHeader(value = IdempotencyStore.KEY_HEADER, required = false) final String idempotencyKey) {
+        return idempotencyStore.execute("createOrder", idempotencyKey, orderDto, OrderDto.class, () -> {
+            try {
+                final OrderDto savedOrderDto = orderService.createOrder(orderDto);
+                return ResponseEntity.ok(savedOrderDto);
+            } catch (final IllegalArgumentException e) {
+                return new ResponseEntity<>(orderDto, HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     /**
-     * Marks an order as fulfilled.
+     * Marks an order as fulfilled. The order is looked up once, by the
+     * fulfillment itself. A retry with the same Idempotency-Key gets the
+     * first response back instead of 410.
      *
      * @param orderDto the order to fulfill
-     * @return ResponseEntity with status depending on fulfillment result
+     * @param idempotencyKey the client's key for this request, if any
+     * @return ResponseEntity with the fulfilled order, 412 if the order does
+     *         not exist, 410 if it is already fulfilled, 400 if the order
+     *         has no id, a food is out of stock or the key is invalid, 409
+     *         if a request with the key is still running, or 422 if the key
+     *         was used for a different request. Any other failure is thrown,
+     *         which releases the key so the request can be retried.
      */
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
     @PostMapping("/fulfillOrder")
-    public ResponseEntity<OrderDto> fulfillOrder(@RequestBody final OrderDto orderDto) {
+    public ResponseEntity<OrderDto> fulfillOrder(@RequestBody final OrderDto orderDto,
+            @RequestHeader(value = IdempotencyStore.KEY_HEADER, required = false) final String idempotencyKey) {
+        return idempotencyStore.execute("fulfillOrder", idempotencyKey, orderDto, OrderDto.class, () -> {
+            if (orderDto.getId() == null) {
+                return new ResponseEntity<>(orderDto, HttpStatus.BAD_REQUEST);
+            }
+            try {
+                final OrderDto updatedOrder = orderService.fulfillOrder(orderDto.getId());
+                return ResponseEntity.ok(updatedOrder);
+            } catch (final ResourceNotFoundException e) {
+                return new ResponseEntity<>(orderDto, HttpStatus.PRECONDITION_FAILED);
+            } catch (final IllegalStateException e) {
+                return new ResponseEntity<>(orderDto, HttpStatus.GONE);
+            } catch (final IllegalArgumentException e) {
+                return new ResponseEntity<>(orderDto, HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * Fulfills several orders in one transaction, e.g. a rush of kitchen
+     * tickets. Each order gets its own result; an order that does not exist,
+     * is already fulfilled or lacks stock fails without affecting the rest.
+     *
+     * @param orderIds the ids of the orders to fulfill
+     * @return ResponseEntity with one result per order, or 400 if no ids or
+     *         too many ids are given
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @PostMapping("/fulfillOrders")
+    public ResponseEntity<List<FulfillmentResultDto>> fulfillOrders(@RequestBody final List<Long> orderIds) {
         try {
-            orderService.getOrderById(orderDto.getId());
-        } catch (final ResourceNotFoundException e) {
-            return new ResponseEntity<>(orderDto, HttpStatus.PRECONDITION_FAILED);
+            return ResponseEntity.ok(orderService.fulfillOrders(orderIds));
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+    }
 
-        final OrderDto existingOrder = orderService.getOrderById(orderDto.getId());
-
-        if (existingOrder.getIsFulfilled()) {
-            return new ResponseEntity<>(orderDto, HttpStatus.GONE);
+    /**
+     * Queues an order for asynchronous fulfillment and returns at once, so
+     * a slow fulfillment does not hold up a request thread. Poll the ticket
+     * at the Location of the response to follow the fulfillment.
+     *
+     * @param orderDto the order to fulfill
+     * @return ResponseEntity with 202 and the order's ticket, 400 if the
+     *         order has no id, or 503 if the fulfillment queue is full
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @PostMapping("/fulfillments")
+    public ResponseEntity<FulfillmentTicketDto> submitFulfillment(@RequestBody final OrderDto orderDto) {
+        if (orderDto.getId() == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
-
         try {
-            final OrderDto updatedOrder = orderService.fulfillOrder(existingOrder.getId());
-            return ResponseEntity.ok(updatedOrder);
-        } catch (final Exception e) {
-            return new ResponseEntity<>(orderDto, HttpStatus.BAD_REQUEST);
+            final FulfillmentTicketDto ticket = fulfillmentQueue.submit(orderDto.getId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/fulfillments/" + ticket.ticketId()))
+                    .body(ticket);
+        } catch (final IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    /**
+     * Retrieves the state of an asynchronous fulfillment.
+     *
+     * @param ticketId the ticket returned when the order was queued
+     * @return ResponseEntity with the ticket, or 404 if it is unknown or
+     *         has expired
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'CUSTOMER')")
+    @GetMapping("/fulfillments/{ticketId}")
+    public ResponseEntity<FulfillmentTicketDto> getFulfillment(@PathVariable("ticketId") final String ticketId) {
+        final FulfillmentTicketDto ticket = fulfillmentQueue.getTicket(ticketId);
+        if (ticket == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
+        return ResponseEntity.ok(ticket);
     }
 
     /**
@@ -125,35 +255,82 @@ public class OrderController {
 
     /**
      * Retrieves all orders for the current authenticated user.
+     * Without limit and cursor every order is returned; with either, one page
+     * is returned and the cursor of the next page is sent in the
+     * X-Next-Cursor header.
      *
-     * @return JSON list of current user's orders
+     * @param limit maximum number of orders per page
+     * @param cursor cursor of the page, from the previous page's header
+     * @return JSON list of orders, or 400 for a bad limit or cursor
      */
     @PreAuthorize("hasRole('CUSTOMER')")
     @GetMapping("/my-orders")
-    public List<OrderDto> getMyOrders() {
-        return orderService.getCurrentUserOrders();
+    public ResponseEntity<List<OrderDto>> getMyOrders(@RequestParam(required = false) final Integer limit,
+            @RequestParam(required = false) final String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(orderService.getCurrentUserOrders());
+        }
+        return page(() -> orderService.getCurrentUserOrderPage(null, limit, cursor));
     }
 
     /**
      * Retrieves fulfilled orders for the current authenticated user.
+     * Without limit and cursor every order is returned; with either, one page
+     * is returned and the cursor of the next page is sent in the
+     * X-Next-Cursor header.
      *
-     * @return JSON list of current user's fulfilled orders
+     * @param limit maximum number of orders per page
+     * @param cursor cursor of the page, from the previous page's header
+     * @return JSON list of orders, or 400 for a bad limit or cursor
      */
     @PreAuthorize("hasRole('CUSTOMER')")
     @GetMapping("/my-orders/fulfilled")
-    public List<OrderDto> getMyFulfilledOrders() {
-        return orderService.getCurrentUserFulfilledOrders();
+    public ResponseEntity<List<OrderDto>> getMyFulfilledOrders(@RequestParam(required = false) final Integer limit,
+            @RequestParam(required = false) final String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(orderService.getCurrentUserFulfilledOrders());
+        }
+        return page(() -> orderService.getCurrentUserOrderPage(true, limit, cursor));
     }
 
     /**
      * Retrieves unfulfilled orders for the current authenticated user.
+     * Without limit and cursor every order is returned; with either, one page
+     * is returned and the cursor of the next page is sent in the
+     * X-Next-Cursor header.
      *
-     * @return JSON list of current user's unfulfilled orders
+     * @param limit maximum number of orders per page
+     * @param cursor cursor of the page, from the previous page's header
+     * @return JSON list of orders, or 400 for a bad limit or cursor
      */
     @PreAuthorize("hasRole('CUSTOMER')")
     @GetMapping("/my-orders/unfulfilled")
-    public List<OrderDto> getMyUnfulfilledOrders() {
-        return orderService.getCurrentUserUnfulfilledOrders();
+    public ResponseEntity<List<OrderDto>> getMyUnfulfilledOrders(@RequestParam(required = false) final Integer limit,
+            @RequestParam(required = false) final String cursor) {
+        if (limit == null && cursor == null) {
+            return ResponseEntity.ok(orderService.getCurrentUserUnfulfilledOrders());
+        }
+        return page(() -> orderService.getCurrentUserOrderPage(false, limit, cursor));
     }
 
+    /**
+     * Runs a page query and sends its orders, with the cursor of the next
+     * page in the X-Next-Cursor header.
+     *
+     * @param query the page query
+     * @return the page of orders, or 400 for a bad limit or cursor
+     */
+    private ResponseEntity<List<OrderDto>> page(final Supplier<OrderPageDto> query) {
+        final OrderPageDto page;
+        try {
+            page = query.get();
+        } catch (final IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.orders());
+    }
 }
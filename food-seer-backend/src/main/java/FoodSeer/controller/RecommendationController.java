@@ -0,0 +1,62 @@
+package FoodSeer.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import FoodSeer.dto.RecommendationPageDto;
+import FoodSeer.entity.User;
+import FoodSeer.service.RecommendationService;
+import FoodSeer.service.UserService;
+
+/**
+ * Controller class for personalized recommendations
+ */
+@CrossOrigin ( "*" )
+@RestController
+@RequestMapping ( "/api/recommendations" )
+public class RecommendationController {
+
+    /**
+     * Recommendation service to use
+     */
+    @Autowired
+    private RecommendationService recommendationService;
+
+    /**
+     * User service, for the current user
+     */
+    @Autowired
+    private UserService           userService;
+
+    /**
+     * Returns the in-stock foods that fit the current user's budget and
+     * dietary restrictions, most often ordered first, then cheapest.
+     *
+     * @param page
+     *            zero based page number (default 0)
+     * @param size
+     *            page size (default 20, at most 100)
+     * @return one page of recommendations
+     */
+    @GetMapping
+    public ResponseEntity<RecommendationPageDto> getRecommendations (
+            @RequestParam ( required = false ) final Integer page,
+            @RequestParam ( required = false ) final Integer size ) {
+        final User user = userService.getCurrentUser();
+        if ( user == null ) {
+            return new ResponseEntity<>( HttpStatus.UNAUTHORIZED );
+        }
+        try {
+            return ResponseEntity.ok( recommendationService.getRecommendations( user, page, size ) );
+        }
+        catch ( final IllegalArgumentException e ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package FoodSeer.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import FoodSeer.dto.DashboardStatsDto;
+import FoodSeer.service.impl.DashboardStats;
+
+/**
+ * Controller for the order and stock totals shown on the dashboards.
+ */
+@CrossOrigin("*")
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    /**
+     * Totals kept up to date by the order and food services.
+     */
+    @Autowired
+    private DashboardStats dashboardStats;
+
+    /**
+     * REST API endpoint returning the pending, fulfilled and total order
+     * counts and the total, in stock and out of stock food counts. The
+     * totals are kept in memory, so this does not read the orders or foods.
+     *
+     * @return ResponseEntity with the totals
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF')")
+    @GetMapping
+    public ResponseEntity<DashboardStatsDto> getStats() {
+        return ResponseEntity.ok(dashboardStats.snapshot());
+    }
+}
@@ -0,0 +1,21 @@
+package FoodSeer.dto;
+
+/**
+ * Order and stock totals shown on the dashboards.
+ *
+ * @param pendingOrders
+ *            orders not yet fulfilled
+ * @param fulfilledOrders
+ *            fulfilled orders
+ * @param totalOrders
+ *            all orders
+ * @param totalFoods
+ *            foods in the inventory
+ * @param inStockFoods
+ *            foods with units in stock
+ * @param outOfStockFoods
+ *            foods without units in stock
+ */
+public record DashboardStatsDto ( long pendingOrders, long fulfilledOrders, long totalOrders, int totalFoods,
+        int inStockFoods, int outOfStockFoods ) {
+}
@@ -0,0 +1,21 @@
+package FoodSeer.dto;
+
+/**
+ * Hit/miss statistics of the food catalog cache.
+ *
+ * @param enabled
+ *            whether the cache is enabled
+ * @param hits
+ *            lookups answered from memory
+ * @param misses
+ *            lookups that went to the database
+ * @param evictions
+ *            entries dropped because of the size bound or TTL
+ * @param size
+ *            number of individual foods currently cached
+ * @param catalogCached
+ *            whether the full catalog list is currently cached
+ */
+public record FoodCacheStatsDto ( boolean enabled, long hits, long misses, long evictions, int size,
+        boolean catalogCached ) {
+}
@@ -27,6 +27,12 @@ public class FoodDto {
      */
     private int price;
 
+    /**
+     * Stock level at or below which the food is reported as low, or null to
+     * use the default threshold
+     */
+    private Integer reorderThreshold;
+
     /**
      * List representing allergies associated with the food
      */
@@ -156,4 +162,23 @@ public class FoodDto {
     public void setId ( final Long id ) {
         this.id = id;
     }
+
+    /**
+     * Gets the reorder threshold
+     *
+     * @return the reorder threshold, or null for the default
+     */
+    public Integer getReorderThreshold () {
+        return reorderThreshold;
+    }
+
+    /**
+     * Sets the reorder threshold
+     *
+     * @param reorderThreshold
+     *            the threshold to set, or null for the default
+     */
+    public void setReorderThreshold ( final Integer reorderThreshold ) {
+        this.reorderThreshold = reorderThreshold;
+    }
 }
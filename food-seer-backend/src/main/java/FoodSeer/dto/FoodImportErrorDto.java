@@ -0,0 +1,12 @@
+package FoodSeer.dto;
+
+/**
+ * A row rejected by a bulk food import.
+ *
+ * @param line
+ *            1-based line number of the row in the uploaded file
+ * @param message
+ *            why the row was rejected
+ */
+public record FoodImportErrorDto ( long line, String message ) {
+}
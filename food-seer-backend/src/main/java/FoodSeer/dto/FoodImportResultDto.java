@@ -0,0 +1,16 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk food import.
+ *
+ * @param imported
+ *            number of foods inserted
+ * @param rejected
+ *            number of rows rejected
+ * @param errors
+ *            the rejected rows, truncated to the first few hundred
+ */
+public record FoodImportResultDto ( int imported, int rejected, List<FoodImportErrorDto> errors ) {
+}
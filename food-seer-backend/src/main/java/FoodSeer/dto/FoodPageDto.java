@@ -0,0 +1,14 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * One page of a catalog query.
+ *
+ * @param foods
+ *            the foods on this page
+ * @param nextCursor
+ *            cursor for the next page, or null if this is the last page
+ */
+public record FoodPageDto ( List<FoodDto> foods, String nextCursor ) {
+}
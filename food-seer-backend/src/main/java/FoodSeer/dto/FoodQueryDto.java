@@ -0,0 +1,28 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * Filters, sort key and keyset cursor for a catalog query on /api/foods.
+ * Every field is optional; null means "no constraint".
+ *
+ * @param namePrefix
+ *            only foods whose name starts with this prefix
+ * @param minPrice
+ *            minimum price (inclusive)
+ * @param maxPrice
+ *            maximum price (inclusive)
+ * @param inStock
+ *            true for foods with amount &gt; 0, false for sold out foods
+ * @param excludeAllergens
+ *            foods containing any of these allergens are left out
+ * @param sort
+ *            sort key: name, price, amount or id
+ * @param limit
+ *            maximum number of foods to return
+ * @param cursor
+ *            opaque cursor returned with the previous page
+ */
+public record FoodQueryDto ( String namePrefix, Integer minPrice, Integer maxPrice, Boolean inStock,
+        List<String> excludeAllergens, String sort, Integer limit, String cursor ) {
+}
@@ -0,0 +1,21 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * One change in a batch food update. The food is identified by id, or by
+ * name when no id is given. Fields left null are not changed.
+ *
+ * @param id
+ *            id of the food to change
+ * @param foodName
+ *            name of the food to change, used when id is null
+ * @param amount
+ *            new amount in stock
+ * @param price
+ *            new price
+ * @param allergies
+ *            new allergy list
+ */
+public record FoodUpdateDto ( Long id, String foodName, Integer amount, Integer price, List<String> allergies ) {
+}
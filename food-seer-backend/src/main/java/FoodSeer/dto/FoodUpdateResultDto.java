@@ -0,0 +1,25 @@
+package FoodSeer.dto;
+
+/**
+ * Result of one change in a batch food update.
+ *
+ * @param index
+ *            position of the change in the request
+ * @param status
+ *            UPDATED, NOT_FOUND or INVALID
+ * @param message
+ *            why the change was not applied, or null if it was
+ * @param food
+ *            the food after the change, or null if it was not applied
+ */
+public record FoodUpdateResultDto ( int index, String status, String message, FoodDto food ) {
+
+    /** The change was applied */
+    public static final String UPDATED   = "UPDATED";
+
+    /** No food matched the id or name */
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    /** The change failed validation */
+    public static final String INVALID   = "INVALID";
+}
@@ -0,0 +1,14 @@
+package FoodSeer.dto;
+
+/**
+ * Outcome of fulfilling one order of a batch.
+ *
+ * @param orderId
+ *            id of the order
+ * @param fulfilled
+ *            true if the order was fulfilled
+ * @param error
+ *            why the order was not fulfilled, or null
+ */
+public record FulfillmentResultDto ( Long orderId, boolean fulfilled, String error ) {
+}
@@ -0,0 +1,18 @@
+package FoodSeer.dto;
+
+/**
+ * State of an order queued for asynchronous fulfillment.
+ *
+ * @param ticketId
+ *            id to poll the state with
+ * @param orderId
+ *            id of the order
+ * @param status
+ *            QUEUED, RUNNING, FULFILLED or FAILED
+ * @param attempts
+ *            fulfillment attempts made so far
+ * @param error
+ *            why the order was not fulfilled, or null
+ */
+public record FulfillmentTicketDto ( String ticketId, Long orderId, String status, int attempts, String error ) {
+}
@@ -0,0 +1,21 @@
+package FoodSeer.dto;
+
+/**
+ * A change to one food of the inventory.
+ *
+ * @param seq
+ *            sequence number of the change
+ * @param foodId
+ *            food id
+ * @param foodName
+ *            food name
+ * @param amount
+ *            units in stock after the change
+ * @param price
+ *            price after the change
+ * @param deleted
+ *            true if the food was deleted
+ */
+public record InventoryChangeDto ( long seq, Long foodId, String foodName, int amount, int price,
+        boolean deleted ) {
+}
@@ -0,0 +1,17 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * The inventory changes after a sequence number, oldest first. Only the
+ * latest change of each food is guaranteed to be kept.
+ *
+ * @param latest
+ *            sequence number to pass as since on the next sync
+ * @param hasMore
+ *            true if more changes are waiting past the limit
+ * @param changes
+ *            the changes
+ */
+public record InventoryChangesDto ( long latest, boolean hasMore, List<InventoryChangeDto> changes ) {
+}
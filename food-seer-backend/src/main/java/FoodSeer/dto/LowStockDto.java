@@ -0,0 +1,16 @@
+package FoodSeer.dto;
+
+/**
+ * A food whose stock is at or below its reorder threshold.
+ *
+ * @param foodId
+ *            food id
+ * @param foodName
+ *            food name
+ * @param amount
+ *            units in stock
+ * @param reorderThreshold
+ *            threshold in effect for the food
+ */
+public record LowStockDto ( Long foodId, String foodName, int amount, int reorderThreshold ) {
+}
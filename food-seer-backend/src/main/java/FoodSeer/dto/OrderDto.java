@@ -17,7 +17,16 @@ public class OrderDto {
     /** Order name */
     private String name;
 
-    /** List of foods in the order */
+    /** Name of the user who placed the order */
+    private String username;
+
+    /** Lines of the order, one per food */
+    private List<OrderLineDto> lines;
+
+    /**
+     * Foods to order, one entry per unit. Only read when creating an order,
+     * for clients that do not send lines.
+     */
     private List<Food> foods;
 
     /** Boolean used to track if the order has been fulfilled */
@@ -27,6 +36,7 @@ public class OrderDto {
      * Default constructor for OrderDto.
      */
     public OrderDto() {
+        this.lines = new ArrayList<>();
         this.foods = new ArrayList<>();
         this.isFulfilled = false;
     }
@@ -40,6 +50,7 @@ public class OrderDto {
     public OrderDto(final Long id, final String name) {
         this.id = id;
         this.name = name;
+        this.lines = new ArrayList<>();
         this.foods = new ArrayList<>();
         this.isFulfilled = false;
     }
@@ -80,6 +91,42 @@ public class OrderDto {
         this.name = name;
     }
 
+    /**
+     * Gets the name of the user who placed the order.
+     *
+     * @return the username
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Sets the name of the user who placed the order.
+     *
+     * @param username the username
+     */
+    public void setUsername(final String username) {
+        this.username = username;
+    }
+
+    /**
+     * Gets the lines of the order.
+     *
+     * @return the lines, one per food
+     */
+    public List<OrderLineDto> getLines() {
+        return this.lines;
+    }
+
+    /**
+     * Sets the lines of the order.
+     *
+     * @param lines the lines, one per food
+     */
+    public void setLines(final List<OrderLineDto> lines) {
+        this.lines = lines;
+    }
+
     /**
      * Adds a food item to the order.
      *
@@ -90,7 +137,7 @@ public class OrderDto {
     }
 
     /**
-     * Gets the list of foods in the order.
+     * Gets the foods to order, one entry per unit.
      *
      * @return the list of foods
      */
@@ -99,7 +146,7 @@ public class OrderDto {
     }
 
     /**
-     * Sets the list of foods in the order.
+     * Sets the foods to order, one entry per unit.
      *
      * @param foods the list of foods
      */
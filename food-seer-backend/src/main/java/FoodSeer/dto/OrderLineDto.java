@@ -0,0 +1,17 @@
+package FoodSeer.dto;
+
+/**
+ * One line of an order. When creating an order only foodId and quantity are
+ * read.
+ *
+ * @param foodId
+ *            food id
+ * @param foodName
+ *            food name
+ * @param quantity
+ *            units ordered
+ * @param unitPrice
+ *            price of one unit when the order was placed
+ */
+public record OrderLineDto ( Long foodId, String foodName, int quantity, int unitPrice ) {
+}
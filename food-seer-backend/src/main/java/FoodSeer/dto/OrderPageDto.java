@@ -0,0 +1,14 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * One page of an order listing.
+ *
+ * @param orders
+ *            the orders on this page, by id
+ * @param nextCursor
+ *            cursor for the next page, or null if this is the last page
+ */
+public record OrderPageDto ( List<OrderDto> orders, String nextCursor ) {
+}
@@ -0,0 +1,18 @@
+package FoodSeer.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's personalized recommendations.
+ *
+ * @param foods
+ *            the foods on this page, best first
+ * @param page
+ *            zero based page number
+ * @param size
+ *            page size
+ * @param total
+ *            number of foods eligible for the user across all pages
+ */
+public record RecommendationPageDto ( List<FoodDto> foods, int page, int size, int total ) {
+}
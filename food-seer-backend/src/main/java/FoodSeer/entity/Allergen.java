@@ -0,0 +1,116 @@
+package FoodSeer.entity;
+
+import java.util.Collection;
+
+/**
+ * Dictionary of the allergens FoodSeer knows about. Each allergen owns one
+ * bit of Food's allergen mask, so "contains none of these allergens" can be
+ * evaluated as a single bitwise predicate on the foods table.
+ *
+ * The bit of an allergen is its ordinal, so new allergens must only ever be
+ * appended to the end of this list. Allergies that are not in the dictionary
+ * set the OTHER bit and are still stored in Food's allergy list.
+ */
+public enum Allergen {
+
+    MILK ( "MILK" ),
+    DAIRY ( "DAIRY" ),
+    LACTOSE ( "LACTOSE" ),
+    EGGS ( "EGGS" ),
+    FISH ( "FISH" ),
+    SHELLFISH ( "SHELLFISH" ),
+    TREE_NUTS ( "TREE-NUTS" ),
+    PEANUTS ( "PEANUTS" ),
+    WHEAT ( "WHEAT" ),
+    GLUTEN ( "GLUTEN" ),
+    SOY ( "SOY" ),
+    SESAME ( "SESAME" ),
+    CORN ( "CORN" ),
+    SULFITES ( "SULFITES" ),
+    MUSTARD ( "MUSTARD" ),
+    MEAT ( "MEAT" ),
+    BEEF ( "BEEF" ),
+    PORK ( "PORK" ),
+    POULTRY ( "POULTRY" ),
+    GELATIN ( "GELATIN" ),
+    CAFFEINE ( "CAFFEINE" );
+
+    /** Bit set in the mask of foods with an allergy outside the dictionary */
+    public static final long OTHER_BIT = 1L << 62;
+
+    /** Allergen code as stored in Food's allergy list */
+    private final String code;
+
+    /**
+     * Creates an allergen
+     *
+     * @param code
+     *            the allergen code
+     */
+    Allergen ( final String code ) {
+        this.code = code;
+    }
+
+    /**
+     * Gets the allergen code
+     *
+     * @return the code
+     */
+    public String getCode () {
+        return code;
+    }
+
+    /**
+     * Gets the mask bit owned by this allergen
+     *
+     * @return the bit
+     */
+    public long getBit () {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Looks up an allergen by code, ignoring case and surrounding whitespace.
+     *
+     * @param code
+     *            the code to look up
+     * @return the allergen, or null if the code is not in the dictionary
+     */
+    public static Allergen fromCode ( final String code ) {
+        if ( code == null ) {
+            return null;
+        }
+        final String normalized = code.trim().toUpperCase();
+        for ( final Allergen allergen : values() ) {
+            if ( allergen.code.equals( normalized ) ) {
+                return allergen;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Computes the allergen mask for a list of allergy codes. Codes outside
+     * the dictionary set OTHER_BIT.
+     *
+     * @param codes
+     *            allergy codes, may be null
+     * @return the mask
+     */
+    public static long maskOf ( final Collection<String> codes ) {
+        long mask = 0L;
+        if ( codes == null ) {
+            return mask;
+        }
+        for ( final String code : codes ) {
+            final Allergen allergen = fromCode( code );
+            if ( allergen != null ) {
+                mask |= allergen.getBit();
+            }
+            else if ( code != null && !code.trim().isEmpty() ) {
+                mask |= OTHER_BIT;
+            }
+        }
+        return mask;
+    }
+}
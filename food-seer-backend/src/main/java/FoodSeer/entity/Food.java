@@ -3,18 +3,25 @@ package FoodSeer.entity;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import FoodSeer.service.impl.FoodChangeListener;
+import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 /**
  * This class represents a Food entity.
  */
 @Entity
-@Table ( name = "foods" )
+@EntityListeners ( FoodChangeListener.class )
+@Table ( name = "foods", indexes = @Index ( name = "uk_foods_food_name", columnList = "foodName", unique = true ) )
 public class Food {
 
     /**
@@ -25,7 +32,9 @@ public class Food {
     private Long id;
 
     /**
-     * Name of the food
+     * Name of the food. Stored normalized (trimmed, upper case) under a unique
+     * index, so duplicate checks are answered by a single lookup and two
+     * concurrent writes cannot both add the same name.
      */
     private String foodName;
 
@@ -39,12 +48,26 @@ public class Food {
      */
     private int price;
 
+    /**
+     * Stock level at or below which the food is reported as low, or null to
+     * use the default threshold
+     */
+    private Integer reorderThreshold;
+
     /**
      * List representing allergies associated with the food
      */
     @ElementCollection
     private List<String> allergies = new ArrayList<>();
 
+    /**
+     * Denormalized bitmask of the allergies, see Allergen. Kept in sync with
+     * the allergy list so allergen filters never need the collection table.
+     */
+    @JsonIgnore
+    @Column ( nullable = false )
+    private long allergenMask;
+
     /**
      * Constructor for Hibernate
      */
@@ -76,6 +99,7 @@ public class Food {
         for ( final String allergy : allergies ) {
             this.allergies.add( allergy.toUpperCase() );
         }
+        this.allergenMask = Allergen.maskOf( this.allergies );
     }
 
     /**
@@ -135,6 +159,25 @@ public class Food {
         this.amount = amount;
     }
 
+    /**
+     * Gets the reorder threshold
+     *
+     * @return The reorder threshold, or null for the default
+     */
+    public Integer getReorderThreshold () {
+        return reorderThreshold;
+    }
+
+    /**
+     * Sets the reorder threshold
+     *
+     * @param reorderThreshold
+     *            The threshold to set, or null for the default
+     */
+    public void setReorderThreshold ( final Integer reorderThreshold ) {
+        this.reorderThreshold = reorderThreshold;
+    }
+
     /**
      * Gets the price field
      *
@@ -171,5 +214,25 @@ public class Food {
      */
     public void setAllergies ( final List<String> allergies ) {
         this.allergies = allergies;
+        this.allergenMask = Allergen.maskOf( allergies );
+    }
+
+    /**
+     * Gets the allergen bitmask of the food
+     *
+     * @return The allergen mask
+     */
+    public long getAllergenMask () {
+        return allergenMask;
+    }
+
+    /**
+     * Sets the allergen bitmask to @param allergenMask
+     *
+     * @param allergenMask
+     *            The mask to set
+     */
+    public void setAllergenMask ( final long allergenMask ) {
+        this.allergenMask = allergenMask;
     }
 }
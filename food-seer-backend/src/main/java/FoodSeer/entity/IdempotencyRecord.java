@@ -0,0 +1,95 @@
+package FoodSeer.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+/**
+ * The stored response to a request made with an Idempotency-Key, shared by
+ * every instance of the application when the idempotency store is shared.
+ * A row with status 0 is a claim: the request is still being handled, or
+ * was abandoned if the claim is older than the lease. Rows
+ * are written with plain JDBC by IdempotencyStore.
+ */
+@Entity
+@Table ( name = "idempotency_keys", indexes = @Index ( name = "idx_idempotency_keys_created_at",
+        columnList = "createdAt" ) )
+public class IdempotencyRecord {
+
+    /** SHA-256 of the key, the user and the operation, in hex */
+    @Id
+    @Column ( name = "idem_key", length = 64 )
+    private String  key;
+
+    /** HTTP status of the response, or 0 while the request is handled */
+    private int     status;
+
+    /** JSON body of the response, or null */
+    @Lob
+    private String  body;
+
+    /** SHA-256 of the request body, in hex */
+    @Column ( length = 64 )
+    private String  fingerprint;
+
+    /** When the key was first used */
+    @Column ( nullable = false )
+    private Instant createdAt;
+
+    /**
+     * Constructor for Hibernate
+     */
+    public IdempotencyRecord () {
+        super();
+    }
+
+    /**
+     * Returns the scoped key
+     *
+     * @return key
+     */
+    public String getKey () {
+        return key;
+    }
+
+    /**
+     * Returns the HTTP status of the response
+     *
+     * @return status, or 0 while the request is handled
+     */
+    public int getStatus () {
+        return status;
+    }
+
+    /**
+     * Returns the JSON body of the response
+     *
+     * @return body, or null
+     */
+    public String getBody () {
+        return body;
+    }
+
+    /**
+     * Returns the fingerprint of the request
+     *
+     * @return SHA-256 of the request body, or null
+     */
+    public String getFingerprint () {
+        return fingerprint;
+    }
+
+    /**
+     * Returns when the key was first used
+     *
+     * @return creation time
+     */
+    public Instant getCreatedAt () {
+        return createdAt;
+    }
+}
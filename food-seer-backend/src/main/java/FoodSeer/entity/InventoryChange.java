@@ -0,0 +1,104 @@
+package FoodSeer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * One entry of the append-only inventory ledger: the amount and price of a
+ * food right after a write, or its deletion. The id is the global sequence
+ * number clients sync from. Entries are inserted by InventoryLedger in the
+ * transaction of the write and never updated; compaction only deletes
+ * entries that a newer entry of the same food supersedes.
+ */
+@Entity
+@Table ( name = "inventory_changes", indexes = @Index ( name = "idx_inventory_changes_food_id",
+        columnList = "foodId" ) )
+public class InventoryChange {
+
+    /** Sequence number of the entry */
+    @Id
+    @GeneratedValue ( strategy = GenerationType.IDENTITY )
+    private Long    id;
+
+    /** Id of the food */
+    @Column ( nullable = false )
+    private Long    foodId;
+
+    /** Name of the food */
+    private String  foodName;
+
+    /** Units in stock after the write */
+    private int     amount;
+
+    /** Price after the write */
+    private int     price;
+
+    /** True if the food was deleted */
+    private boolean deleted;
+
+    /**
+     * Constructor for Hibernate
+     */
+    public InventoryChange () {
+        super();
+    }
+
+    /**
+     * Returns the sequence number of the entry
+     *
+     * @return sequence number
+     */
+    public Long getId () {
+        return id;
+    }
+
+    /**
+     * Returns the id of the food
+     *
+     * @return food id
+     */
+    public Long getFoodId () {
+        return foodId;
+    }
+
+    /**
+     * Returns the name of the food
+     *
+     * @return food name
+     */
+    public String getFoodName () {
+        return foodName;
+    }
+
+    /**
+     * Returns the units in stock after the write
+     *
+     * @return units in stock
+     */
+    public int getAmount () {
+        return amount;
+    }
+
+    /**
+     * Returns the price after the write
+     *
+     * @return price
+     */
+    public int getPrice () {
+        return price;
+    }
+
+    /**
+     * Returns true if the food was deleted
+     *
+     * @return true for a deletion
+     */
+    public boolean isDeleted () {
+        return deleted;
+    }
+}
@@ -8,17 +8,22 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 
 /**
  * Represents an Order in the FoodSeer system.
- * Each order can contain multiple foods, and can be marked as fulfilled or not.
+ * Each order has one line per food it contains, with the quantity ordered,
+ * and can be marked as fulfilled or not.
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_fulfilled_id", columnList = "isFulfilled, id"),
+        @Index(name = "idx_orders_user_fulfilled_id", columnList = "user_id, isFulfilled, id") })
 public class Order {
 
     /** Order ID */
@@ -34,9 +39,10 @@ public class Order {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    /** List of foods in the order */
-    @ManyToMany
-    private List<Food> foods = new ArrayList<>();
+    /** Lines of the order, one per food */
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    private List<OrderLine> lines = new ArrayList<>();
 
     /** Boolean used to track if the order has been fulfilled */
     private boolean isFulfilled;
@@ -57,7 +63,7 @@ public class Order {
     public Order(final Long id, final String name) {
         this.id = id;
         this.name = name;
-        this.foods = new ArrayList<>();
+        this.lines = new ArrayList<>();
         this.isFulfilled = false;
     }
 
@@ -99,30 +105,29 @@ public class Order {
     }
 
     /**
-     * Adds a food item to the order.
+     * Adds units of a food to the order, on the food's existing line if it
+     * has one.
      *
-     * @param food the food to add
+     * @param food     the food to add
+     * @param quantity units to add
      */
-    public void addFood(final Food food) {
-        this.foods.add(food);
+    public void addFood(final Food food, final int quantity) {
+        for (final OrderLine line : lines) {
+            if (line.getFood() == food) {
+                line.setQuantity(line.getQuantity() + quantity);
+                return;
+            }
+        }
+        lines.add(new OrderLine(this, food, quantity));
     }
 
     /**
-     * Gets the list of foods in the order.
+     * Gets the lines of the order.
      *
-     * @return the list of foods
+     * @return the lines, one per food
      */
-    public List<Food> getFoods() {
-        return this.foods;
-    }
-
-    /**
-     * Sets the list of foods in the order.
-     *
-     * @param foods the list of foods
-     */
-    public void setFoods(final List<Food> foods) {
-        this.foods = foods;
+    public List<OrderLine> getLines() {
+        return this.lines;
     }
 
     /**
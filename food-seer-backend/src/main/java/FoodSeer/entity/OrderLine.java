@@ -0,0 +1,120 @@
+package FoodSeer.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * One line of an Order: a food, how many units of it were ordered, and the
+ * food's price when the order was placed. An order has at most one line per
+ * food.
+ */
+@Entity
+@Table(name = "order_lines",
+        uniqueConstraints = @UniqueConstraint(name = "uk_order_lines_order_food", columnNames = { "order_id", "food_id" }),
+        indexes = @Index(name = "idx_order_lines_food_id", columnList = "food_id"))
+public class OrderLine {
+
+    /** Line ID */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Order the line belongs to */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    /** Food ordered */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "food_id", nullable = false)
+    private Food food;
+
+    /** Units ordered */
+    private int quantity;
+
+    /** Price of one unit when the order was placed */
+    private int unitPrice;
+
+    /**
+     * Default constructor for Hibernate.
+     */
+    public OrderLine() {
+        // Default constructor
+    }
+
+    /**
+     * Creates a line of an order, taking the food's current price.
+     *
+     * @param order    the order
+     * @param food     the food ordered
+     * @param quantity units ordered
+     */
+    public OrderLine(final Order order, final Food food, final int quantity) {
+        this.order = order;
+        this.food = food;
+        this.quantity = quantity;
+        this.unitPrice = food.getPrice();
+    }
+
+    /**
+     * Gets the line ID.
+     *
+     * @return the line ID
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the order the line belongs to.
+     *
+     * @return the order
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Gets the food ordered.
+     *
+     * @return the food
+     */
+    public Food getFood() {
+        return food;
+    }
+
+    /**
+     * Gets the units ordered.
+     *
+     * @return the quantity
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sets the units ordered.
+     *
+     * @param quantity the quantity
+     */
+    public void setQuantity(final int quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the price of one unit when the order was placed.
+     *
+     * @return the unit price
+     */
+    public int getUnitPrice() {
+        return unitPrice;
+    }
+}
@@ -0,0 +1,53 @@
+package FoodSeer.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A one-time data migration that has been applied to this database. Rows
+ * are written with plain JDBC by DataInitializer, in the transaction of the
+ * migration, so a migration that fails is retried on the next start and one
+ * that succeeded never runs again.
+ */
+@Entity
+@Table ( name = "schema_migrations" )
+public class SchemaMigration {
+
+    /** Name of the migration */
+    @Id
+    @Column ( length = 100 )
+    private String  version;
+
+    /** When the migration was applied */
+    @Column ( nullable = false )
+    private Instant appliedAt;
+
+    /**
+     * Constructor for Hibernate
+     */
+    public SchemaMigration () {
+        super();
+    }
+
+    /**
+     * Returns the name of the migration
+     *
+     * @return version
+     */
+    public String getVersion () {
+        return version;
+    }
+
+    /**
+     * Returns when the migration was applied
+     *
+     * @return time applied
+     */
+    public Instant getAppliedAt () {
+        return appliedAt;
+    }
+}
@@ -0,0 +1,113 @@
+package FoodSeer.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Units of a food held for an unfulfilled order. Holds are placed when the
+ * order is created, removed when it is fulfilled, and released by a sweeper
+ * once they expire.
+ */
+@Entity
+@Table ( name = "stock_holds", indexes = { @Index ( name = "idx_stock_holds_order_id", columnList = "orderId" ),
+        @Index ( name = "idx_stock_holds_expires_at", columnList = "expiresAt" ) } )
+public class StockHold {
+
+    /** Id of the hold */
+    @Id
+    @GeneratedValue ( strategy = GenerationType.IDENTITY )
+    private Long    id;
+
+    /** Id of the order the units are held for */
+    @Column ( nullable = false )
+    private Long    orderId;
+
+    /** Id of the held food */
+    @Column ( nullable = false )
+    private Long    foodId;
+
+    /** Number of units held */
+    private int     quantity;
+
+    /** When the hold lapses */
+    @Column ( nullable = false )
+    private Instant expiresAt;
+
+    /**
+     * Constructor for Hibernate
+     */
+    public StockHold () {
+        super();
+    }
+
+    /**
+     * Creates a hold
+     *
+     * @param orderId
+     *            id of the order
+     * @param foodId
+     *            id of the food
+     * @param quantity
+     *            units held
+     * @param expiresAt
+     *            when the hold lapses
+     */
+    public StockHold ( final Long orderId, final Long foodId, final int quantity, final Instant expiresAt ) {
+        this.orderId = orderId;
+        this.foodId = foodId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Returns the id of the hold
+     *
+     * @return hold id
+     */
+    public Long getId () {
+        return id;
+    }
+
+    /**
+     * Returns the id of the order
+     *
+     * @return order id
+     */
+    public Long getOrderId () {
+        return orderId;
+    }
+
+    /**
+     * Returns the id of the food
+     *
+     * @return food id
+     */
+    public Long getFoodId () {
+        return foodId;
+    }
+
+    /**
+     * Returns the number of units held
+     *
+     * @return units held
+     */
+    public int getQuantity () {
+        return quantity;
+    }
+
+    /**
+     * Returns when the hold lapses
+     *
+     * @return expiry time
+     */
+    public Instant getExpiresAt () {
+        return expiresAt;
+    }
+}
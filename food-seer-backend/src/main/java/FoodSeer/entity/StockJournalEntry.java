@@ -0,0 +1,80 @@
+package FoodSeer.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Units of a hot food taken out of stock in memory but not yet written to
+ * the food's amount. Entries are committed with the fulfillment that made
+ * them and deleted once the write-behind flush has applied them.
+ */
+@Entity
+@Table ( name = "stock_journal" )
+public class StockJournalEntry {
+
+    /**
+     * Id of the entry, increasing in insert order. Entries can commit out of
+     * id order, so a lower id may appear after a higher one.
+     */
+    @Id
+    @GeneratedValue ( strategy = GenerationType.IDENTITY )
+    private Long id;
+
+    /** Id of the food */
+    @Column ( nullable = false )
+    private Long foodId;
+
+    /** Units taken out of stock */
+    private int  quantity;
+
+    /**
+     * Constructor for Hibernate
+     */
+    public StockJournalEntry () {
+        super();
+    }
+
+    /**
+     * Creates an entry
+     *
+     * @param foodId
+     *            id of the food
+     * @param quantity
+     *            units taken out of stock
+     */
+    public StockJournalEntry ( final Long foodId, final int quantity ) {
+        this.foodId = foodId;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Returns the id of the entry
+     *
+     * @return entry id
+     */
+    public Long getId () {
+        return id;
+    }
+
+    /**
+     * Returns the id of the food
+     *
+     * @return food id
+     */
+    public Long getFoodId () {
+        return foodId;
+    }
+
+    /**
+     * Returns the units taken out of stock
+     *
+     * @return units
+     */
+    public int getQuantity () {
+        return quantity;
+    }
+}
@@ -1,5 +1,7 @@
 package FoodSeer.mapper;
 
+import java.util.ArrayList;
+
 import FoodSeer.dto.FoodDto;
 import FoodSeer.entity.Food;
 
@@ -21,6 +23,7 @@ public class FoodMapper {
         foodDto.setFoodName( food.getFoodName() );
         foodDto.setAmount( food.getAmount() );
         foodDto.setPrice( food.getPrice() );
+        foodDto.setReorderThreshold( food.getReorderThreshold() );
         foodDto.setAllergies( food.getAllergies() );
         return foodDto;
     }
@@ -35,11 +38,45 @@ public class FoodMapper {
     public static Food mapToFood ( final FoodDto foodDto ) {
         final Food food = new Food();
         food.setId( foodDto.getId() );
-        food.setFoodName( foodDto.getFoodName() );
+        food.setFoodName( normalizeName( foodDto.getFoodName() ) );
         food.setAmount( foodDto.getAmount() );
         food.setPrice( foodDto.getPrice() );
+        food.setReorderThreshold( foodDto.getReorderThreshold() );
         food.setAllergies( foodDto.getAllergies() );
         return food;
     }
 
+    /**
+     * Copies a food DTO, including its allergy list
+     *
+     * @param foodDto
+     *            The DTO to copy
+     * @return The copy
+     */
+    public static FoodDto copy ( final FoodDto foodDto ) {
+        final FoodDto copy = new FoodDto();
+        copy.setId( foodDto.getId() );
+        copy.setFoodName( foodDto.getFoodName() );
+        copy.setAmount( foodDto.getAmount() );
+        copy.setPrice( foodDto.getPrice() );
+        copy.setReorderThreshold( foodDto.getReorderThreshold() );
+        copy.setAllergies( foodDto.getAllergies() == null ? null : new ArrayList<>( foodDto.getAllergies() ) );
+        return copy;
+    }
+
+    /**
+     * Normalizes a food name the way it is stored in the database (trimmed
+     * and upper case) so lookups by name hit the foodName index.
+     *
+     * @param name
+     *            The name to normalize
+     * @return The normalized name, or null if name is null
+     */
+    public static String normalizeName ( final String name ) {
+        if ( name == null ) {
+            return null;
+        }
+        return name.trim().toUpperCase();
+    }
+
 }
@@ -1,11 +1,18 @@
 package FoodSeer.mapper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import FoodSeer.dto.OrderDto;
-import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.OrderLineDto;
 import FoodSeer.entity.Order;
+import FoodSeer.entity.OrderLine;
 import FoodSeer.entity.Food;
+import FoodSeer.repositories.OrderLineItem;
+import FoodSeer.repositories.OrderSummary;
 
 /**
  * Mapper class for converting between Order and OrderDto.
@@ -20,15 +27,12 @@ public class OrderMapper {
      */
     public static OrderDto mapToOrderDto(final Order order) {
         final OrderDto dto = new OrderDto(order.getId(), order.getName());
+        if (order.getUser() != null) {
+            dto.setUsername(order.getUser().getUsername());
+        }
 
-        // Map Food entities to FoodDto and add them
-        dto.setFoods(order.getFoods().stream()
-                .map(FoodMapper::mapToFoodDto)
-                .map(foodDto -> new Food(
-                        foodDto.getFoodName(),
-                        foodDto.getAmount(),
-                        foodDto.getPrice(),
-                        foodDto.getAllergies()))
+        dto.setLines(order.getLines().stream()
+                .map(OrderMapper::mapToOrderLineDto)
                 .collect(Collectors.toList()));
 
         dto.setIsFulfilled(order.getIsFulfilled());
@@ -36,7 +40,50 @@ public class OrderMapper {
     }
 
     /**
-     * Converts an OrderDto to an Order entity.
+     * Builds OrderDtos from order summaries and the lines of those orders,
+     * both sorted by order id, without touching any entity.
+     *
+     * @param summaries the orders, by id
+     * @param lines the lines of the orders, by order id
+     * @return one OrderDto per summary, with its lines
+     */
+    public static List<OrderDto> mapToOrderDtos(final List<OrderSummary> summaries,
+            final List<OrderLineItem> lines) {
+        final List<OrderDto> dtos = new ArrayList<>(summaries.size());
+        int next = 0;
+        for (final OrderSummary summary : summaries) {
+            final OrderDto dto = new OrderDto(summary.getId(), summary.getName());
+            dto.setUsername(summary.getUsername());
+            dto.setIsFulfilled(summary.getFulfilled());
+            // skip lines of orders missing from the summaries, e.g. placed between the two queries
+            while (next < lines.size() && lines.get(next).getOrderId() < summary.getId()) {
+                next++;
+            }
+            while (next < lines.size() && lines.get(next).getOrderId().equals(summary.getId())) {
+                final OrderLineItem line = lines.get(next++);
+                dto.getLines().add(new OrderLineDto(line.getFoodId(), line.getFoodName(), line.getQuantity(),
+                        line.getUnitPrice()));
+            }
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    /**
+     * Converts an OrderLine entity to an OrderLineDto.
+     *
+     * @param line the OrderLine entity to convert
+     * @return the corresponding OrderLineDto
+     */
+    public static OrderLineDto mapToOrderLineDto(final OrderLine line) {
+        return new OrderLineDto(line.getFood().getId(), line.getFood().getFoodName(), line.getQuantity(),
+                line.getUnitPrice());
+    }
+
+    /**
+     * Converts an OrderDto to an Order entity. Each line gets a new,
+     * unsaved Food carrying the line's food id, name and unit price; the
+     * foods of the legacy list are copied and merged by name.
      *
      * @param orderDto the OrderDto to convert
      * @return the corresponding Order entity
@@ -44,14 +91,22 @@ public class OrderMapper {
     public static Order mapToOrder(final OrderDto orderDto) {
         final Order order = new Order(orderDto.getId(), orderDto.getName());
 
-        // Map FoodDto objects to Food entities
-        order.setFoods(orderDto.getFoods().stream()
-                .map(food -> new Food(
-                        food.getFoodName(),
-                        food.getAmount(),
-                        food.getPrice(),
-                        food.getAllergies()))
-                .collect(Collectors.toList()));
+        for (final OrderLineDto line : orderDto.getLines()) {
+            final Food food = new Food();
+            food.setId(line.foodId());
+            food.setFoodName(line.foodName());
+            food.setPrice(line.unitPrice());
+            order.addFood(food, line.quantity());
+        }
+
+        final Map<String, Food> copies = new HashMap<>();
+        for (final Food food : orderDto.getFoods()) {
+            order.addFood(copies.computeIfAbsent(food.getFoodName(), name -> new Food(
+                    food.getFoodName(),
+                    food.getAmount(),
+                    food.getPrice(),
+                    food.getAllergies())), 1);
+        }
 
         order.setIsFulfilled(orderDto.getIsFulfilled());
         return order;
@@ -0,0 +1,22 @@
+package FoodSeer.repositories;
+
+/**
+ * Projection of a total number of units of one food, such as the units held
+ * or the units journaled but not yet written to the food.
+ */
+public interface FoodQuantity {
+
+    /**
+     * Returns the food id
+     *
+     * @return food id
+     */
+    Long getFoodId ();
+
+    /**
+     * Returns the total units
+     *
+     * @return units
+     */
+    Long getQuantity ();
+}
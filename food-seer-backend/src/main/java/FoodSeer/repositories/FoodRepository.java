@@ -1,12 +1,115 @@
 package FoodSeer.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import FoodSeer.entity.Food;
+import jakarta.persistence.LockModeType;
 
 /**
- * Food Repository
+ * Food Repository. Catalog filters are expressed as specifications, see
+ * FoodSpecifications.
  */
-public interface FoodRepository extends JpaRepository<Food, Long> {
+public interface FoodRepository extends JpaRepository<Food, Long>, JpaSpecificationExecutor<Food> {
+
+    /**
+     * Finds the food with the given (normalized) name, which is unique.
+     *
+     * @param foodName
+     *            name of the food to find
+     * @return the food if it exists
+     */
+    Optional<Food> findByFoodName ( String foodName );
+
+    /**
+     * Returns true if a food exists with the given (normalized) name.
+     *
+     * @param foodName
+     *            name of the food to search
+     * @return true if the name is already in use
+     */
+    boolean existsByFoodName ( String foodName );
+
+    /**
+     * Finds the foods with any of the given (normalized) names in one query.
+     *
+     * @param foodNames
+     *            names of the foods to find
+     * @return the foods found
+     */
+    List<Food> findByFoodNameIn ( Collection<String> foodNames );
+
+    /**
+     * Returns the id, name and amount of every food.
+     *
+     * @return a summary of each food
+     */
+    List<FoodSummary> findAllBy ();
+
+    /**
+     * Returns the id, name, amount and price of every food, by id.
+     *
+     * @return the inventory
+     */
+    List<InventoryItem> findInventoryByOrderByIdAsc ();
+
+    /**
+     * Finds foods that have allergies but an empty allergen mask, with their
+     * allergies fetched. Used to backfill masks for rows written before the
+     * mask column existed.
+     *
+     * @return foods whose mask needs to be recomputed
+     */
+    @Query ( "SELECT DISTINCT f FROM Food f JOIN FETCH f.allergies WHERE f.allergenMask = 0" )
+    List<Food> findUnmaskedFoodsWithAllergies ();
+
+    /**
+     * Takes the given quantity out of a food's stock, only if that much is
+     * in stock. The check and the write happen in one statement, so
+     * concurrent orders cannot oversell. Pending changes are flushed first
+     * and the persistence context is cleared afterwards, since loaded foods
+     * no longer hold the current amount.
+     *
+     * @param id
+     *            food id
+     * @param quantity
+     *            units to take out
+     * @return 1 if the stock was decremented, 0 if the food does not exist
+     *         or has fewer units
+     */
+    @Modifying ( flushAutomatically = true, clearAutomatically = true )
+    @Query ( "UPDATE Food f SET f.amount = f.amount - :quantity WHERE f.id = :id AND f.amount >= :quantity" )
+    int decrementAmount ( @Param ( "id" ) Long id, @Param ( "quantity" ) int quantity );
+
+    /**
+     * Loads and locks the given foods in id order, so their stock cannot
+     * change until this transaction ends.
+     *
+     * @param ids
+     *            food ids
+     * @return the foods found, by id
+     */
+    @Lock ( LockModeType.PESSIMISTIC_WRITE )
+    @Query ( "SELECT f FROM Food f WHERE f.id IN :ids ORDER BY f.id" )
+    List<Food> findAllForUpdate ( @Param ( "ids" ) Collection<Long> ids );
+
+    /**
+     * Finds the foods whose stock is at or below their reorder threshold,
+     * or the given default for foods without one.
+     *
+     * @param defaultThreshold
+     *            threshold of foods without their own
+     * @return the low foods
+     */
+    @Query ( "SELECT f FROM Food f WHERE f.amount <= COALESCE(f.reorderThreshold, :defaultThreshold)" )
+    List<Food> findLowStock ( @Param ( "defaultThreshold" ) int defaultThreshold );
 
 }
@@ -0,0 +1,155 @@
+package FoodSeer.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import FoodSeer.entity.Allergen;
+import FoodSeer.entity.Food;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Specifications used to push catalog filters down into FoodRepository
+ * queries. A null argument yields a null specification, which Spring Data
+ * treats as "no constraint".
+ */
+public final class FoodSpecifications {
+
+    /**
+     * Utility class
+     */
+    private FoodSpecifications () {
+    }
+
+    /**
+     * Foods whose name starts with the given (normalized) prefix.
+     *
+     * @param prefix
+     *            name prefix
+     * @return specification
+     */
+    public static Specification<Food> nameStartsWith ( final String prefix ) {
+        if ( prefix == null || prefix.isEmpty() ) {
+            return null;
+        }
+        final String escaped = prefix.replace( "\\", "\\\\" ).replace( "%", "\\%" ).replace( "_", "\\_" );
+        return ( root, query, cb ) -> cb.like( root.get( "foodName" ), escaped + "%", '\\' );
+    }
+
+    /**
+     * Foods priced at or above the given price.
+     *
+     * @param minPrice
+     *            minimum price
+     * @return specification
+     */
+    public static Specification<Food> priceAtLeast ( final Integer minPrice ) {
+        if ( minPrice == null ) {
+            return null;
+        }
+        return ( root, query, cb ) -> cb.greaterThanOrEqualTo( root.get( "price" ), minPrice );
+    }
+
+    /**
+     * Foods priced at or below the given price.
+     *
+     * @param maxPrice
+     *            maximum price
+     * @return specification
+     */
+    public static Specification<Food> priceAtMost ( final Integer maxPrice ) {
+        if ( maxPrice == null ) {
+            return null;
+        }
+        return ( root, query, cb ) -> cb.lessThanOrEqualTo( root.get( "price" ), maxPrice );
+    }
+
+    /**
+     * Foods that are (or are not) in stock.
+     *
+     * @param inStock
+     *            true for amount &gt; 0, false for amount = 0
+     * @return specification
+     */
+    public static Specification<Food> inStock ( final Boolean inStock ) {
+        if ( inStock == null ) {
+            return null;
+        }
+        return ( root, query, cb ) -> inStock ? cb.greaterThan( root.get( "amount" ), 0 )
+                : cb.lessThanOrEqualTo( root.get( "amount" ), 0 );
+    }
+
+    /**
+     * Foods that contain none of the given allergens. Allergens in the
+     * Allergen dictionary are checked with a single bitmask predicate on
+     * the foods table; any others fall back to a subquery on the allergy
+     * collection.
+     *
+     * @param allergens
+     *            normalized allergen names
+     * @return specification
+     */
+    public static Specification<Food> excludesAllergens ( final List<String> allergens ) {
+        if ( allergens == null || allergens.isEmpty() ) {
+            return null;
+        }
+        long mask = 0L;
+        final List<String> unknown = new ArrayList<>();
+        for ( final String code : allergens ) {
+            final Allergen allergen = Allergen.fromCode( code );
+            if ( allergen != null ) {
+                mask |= allergen.getBit();
+            }
+            else {
+                unknown.add( code );
+            }
+        }
+        Specification<Food> spec = null;
+        if ( mask != 0L ) {
+            final long excluded = mask;
+            spec = ( root, query, cb ) -> cb.equal(
+                    cb.function( "bitand", Long.class, root.get( "allergenMask" ), cb.literal( excluded ) ), 0L );
+        }
+        if ( !unknown.isEmpty() ) {
+            final Specification<Food> other = ( root, query, cb ) -> {
+                final Subquery<Long> sub = query.subquery( Long.class );
+                final Root<Food> food = sub.from( Food.class );
+                final Join<Food, String> allergy = food.join( "allergies" );
+                sub.select( food.get( "id" ) ).where( cb.equal( food.get( "id" ), root.get( "id" ) ),
+                        allergy.in( unknown ) );
+                return cb.not( cb.exists( sub ) );
+            };
+            spec = spec == null ? other : spec.and( other );
+        }
+        return spec;
+    }
+
+    /**
+     * Keyset predicate for the page after (lastValue, lastId) when sorting
+     * ascending by the given attribute and then by id.
+     *
+     * @param <T>
+     *            type of the sort attribute
+     * @param attribute
+     *            entity attribute being sorted on
+     * @param lastValue
+     *            sort value of the last food on the previous page
+     * @param lastId
+     *            id of the last food on the previous page
+     * @return specification
+     */
+    public static <T extends Comparable<? super T>> Specification<Food> after ( final String attribute,
+            final T lastValue, final Long lastId ) {
+        if ( lastId == null ) {
+            return null;
+        }
+        if ( "id".equals( attribute ) || lastValue == null ) {
+            return ( root, query, cb ) -> cb.greaterThan( root.get( "id" ), lastId );
+        }
+        return ( root, query, cb ) -> cb.or( cb.greaterThan( root.<T> get( attribute ), lastValue ),
+                cb.and( cb.equal( root.get( attribute ), lastValue ), cb.greaterThan( root.get( "id" ), lastId ) ) );
+    }
+}
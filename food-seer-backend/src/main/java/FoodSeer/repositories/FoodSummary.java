@@ -0,0 +1,29 @@
+package FoodSeer.repositories;
+
+/**
+ * Projection of the Food columns needed to index and rank foods by name,
+ * so the search index can be built without loading allergy collections.
+ */
+public interface FoodSummary {
+
+    /**
+     * Returns the food id
+     *
+     * @return id
+     */
+    Long getId ();
+
+    /**
+     * Returns the (normalized) food name
+     *
+     * @return name
+     */
+    String getFoodName ();
+
+    /**
+     * Returns the amount in stock
+     *
+     * @return amount
+     */
+    int getAmount ();
+}
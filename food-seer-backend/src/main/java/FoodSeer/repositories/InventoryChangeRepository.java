@@ -0,0 +1,44 @@
+package FoodSeer.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import FoodSeer.entity.InventoryChange;
+
+/**
+ * Repository interface for the inventory ledger.
+ */
+public interface InventoryChangeRepository extends JpaRepository<InventoryChange, Long> {
+
+    /**
+     * Returns the entries after one sequence number and up to another, in
+     * sequence order
+     *
+     * @param since
+     *            sequence number the client has seen
+     * @param upTo
+     *            last sequence number to include
+     * @param pageable
+     *            bounds the number of entries
+     * @return the entries
+     */
+    @Query ( "SELECT c FROM InventoryChange c WHERE c.id > :since AND c.id <= :upTo ORDER BY c.id" )
+    List<InventoryChange> findChanges ( @Param ( "since" ) long since, @Param ( "upTo" ) long upTo,
+            Pageable pageable );
+
+    /**
+     * Returns the ids of entries that a newer entry of the same food
+     * supersedes
+     *
+     * @param pageable
+     *            bounds the number of ids
+     * @return ids of superseded entries
+     */
+    @Query ( "SELECT c.id FROM InventoryChange c WHERE c.id < "
+            + "(SELECT MAX(n.id) FROM InventoryChange n WHERE n.foodId = c.foodId)" )
+    List<Long> findSupersededIds ( Pageable pageable );
+}
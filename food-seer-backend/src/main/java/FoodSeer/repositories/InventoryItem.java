@@ -0,0 +1,36 @@
+package FoodSeer.repositories;
+
+/**
+ * Projection of the Food columns shown in the inventory, so the inventory
+ * can be listed without loading allergy collections or any other graph.
+ */
+public interface InventoryItem {
+
+    /**
+     * Returns the food id
+     *
+     * @return id
+     */
+    Long getId ();
+
+    /**
+     * Returns the food name
+     *
+     * @return name
+     */
+    String getFoodName ();
+
+    /**
+     * Returns the amount in stock
+     *
+     * @return amount
+     */
+    int getAmount ();
+
+    /**
+     * Returns the price
+     *
+     * @return price
+     */
+    int getPrice ();
+}
@@ -0,0 +1,22 @@
+package FoodSeer.repositories;
+
+/**
+ * Projection of one order line as (order, food), so order history can be
+ * read without loading orders or foods.
+ */
+public interface OrderFoodPair {
+
+    /**
+     * Returns the order id
+     *
+     * @return order id
+     */
+    Long getOrderId ();
+
+    /**
+     * Returns the id of a food in the order
+     *
+     * @return food id
+     */
+    Long getFoodId ();
+}
@@ -0,0 +1,43 @@
+package FoodSeer.repositories;
+
+/**
+ * Projection of one order line with its food's id and name, so the lines of
+ * many orders can be read in one query without loading foods.
+ */
+public interface OrderLineItem {
+
+    /**
+     * Returns the id of the line's order
+     *
+     * @return order id
+     */
+    Long getOrderId ();
+
+    /**
+     * Returns the food id
+     *
+     * @return food id
+     */
+    Long getFoodId ();
+
+    /**
+     * Returns the food name
+     *
+     * @return food name
+     */
+    String getFoodName ();
+
+    /**
+     * Returns the units ordered
+     *
+     * @return quantity
+     */
+    int getQuantity ();
+
+    /**
+     * Returns the price of one unit when the order was placed
+     *
+     * @return unit price
+     */
+    int getUnitPrice ();
+}
@@ -1,8 +1,14 @@
 package FoodSeer.repositories;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,6 +16,7 @@ import org.springframework.stereotype.Repository;
 import FoodSeer.entity.Food;
 import FoodSeer.entity.Order;
 import FoodSeer.entity.User;
+import jakarta.persistence.LockModeType;
 
 /**
  * Repository interface for managing Order entities in the database.
@@ -34,13 +41,157 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * @return list of fulfilled orders belonging to the user
      */
     List<Order> findByUserAndIsFulfilled(User user, boolean isFulfilled);
-    
+
+    /**
+     * Count the orders with a fulfillment status.
+     *
+     * @param isFulfilled true for fulfilled orders
+     * @return the number of orders
+     */
+    long countByIsFulfilled(boolean isFulfilled);
+
     /**
      * Find all orders that contain a specific food.
      *
      * @param food the food to search for
      * @return list of orders containing the food
      */
-    @Query("SELECT o FROM Order o JOIN o.foods f WHERE f = :food")
+    @Query("SELECT o FROM Order o JOIN o.lines l WHERE l.food = :food")
     List<Order> findOrdersContainingFood(@Param("food") Food food);
+    
+    /**
+     * Count the unfulfilled orders that contain a specific food, without
+     * loading them.
+     *
+     * @param foodId the id of the food to search for
+     * @return number of unfulfilled orders containing the food
+     */
+    @Query("SELECT COUNT(o) FROM Order o JOIN o.lines l WHERE l.food.id = :foodId AND o.isFulfilled = false")
+    long countUnfulfilledOrdersContainingFood(@Param("foodId") Long foodId);
+    
+    /**
+     * Remove a food from every order that contains it with a single delete of
+     * its order lines. Pending changes are flushed first; order lines already
+     * loaded in the persistence context are not refreshed.
+     *
+     * @param foodId the id of the food to remove
+     * @return number of order lines removed
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM OrderLine l WHERE l.food.id = :foodId")
+    int deleteFoodFromOrders(@Param("foodId") Long foodId);
+    
+    /**
+     * Find the foods of every fulfilled order as (order, food) pairs, grouped
+     * by order.
+     *
+     * @return one pair per food of each fulfilled order
+     */
+    @Query("SELECT o.id AS orderId, l.food.id AS foodId FROM Order o JOIN o.lines l WHERE o.isFulfilled = true ORDER BY o.id")
+    List<OrderFoodPair> findFulfilledOrderFoods();
+
+    /**
+     * List orders after a given id as summaries, by id, optionally only
+     * those of one user or with one fulfillment state. Users are joined,
+     * nothing else is loaded. The (user_id, is_fulfilled, id) and
+     * (is_fulfilled, id) indexes serve the filters and the keyset together,
+     * so a page costs the same however many orders came before it.
+     *
+     * @param userId the id of the user, or null for every user
+     * @param fulfilled the fulfillment state, or null for both
+     * @param afterId only orders with a greater id; 0 for the first page
+     * @param pageable bounds the number of orders, or unpaged for all
+     * @return the matching orders
+     */
+    @Query("SELECT o.id AS id, o.name AS name, o.isFulfilled AS fulfilled, u.username AS username "
+            + "FROM Order o JOIN o.user u "
+            + "WHERE (:userId IS NULL OR u.id = :userId) AND (:fulfilled IS NULL OR o.isFulfilled = :fulfilled) "
+            + "AND o.id > :afterId ORDER BY o.id")
+    List<OrderSummary> findSummaries(@Param("userId") Long userId, @Param("fulfilled") Boolean fulfilled,
+            @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * List the lines of the orders findSummaries returned for the same
+     * filters, between two ids, in one query, ordered by order and then line.
+     *
+     * @param userId the id of the user, or null for every user
+     * @param fulfilled the fulfillment state, or null for both
+     * @param afterId only orders with a greater id
+     * @param lastId only orders with this id or a smaller one
+     * @return the lines of the matching orders
+     */
+    @Query("SELECT o.id AS orderId, f.id AS foodId, f.foodName AS foodName, l.quantity AS quantity, "
+            + "l.unitPrice AS unitPrice FROM OrderLine l JOIN l.order o JOIN l.food f "
+            + "WHERE (:userId IS NULL OR o.user.id = :userId) AND (:fulfilled IS NULL OR o.isFulfilled = :fulfilled) "
+            + "AND o.id > :afterId AND o.id <= :lastId ORDER BY o.id, l.id")
+    List<OrderLineItem> findLineItems(@Param("userId") Long userId, @Param("fulfilled") Boolean fulfilled,
+            @Param("afterId") long afterId, @Param("lastId") long lastId);
+
+    /**
+     * Find an order with its user, its lines and their foods loaded in one
+     * query.
+     *
+     * @param orderId the id of the order
+     * @return the order, if it exists
+     */
+    @EntityGraph(attributePaths = { "user", "lines", "lines.food" })
+    @Query("SELECT o FROM Order o WHERE o.id = :orderId")
+    Optional<Order> findWithLinesById(@Param("orderId") Long orderId);
+
+    /**
+     * Marks an order as fulfilled if it is not already, in one guarded
+     * update, so two concurrent fulfillments cannot both succeed. The
+     * persistence context is cleared afterwards, since a loaded order no
+     * longer holds the current state.
+     *
+     * @param orderId the id of the order
+     * @return 1 if the order was marked, 0 if it does not exist or was
+     *         already fulfilled
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.isFulfilled = true WHERE o.id = :orderId AND o.isFulfilled = false")
+    int markFulfilled(@Param("orderId") Long orderId);
+
+    /**
+     * Locks the orders among the given ids that are not yet fulfilled, in id
+     * order, so no one else can fulfill them until this transaction ends.
+     *
+     * @param orderIds the ids of the orders
+     * @return the ids of the locked unfulfilled orders, ascending
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :orderIds AND o.isFulfilled = false ORDER BY o.id")
+    List<Long> lockUnfulfilled(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Find which of the given order ids exist.
+     *
+     * @param orderIds the ids of the orders
+     * @return the ids that exist
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :orderIds")
+    List<Long> findExistingIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Find the line items of the given orders, without loading the orders or
+     * their foods.
+     *
+     * @param orderIds the ids of the orders
+     * @return the line items, by order and line
+     */
+    @Query("SELECT o.id AS orderId, f.id AS foodId, f.foodName AS foodName, l.quantity AS quantity, "
+            + "l.unitPrice AS unitPrice FROM OrderLine l JOIN l.order o JOIN l.food f "
+            + "WHERE o.id IN :orderIds ORDER BY o.id, l.id")
+    List<OrderLineItem> findLineItemsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Marks the given orders as fulfilled in one update, skipping any that
+     * already are. The persistence context is cleared afterwards.
+     *
+     * @param orderIds the ids of the orders
+     * @return the number of orders marked
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.isFulfilled = true WHERE o.id IN :orderIds AND o.isFulfilled = false")
+    int markAllFulfilled(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -0,0 +1,36 @@
+package FoodSeer.repositories;
+
+/**
+ * Projection of the Order columns shown in order listings, so orders can be
+ * listed without loading their lines, foods or users.
+ */
+public interface OrderSummary {
+
+    /**
+     * Returns the order id
+     *
+     * @return id
+     */
+    Long getId ();
+
+    /**
+     * Returns the order name
+     *
+     * @return name
+     */
+    String getName ();
+
+    /**
+     * Returns whether the order is fulfilled
+     *
+     * @return true if fulfilled
+     */
+    boolean getFulfilled ();
+
+    /**
+     * Returns the name of the user who placed the order
+     *
+     * @return username
+     */
+    String getUsername ();
+}
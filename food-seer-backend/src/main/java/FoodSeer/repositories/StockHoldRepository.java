@@ -0,0 +1,51 @@
+package FoodSeer.repositories;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import FoodSeer.entity.StockHold;
+
+/**
+ * Repository interface for stock holds.
+ */
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+
+    /**
+     * Finds the holds placed for an order
+     *
+     * @param orderId
+     *            order id
+     * @return the order's holds
+     */
+    List<StockHold> findByOrderId ( Long orderId );
+
+    /**
+     * Finds the holds placed for any of the given orders
+     *
+     * @param orderIds
+     *            order ids
+     * @return the orders' holds
+     */
+    List<StockHold> findByOrderIdIn ( Collection<Long> orderIds );
+
+    /**
+     * Finds the holds that lapsed before the given time
+     *
+     * @param time
+     *            cut-off time
+     * @return expired holds
+     */
+    List<StockHold> findByExpiresAtBefore ( Instant time );
+
+    /**
+     * Sums the held units of each food
+     *
+     * @return held units per food
+     */
+    @Query ( "SELECT h.foodId AS foodId, SUM(h.quantity) AS quantity FROM StockHold h GROUP BY h.foodId" )
+    List<FoodQuantity> sumQuantityByFood ();
+}
@@ -0,0 +1,35 @@
+package FoodSeer.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import FoodSeer.entity.StockJournalEntry;
+
+/**
+ * Repository interface for the hot stock journal.
+ */
+public interface StockJournalRepository extends JpaRepository<StockJournalEntry, Long> {
+
+    /**
+     * Returns the oldest committed entries
+     *
+     * @param pageable
+     *            bounds the number of entries
+     * @return the entries, by id
+     */
+    List<StockJournalEntry> findAllByOrderByIdAsc ( Pageable pageable );
+
+    /**
+     * Sums the journaled units of one food
+     *
+     * @param foodId
+     *            food id
+     * @return journaled units, 0 if none
+     */
+    @Query ( "SELECT COALESCE(SUM(j.quantity), 0) FROM StockJournalEntry j WHERE j.foodId = :foodId" )
+    long sumQuantityByFoodId ( @Param ( "foodId" ) Long foodId );
+}
@@ -0,0 +1,37 @@
+package FoodSeer.service;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import FoodSeer.dto.FoodImportResultDto;
+
+/**
+ * Interface for bulk loading foods into the catalog.
+ */
+public interface FoodImportService {
+
+    /**
+     * Formats accepted by importFoods.
+     */
+    enum Format {
+        /** foodName,amount,price,allergies with allergies separated by ';' */
+        CSV,
+        /** one FoodDto JSON object per line */
+        NDJSON
+    }
+
+    /**
+     * Reads foods from the reader one row at a time and inserts the valid,
+     * new ones. Invalid rows and names that already exist are reported
+     * rather than failing the whole import.
+     *
+     * @param reader
+     *            the uploaded file
+     * @param format
+     *            format of the file
+     * @return number of foods imported and the rejected rows
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    FoodImportResultDto importFoods ( Reader reader, Format format ) throws IOException;
+}
@@ -3,6 +3,10 @@ package FoodSeer.service;
 import java.util.List;
 
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodPageDto;
+import FoodSeer.dto.FoodQueryDto;
+import FoodSeer.dto.FoodUpdateDto;
+import FoodSeer.dto.FoodUpdateResultDto;
 
 /**
  * Food Service
@@ -34,6 +38,48 @@ public interface FoodService {
      */
     List<FoodDto> getAllFoods ();
 
+    /**
+     * Returns one page of foods matching the given filters, ordered by the
+     * requested sort key and then by id. Pages are addressed by keyset
+     * cursor rather than by offset.
+     *
+     * @param query
+     *            filters, sort key, page size and cursor
+     * @return the matching foods and the cursor for the next page
+     * @throws IllegalArgumentException
+     *             if the sort key or cursor is invalid
+     */
+    FoodPageDto queryFoods ( FoodQueryDto query );
+
+    /**
+     * Returns the foods whose names best match what the user typed, for
+     * type-ahead. Word prefixes match first and misspellings still find
+     * close names; ties go to foods in stock.
+     *
+     * @param query
+     *            the text typed so far
+     * @param limit
+     *            maximum number of foods, null for the default
+     * @return the best matches, best first
+     * @throws IllegalArgumentException
+     *             if the limit is not positive
+     */
+    List<FoodDto> searchFoods ( String query, Integer limit );
+
+    /**
+     * Returns the foods most often ordered together with the given food in
+     * fulfilled orders.
+     *
+     * @param foodId
+     *            food's id
+     * @param limit
+     *            maximum number of foods, null for the default
+     * @return the related foods, most frequent first
+     * @throws IllegalArgumentException
+     *             if the limit is not positive
+     */
+    List<FoodDto> getRelatedFoods ( Long foodId, Integer limit );
+
     /**
      * Delete Food
      *
@@ -76,6 +122,29 @@ public interface FoodService {
      */
     FoodDto updateFood(final String name, final int amount, final int price, final List<String> allergies);
 
+    /**
+     * Sets the stock level at or below which a food is reported as low.
+     *
+     * @param foodId
+     *            food id
+     * @param reorderThreshold
+     *            the threshold, or null to use the default
+     * @return the updated food
+     * @throws IllegalArgumentException
+     *             if the threshold is negative
+     */
+    FoodDto setReorderThreshold ( Long foodId, Integer reorderThreshold );
+
+    /**
+     * Applies many food changes in one transaction. Changes that are invalid
+     * or name a missing food are reported and skipped; the rest are applied.
+     *
+     * @param updates
+     *            the changes, each naming its food by id or name
+     * @return the result of each change, in request order
+     */
+    List<FoodUpdateResultDto> updateFoods ( List<FoodUpdateDto> updates );
+
     /**
      * Returns true if the food already exists in the database.
      *
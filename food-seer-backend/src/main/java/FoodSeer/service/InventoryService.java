@@ -1,6 +1,12 @@
 package FoodSeer.service;
 
+import java.util.List;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import FoodSeer.dto.InventoryChangesDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.LowStockDto;
 
 /**
  * Interface defining the inventory behaviors for FoodSeer.
@@ -9,18 +15,20 @@ import FoodSeer.dto.InventoryDto;
 public interface InventoryService {
 
     /**
-     * Creates a new inventory.
+     * Saves the foods of the given inventory, matched by name: new foods are
+     * created and existing ones overwritten.
      *
      * @param inventoryDto
      *            The inventory data to create
-     * @return The created inventory as a DTO
+     * @return The inventory as a DTO
      */
     InventoryDto createInventory(InventoryDto inventoryDto);
 
     /**
-     * Returns the current FoodSeer inventory.
+     * Returns the current FoodSeer inventory: every food with its id, name,
+     * amount and price.
      *
-     * @return The single inventory instance as a DTO
+     * @return The inventory as a DTO
      */
     InventoryDto getInventory();
 
@@ -32,4 +40,35 @@ public interface InventoryService {
      * @return The updated inventory as a DTO
      */
     InventoryDto updateInventory(InventoryDto inventoryDto);
+
+    /**
+     * Returns the foods whose stock is at or below their reorder threshold.
+     *
+     * @return the low foods, least stocked first
+     */
+    List<LowStockDto> getLowStock();
+
+    /**
+     * Opens a server-sent event stream that reports foods going low and
+     * being restocked.
+     *
+     * @return the event stream
+     */
+    SseEmitter streamLowStock();
+
+    /**
+     * Returns the changes to food amounts and prices after a sequence
+     * number, so a client holding a copy of the inventory only fetches what
+     * changed. A sync from 0 returns every food.
+     *
+     * @param since
+     *            sequence number the client has seen, 0 for everything
+     * @param limit
+     *            most changes to return, null for the default
+     * @return the changes, oldest first, and the sequence number to sync
+     *         from next
+     * @throws IllegalArgumentException
+     *             if since is negative or the limit is out of range
+     */
+    InventoryChangesDto getChanges(long since, Integer limit);
 }
@@ -2,7 +2,9 @@ package FoodSeer.service;
 
 import java.util.List;
 
+import FoodSeer.dto.FulfillmentResultDto;
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderPageDto;
 import FoodSeer.exception.ResourceNotFoundException;
 
 /**
@@ -46,6 +48,21 @@ public interface OrderService {
      */
     OrderDto fulfillOrder(long orderId);
 
+    /**
+     * Fulfills several orders in one transaction. The orders and their foods
+     * are locked together, and the stock of each food is deducted once for
+     * all the orders that need it. Orders are served in id order; an order
+     * that does not exist, is already fulfilled or needs more stock than is
+     * left fails without affecting the others.
+     *
+     * @param orderIds
+     *            the IDs of the orders to fulfill
+     * @return one result per distinct order id, in the order given
+     * @throws IllegalArgumentException if no ids, a null id or too many ids
+     *         are given
+     */
+    List<FulfillmentResultDto> fulfillOrders(List<Long> orderIds);
+
     /**
      * Retrieves all fulfilled orders.
      *
@@ -80,4 +97,33 @@ public interface OrderService {
      * @return a list of unfulfilled orders belonging to the current user
      */
     List<OrderDto> getCurrentUserUnfulfilledOrders();
+
+    /**
+     * Retrieves one page of orders, by id, using keyset pagination.
+     *
+     * @param fulfilled true or false for only fulfilled or unfulfilled
+     *        orders, null for both
+     * @param limit maximum number of orders, capped at the maximum page size;
+     *        null for the default page size
+     * @param cursor cursor returned with the previous page, null for the first
+     * @return the orders and the cursor for the next page
+     * @throws IllegalArgumentException if the limit is not positive or the
+     *         cursor is invalid
+     */
+    OrderPageDto getOrderPage(Boolean fulfilled, Integer limit, String cursor);
+
+    /**
+     * Retrieves one page of the current authenticated user's orders, by id,
+     * using keyset pagination.
+     *
+     * @param fulfilled true or false for only fulfilled or unfulfilled
+     *        orders, null for both
+     * @param limit maximum number of orders, capped at the maximum page size;
+     *        null for the default page size
+     * @param cursor cursor returned with the previous page, null for the first
+     * @return the orders and the cursor for the next page
+     * @throws IllegalArgumentException if the limit is not positive or the
+     *         cursor is invalid
+     */
+    OrderPageDto getCurrentUserOrderPage(Boolean fulfilled, Integer limit, String cursor);
 }
@@ -0,0 +1,26 @@
+package FoodSeer.service;
+
+import FoodSeer.dto.RecommendationPageDto;
+import FoodSeer.entity.User;
+
+/**
+ * Recommendation Service
+ */
+public interface RecommendationService {
+
+    /**
+     * Returns the in-stock foods that fit the user's stored budget and
+     * dietary restrictions, most often ordered first, then cheapest.
+     *
+     * @param user
+     *            the user whose preferences apply
+     * @param page
+     *            zero based page number, null for the first page
+     * @param size
+     *            page size, null for the default
+     * @return one page of recommendations
+     * @throws IllegalArgumentException
+     *             if the page is negative or the size is not positive
+     */
+    RecommendationPageDto getRecommendations ( User user, Integer page, Integer size );
+}
@@ -0,0 +1,78 @@
+package FoodSeer.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs work once the current transaction is over, for the in-memory views
+ * that are changed immediately but must only act on, or keep, what commits.
+ */
+final class AfterTransaction {
+
+    /**
+     * Not instantiated.
+     */
+    private AfterTransaction () {
+    }
+
+    /**
+     * Runs the action once the current transaction commits. Outside a
+     * transaction it runs right away.
+     *
+     * @param action
+     *            work to run
+     */
+    static void onCommit ( final Runnable action ) {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            action.run();
+            return;
+        }
+        onCompletion( action, null );
+    }
+
+    /**
+     * Runs the action if the current transaction does not commit. Outside a
+     * transaction nothing is registered.
+     *
+     * @param action
+     *            work to run
+     */
+    static void onRollback ( final Runnable action ) {
+        onCompletion( null, action );
+    }
+
+    /**
+     * Runs the action once the current transaction commits or rolls back.
+     * Outside a transaction nothing is registered.
+     *
+     * @param action
+     *            work to run
+     */
+    static void onCompletion ( final Runnable action ) {
+        onCompletion( action, action );
+    }
+
+    /**
+     * Runs one action if the current transaction commits and another if it
+     * does not. Outside a transaction nothing is registered.
+     *
+     * @param committed
+     *            run on commit, may be null
+     * @param rolledBack
+     *            run otherwise, may be null
+     */
+    static void onCompletion ( final Runnable committed, final Runnable rolledBack ) {
+        if ( !TransactionSynchronizationManager.isSynchronizationActive() ) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization() {
+            @Override
+            public void afterCompletion ( final int status ) {
+                final Runnable action = status == STATUS_COMMITTED ? committed : rolledBack;
+                if ( action != null ) {
+                    action.run();
+                }
+            }
+        } );
+    }
+}
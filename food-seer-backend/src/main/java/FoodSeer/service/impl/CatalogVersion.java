@@ -0,0 +1,77 @@
+package FoodSeer.service.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Monotonically increasing version of the food catalog and inventory, used
+ * as the ETag of the catalog endpoints so polling clients can be answered
+ * with 304 Not Modified without reading the database.
+ *
+ * The version is bumped by FoodCache on every eviction (and so on every Food
+ * write) and by InventoryService on inventory writes. Each bump is repeated
+ * when the surrounding transaction completes (for FoodCache, after its own
+ * repeated eviction), so a client that read the catalog between the write
+ * and its commit is not left holding a current ETag for stale data. The
+ * ETag also carries the process start time so versions from before a
+ * restart never match.
+ */
+@Component
+public class CatalogVersion {
+
+    /** Distinguishes this process's versions from earlier runs */
+    private final long       epoch   = System.currentTimeMillis();
+
+    /** Current version */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Records a catalog change, now and again when the current transaction
+     * completes.
+     */
+    public void bump () {
+        version.incrementAndGet();
+        AfterTransaction.onCompletion( version::incrementAndGet );
+    }
+
+    /**
+     * Records a catalog change now only, for callers that repeat it at
+     * transaction completion themselves.
+     */
+    public void bumpNow () {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Returns the current version as a strong ETag. Read it before loading
+     * the catalog, so a change made during the load yields a newer ETag.
+     *
+     * @return quoted ETag
+     */
+    public String etag () {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    /**
+     * Returns true if an If-None-Match header matches the ETag.
+     *
+     * @param ifNoneMatch
+     *            header value, may be null or a comma separated list
+     * @param etag
+     *            current ETag
+     * @return true if the client already has this version
+     */
+    public static boolean matches ( final String ifNoneMatch, final String etag ) {
+        if ( ifNoneMatch == null ) {
+            return false;
+        }
+        for ( final String candidate : ifNoneMatch.split( "," ) ) {
+            final String tag = candidate.trim();
+            if ( "*".equals( tag ) || etag.equals( tag.startsWith( "W/" ) ? tag.substring( 2 ) : tag ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
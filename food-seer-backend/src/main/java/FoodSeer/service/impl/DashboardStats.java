@@ -0,0 +1,186 @@
+package FoodSeer.service.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.dto.DashboardStatsDto;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.FoodSummary;
+import FoodSeer.repositories.OrderRepository;
+
+/**
+ * Keeps the order and stock totals shown on the dashboards, so they can be
+ * read without loading every order and food.
+ *
+ * Order totals are counters that the order services change on each create,
+ * fulfillment and delete. Stock totals come from whether each food has
+ * units in stock; every FoodChangedEvent reports the food's new amount
+ * here. Reports are idempotent, so a food reported twice is counted once.
+ *
+ * The totals are built from the database on first use and changed
+ * immediately; a rollback marks them for a rebuild. A write racing a build
+ * can still be missed, so they are periodically recounted from the
+ * database.
+ */
+@Component
+public class DashboardStats extends DerivedState {
+
+    /** Foods, for the build */
+    @Autowired
+    private FoodRepository           foodRepository;
+
+    /** Orders, for the build */
+    @Autowired
+    private OrderRepository          orderRepository;
+
+    /** Whether each food has units in stock, by id, guarded by this */
+    private final Map<Long, Boolean> stocked = new HashMap<>();
+
+    /** Foods with units in stock, guarded by this */
+    private int                      inStock;
+
+    /** Orders not yet fulfilled, guarded by this */
+    private long                     pendingOrders;
+
+    /** Fulfilled orders, guarded by this */
+    private long                     fulfilledOrders;
+
+    /**
+     * Returns the current totals.
+     *
+     * @return the totals
+     */
+    public synchronized DashboardStatsDto snapshot () {
+        ensureBuilt();
+        return new DashboardStatsDto( pendingOrders, fulfilledOrders, pendingOrders + fulfilledOrders,
+                stocked.size(), inStock, stocked.size() - inStock );
+    }
+
+    /**
+     * Counts a new, unfulfilled order.
+     */
+    public void orderCreated () {
+        synchronized ( this ) {
+            if ( !beginWrite() ) {
+                return;
+            }
+            pendingOrders++;
+        }
+    }
+
+    /**
+     * Moves an order from pending to fulfilled.
+     */
+    public void orderFulfilled () {
+        synchronized ( this ) {
+            if ( !beginWrite() ) {
+                return;
+            }
+            pendingOrders--;
+            fulfilledOrders++;
+        }
+    }
+
+    /**
+     * Stops counting a deleted order.
+     *
+     * @param fulfilled
+     *            whether the order was fulfilled
+     */
+    public void orderDeleted ( final boolean fulfilled ) {
+        synchronized ( this ) {
+            if ( !beginWrite() ) {
+                return;
+            }
+            if ( fulfilled ) {
+                fulfilledOrders--;
+            }
+            else {
+                pendingOrders--;
+            }
+        }
+    }
+
+    /**
+     * Records a written food's stock level, or stops counting a deleted
+     * food.
+     *
+     * @param event
+     *            the write
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( event.isDeleted() ) {
+            removeFood( event.foodId() );
+        }
+        else {
+            observeFood( event.foodId(), event.amount() );
+        }
+    }
+
+    /**
+     * Records a food's new stock level.
+     *
+     * @param foodId
+     *            food id
+     * @param amount
+     *            units in stock
+     */
+    public void observeFood ( final Long foodId, final int amount ) {
+        synchronized ( this ) {
+            if ( foodId == null || !beginWrite() ) {
+                return;
+            }
+            final Boolean was = stocked.put( foodId, amount > 0 );
+            inStock += ( amount > 0 ? 1 : 0 ) - ( Boolean.TRUE.equals( was ) ? 1 : 0 );
+        }
+    }
+
+    /**
+     * Stops counting a deleted food.
+     *
+     * @param foodId
+     *            food id
+     */
+    public void removeFood ( final Long foodId ) {
+        synchronized ( this ) {
+            if ( !beginWrite() ) {
+                return;
+            }
+            if ( Boolean.TRUE.equals( stocked.remove( foodId ) ) ) {
+                inStock--;
+            }
+        }
+    }
+
+    /**
+     * Recounts the totals from the database. Runs periodically.
+     */
+    @Scheduled ( fixedDelayString = "${app.dashboard.reconcile-interval-ms:300000}" )
+    public synchronized void reconcile () {
+        markStale();
+        ensureBuilt();
+    }
+
+    /**
+     * Builds the totals from the database. Callers hold the monitor.
+     */
+    @Override
+    protected void build () {
+        stocked.clear();
+        inStock = 0;
+        for ( final FoodSummary food : foodRepository.findAllBy() ) {
+            stocked.put( food.getId(), food.getAmount() > 0 );
+            if ( food.getAmount() > 0 ) {
+                inStock++;
+            }
+        }
+        pendingOrders = orderRepository.countByIsFulfilled( false );
+        fulfilledOrders = orderRepository.countByIsFulfilled( true );
+    }
+}
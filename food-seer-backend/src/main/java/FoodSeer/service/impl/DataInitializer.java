@@ -1,5 +1,8 @@
 package FoodSeer.service.impl;
 
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -7,15 +10,21 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import FoodSeer.entity.User;
 import FoodSeer.entity.Role;
+import FoodSeer.entity.Allergen;
 import FoodSeer.entity.Food;
 import FoodSeer.repositories.UserRepository;
 import FoodSeer.repositories.RoleRepository;
 import FoodSeer.repositories.FoodRepository;
+import FoodSeer.service.FoodService;
 
 /**
  * Initializes application data such as a default admin user.
@@ -27,6 +36,10 @@ public class DataInitializer {
     private final RoleRepository roleRepository;
     private final FoodRepository foodRepository;
     private final PasswordEncoder passwordEncoder;
+    private final FoodService foodService;
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryLedger inventoryLedger;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${app.admin-user-password:admin}")
     private String adminPassword;
@@ -34,11 +47,19 @@ public class DataInitializer {
     public DataInitializer(UserRepository userRepository,
                            RoleRepository roleRepository,
                            FoodRepository foodRepository,
-                           PasswordEncoder passwordEncoder) {
+                           PasswordEncoder passwordEncoder,
+                           FoodService foodService,
+                           JdbcTemplate jdbcTemplate,
+                           InventoryLedger inventoryLedger,
+                           PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.foodRepository = foodRepository;
         this.passwordEncoder = passwordEncoder;
+        this.foodService = foodService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryLedger = inventoryLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @EventListener(ApplicationReadyEvent.class)
@@ -151,5 +172,149 @@ public class DataInitializer {
         } else {
             System.out.println("Food database already contains " + foodRepository.count() + " items - skipping sample data creation.");
         }
+
+        // Backfill allergen masks for foods saved before the mask column existed
+        final List<Food> unmasked = new ArrayList<>();
+        for (final Food food : foodRepository.findUnmaskedFoodsWithAllergies()) {
+            final long mask = Allergen.maskOf(food.getAllergies());
+            if (mask != 0L) {
+                food.setAllergenMask(mask);
+                unmasked.add(food);
+            }
+        }
+        if (!unmasked.isEmpty()) {
+            foodRepository.saveAll(unmasked);
+            System.out.println("Backfilled allergen masks for " + unmasked.size() + " food items.");
+        }
+
+        // The inventory is now a view over the foods table; drop the tables of
+        // the old singleton inventory so their foreign keys no longer pin foods
+        runOnce("001-drop-inventory-tables", () -> {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS inventory_foods");
+            jdbcTemplate.execute("DROP TABLE IF EXISTS inventory");
+        });
+
+        // Orders used to repeat a food once per unit in the orders_foods join
+        // table; fold those rows into one order line per food and drop it
+        runOnce("002-orders-foods-to-order-lines", this::migrateOrderLines);
+
+        // Food names were only unique by convention; enforce it in the schema
+        runOnce("003-unique-food-names", this::makeFoodNamesUnique);
+
+        // Give foods written before the inventory ledger existed their first entry
+        inventoryLedger.seed();
+
+        // Warm the catalog cache so the first menu request does not hit the database
+        foodService.getAllFoods();
+    }
+
+    /**
+     * Moves the rows of the old orders_foods join table into order_lines,
+     * one line per order and food, then drops the join table. The join is
+     * outer, so a row whose food is gone fails the insert rather than being
+     * left out; the join table is only dropped once every (order, food) pair
+     * has its line.
+     *
+     * @throws IllegalStateException if the lines do not match the join rows;
+     *         the migration is rolled back and retried on the next start
+     */
+    private void migrateOrderLines() {
+        final Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            for (final String name : new String[] { "orders_foods", "ORDERS_FOODS" }) {
+                try (ResultSet tables = con.getMetaData().getTables(con.getCatalog(), null, name, null)) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        if (!Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        final Integer expected = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT DISTINCT order_id, foods_id FROM orders_foods) pairs", Integer.class);
+        final int migrated = jdbcTemplate.update(
+                "INSERT INTO order_lines (order_id, food_id, quantity, unit_price) "
+                + "SELECT j.order_id, j.foods_id, COUNT(*), f.price FROM orders_foods j "
+                + "LEFT JOIN foods f ON f.id = j.foods_id GROUP BY j.order_id, j.foods_id, f.price");
+        if (expected == null || migrated != expected) {
+            throw new IllegalStateException("Migrated " + migrated + " order lines from orders_foods, expected "
+                    + expected + "; orders_foods was kept.");
+        }
+        jdbcTemplate.execute("DROP TABLE orders_foods");
+    }
+
+    /**
+     * Normalizes every food name and replaces the plain food name index with
+     * a unique one. Schema updates create the unique index on a new database,
+     * but keep the old index on an existing one. Foods sharing a normalized
+     * name are not merged, since their orders, holds and ledger entries
+     * would have to be merged too; the migration fails instead, and is
+     * retried on the next start once the duplicates have been renamed or
+     * deleted.
+     *
+     * @throws IllegalStateException if two foods share a normalized name
+     */
+    private void makeFoodNamesUnique() {
+        final List<String> duplicates = jdbcTemplate.queryForList(
+                "SELECT UPPER(TRIM(food_name)) FROM foods GROUP BY UPPER(TRIM(food_name)) HAVING COUNT(*) > 1",
+                String.class);
+        if (!duplicates.isEmpty()) {
+            throw new IllegalStateException("Several foods are named " + duplicates
+                    + "; rename or delete all but one of each before the names can be made unique.");
+        }
+        jdbcTemplate.update("UPDATE foods SET food_name = UPPER(TRIM(food_name)) "
+                + "WHERE food_name <> UPPER(TRIM(food_name))");
+        if (hasFoodsIndex("idx_foods_food_name")) {
+            jdbcTemplate.execute("DROP INDEX idx_foods_food_name ON foods");
+        }
+        if (!hasFoodsIndex("uk_foods_food_name")) {
+            jdbcTemplate.execute("CREATE UNIQUE INDEX uk_foods_food_name ON foods (food_name)");
+        }
+    }
+
+    /**
+     * Returns true if the foods table has an index with the given name.
+     *
+     * @param name name of the index
+     * @return true if it exists
+     */
+    private boolean hasFoodsIndex(final String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            for (final String table : new String[] { "foods", "FOODS" }) {
+                try (ResultSet indexes = con.getMetaData().getIndexInfo(con.getCatalog(), null, table, false, false)) {
+                    while (indexes.next()) {
+                        if (name.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+
+    /**
+     * Runs a data migration unless this database has already applied it.
+     * The migration and its schema_migrations row are written in one
+     * transaction, so a migration that throws is rolled back and retried on
+     * the next start. DDL may commit on its own, so migrations must be safe
+     * to repeat up to their last statement.
+     *
+     * @param version name of the migration, unique and never reused
+     * @param migration the migration
+     */
+    private void runOnce(final String version, final Runnable migration) {
+        transactionTemplate.executeWithoutResult(status -> {
+            final Integer applied = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM schema_migrations WHERE version = ?", Integer.class, version);
+            if (applied != null && applied > 0) {
+                return;
+            }
+            migration.run();
+            jdbcTemplate.update("INSERT INTO schema_migrations (version, applied_at) VALUES (?, ?)",
+                    version, Timestamp.from(Instant.now()));
+        });
     }
 }
@@ -0,0 +1,95 @@
+package FoodSeer.service.impl;
+
+/**
+ * In-memory state derived from the database: built on first use, changed
+ * immediately by the writes, and marked for a rebuild when a transaction it
+ * may have seen rolls back. The subclass's monitor guards the state.
+ *
+ * A build only sees committed writes, so a write is applied to the state
+ * inside its transaction, under the monitor, and a build that runs between
+ * a write and its commit cannot have seen it. Each write therefore notes
+ * how many builds there have been, and marks the state for a rebuild when
+ * it commits if another build ran meanwhile.
+ */
+abstract class DerivedState {
+
+    /** True when the state must be rebuilt before the next use */
+    private boolean stale = true;
+
+    /** Number of builds so far */
+    private long    builds;
+
+    /**
+     * Builds the state from the database. Callers hold the monitor.
+     */
+    protected abstract void build ();
+
+    /**
+     * Builds the state if it is stale.
+     */
+    protected synchronized void ensureBuilt () {
+        if ( !stale ) {
+            return;
+        }
+        build();
+        builds++;
+        stale = false;
+        // the build may have seen this transaction's own writes
+        AfterTransaction.onRollback( this::markStale );
+    }
+
+    /**
+     * Starts a write to the state. Callers hold the monitor and apply the
+     * write only if this returns true; a stale state is left alone, since
+     * the build reads the write from the database. If the transaction does
+     * not commit, the state is marked for a rebuild.
+     *
+     * @return true if the write must be applied
+     */
+    protected synchronized boolean beginWrite () {
+        return beginWrite( this::markStale );
+    }
+
+    /**
+     * Starts a write to the state that can be undone. Callers hold the
+     * monitor and apply the write only if this returns true. If the
+     * transaction does not commit, the undo runs under the monitor, unless
+     * the state was rebuilt since, in which case it is marked for another
+     * rebuild instead.
+     *
+     * @param undo
+     *            reverses the write
+     * @return true if the write must be applied
+     */
+    protected synchronized boolean beginWrite ( final Runnable undo ) {
+        final long seen = builds;
+        final boolean apply = !stale;
+        AfterTransaction.onCompletion( () -> endWrite( seen, null ), () -> endWrite( seen, apply ? undo : null ) );
+        return apply;
+    }
+
+    /**
+     * Forces a rebuild before the next use.
+     */
+    protected synchronized void markStale () {
+        stale = true;
+    }
+
+    /**
+     * Finishes a write once its transaction is over: marks the state for a
+     * rebuild if it was built since the write, or else runs the undo.
+     *
+     * @param seen
+     *            number of builds when the write began
+     * @param undo
+     *            run if the state was not rebuilt, may be null
+     */
+    private synchronized void endWrite ( final long seen, final Runnable undo ) {
+        if ( builds != seen ) {
+            stale = true;
+        }
+        else if ( undo != null ) {
+            undo.run();
+        }
+    }
+}
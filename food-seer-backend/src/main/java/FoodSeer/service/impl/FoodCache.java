@@ -0,0 +1,375 @@
+package FoodSeer.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.dto.FoodCacheStatsDto;
+import FoodSeer.dto.FoodDto;
+import FoodSeer.mapper.FoodMapper;
+
+/**
+ * Bounded, in-process read-through cache for the food catalog used by
+ * FoodServiceImpl. Individual foods are kept in an LRU map keyed by id (with
+ * a name index for duplicate checks) and the full catalog list is kept as a
+ * single entry. Every entry expires after the configured TTL.
+ *
+ * Every FoodChangedEvent evicts its food, so writes that bypass FoodService
+ * (inventory updates, stock deductions, imports) are covered too. Evictions
+ * are applied immediately and again when the surrounding transaction
+ * completes, and entries loaded inside a transaction that rolls back are
+ * dropped. A reader takes the cache generation before
+ * it reads the database, and its result is only cached if nothing was
+ * evicted in between, so a value read before a concurrent write's commit
+ * cannot be put back after that write's eviction. Cached DTOs are copied on
+ * the way in and out because FoodDto is mutable. Since every catalog write
+ * passes through here, evictions also bump the CatalogVersion: at once, so
+ * the writing transaction sees its own change, and again right after the
+ * repeated eviction at completion, so a reader that sees the final version
+ * cannot be served a value cached before the commit.
+ */
+@Component
+public class FoodCache {
+
+    /** Whether caching is enabled at all */
+    private final boolean enabled;
+
+    /** Maximum number of individual foods kept */
+    private final int maxSize;
+
+    /** Time to live of an entry in nanoseconds */
+    private final long ttlNanos;
+
+    /** Foods by id, in access order for LRU eviction */
+    private final LinkedHashMap<Long, Entry<FoodDto>> byId;
+
+    /** Normalized food name to id, for every food in byId */
+    private final Map<String, Long> idsByName = new HashMap<>();
+
+    /** The full catalog, or null if not cached */
+    private Entry<List<FoodDto>> all;
+
+    /** Incremented on every eviction, guarded by this */
+    private long generation;
+
+    /** Number of lookups answered from the cache */
+    private final LongAdder hits = new LongAdder();
+
+    /** Number of lookups that had to go to the database */
+    private final LongAdder misses = new LongAdder();
+
+    /** Number of entries dropped because of the size bound or TTL */
+    private final LongAdder evictions = new LongAdder();
+
+    /** Version bumped on every eviction */
+    private final CatalogVersion catalogVersion;
+
+    /**
+     * Creates the cache.
+     *
+     * @param enabled
+     *            false to turn the cache into a no-op
+     * @param maxSize
+     *            maximum number of individual foods kept
+     * @param ttlSeconds
+     *            time to live of an entry in seconds
+     * @param catalogVersion
+     *            version to bump on evictions
+     */
+    public FoodCache ( @Value ( "${app.food-cache.enabled:true}" ) final boolean enabled,
+            @Value ( "${app.food-cache.max-size:10000}" ) final int maxSize,
+            @Value ( "${app.food-cache.ttl-seconds:300}" ) final long ttlSeconds,
+            final CatalogVersion catalogVersion ) {
+        this.enabled = enabled;
+        this.catalogVersion = catalogVersion;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.byId = new LinkedHashMap<>( 16, 0.75f, true ) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry ( final Map.Entry<Long, Entry<FoodDto>> eldest ) {
+                if ( size() > FoodCache.this.maxSize ) {
+                    idsByName.remove( eldest.getValue().value.getFoodName(), eldest.getKey() );
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached food with the given id.
+     *
+     * @param id
+     *            food id
+     * @return a copy of the cached food, or null on a miss
+     */
+    public synchronized FoodDto get ( final Long id ) {
+        if ( !enabled ) {
+            return null;
+        }
+        final Entry<FoodDto> entry = byId.get( id );
+        if ( entry == null || isExpired( entry ) ) {
+            if ( entry != null ) {
+                removeFood( id );
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return FoodMapper.copy( entry.value );
+    }
+
+    /**
+     * Returns the cached food with the given normalized name.
+     *
+     * @param name
+     *            normalized food name
+     * @return a copy of the cached food, or null on a miss
+     */
+    public synchronized FoodDto getByName ( final String name ) {
+        if ( !enabled || name == null ) {
+            return null;
+        }
+        final Long id = idsByName.get( name );
+        if ( id == null ) {
+            misses.increment();
+            return null;
+        }
+        return get( id );
+    }
+
+    /**
+     * Returns the cached catalog.
+     *
+     * @return a copy of every cached food, or null on a miss
+     */
+    public synchronized List<FoodDto> getAll () {
+        if ( !enabled ) {
+            return null;
+        }
+        if ( all == null || isExpired( all ) ) {
+            if ( all != null ) {
+                all = null;
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        final List<FoodDto> copy = new ArrayList<>( all.value.size() );
+        for ( final FoodDto food : all.value ) {
+            copy.add( FoodMapper.copy( food ) );
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the current generation. Take it before reading the database
+     * and pass it to put or putAll.
+     *
+     * @return the generation
+     */
+    public synchronized long generation () {
+        return generation;
+    }
+
+    /**
+     * Caches a food read from the database, unless something was evicted
+     * since the read began.
+     *
+     * @param food
+     *            the food
+     * @param readGeneration
+     *            generation taken before the read
+     */
+    public synchronized void put ( final FoodDto food, final long readGeneration ) {
+        if ( !enabled || food == null || food.getId() == null || readGeneration != generation ) {
+            return;
+        }
+        putFood( food );
+        clearOnRollback();
+    }
+
+    /**
+     * Caches the full catalog read from the database. Each food is cached
+     * individually as well. Catalogs larger than the size bound are not kept
+     * as a list. Nothing is cached if something was evicted since the read
+     * began.
+     *
+     * @param foods
+     *            every food in the catalog
+     * @param readGeneration
+     *            generation taken before the read
+     */
+    public synchronized void putAll ( final List<FoodDto> foods, final long readGeneration ) {
+        if ( !enabled || readGeneration != generation ) {
+            return;
+        }
+        final List<FoodDto> copy = new ArrayList<>( foods.size() );
+        for ( final FoodDto food : foods ) {
+            copy.add( FoodMapper.copy( food ) );
+            if ( food.getId() != null ) {
+                putFood( food );
+            }
+        }
+        all = foods.size() <= maxSize ? new Entry<>( copy, System.nanoTime() ) : null;
+        clearOnRollback();
+    }
+
+    /**
+     * Evicts a written food.
+     *
+     * @param event
+     *            the write
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        evict( event.foodId() );
+    }
+
+    /**
+     * Evicts one food (by id and name) and the catalog list, now and again
+     * when the current transaction completes, bumping the catalog version
+     * after each.
+     *
+     * @param id
+     *            food id, may be null
+     */
+    public void evict ( final Long id ) {
+        evictNow( id );
+        catalogVersion.bumpNow();
+        AfterTransaction.onCompletion( () -> {
+            evictNow( id );
+            catalogVersion.bumpNow();
+        } );
+    }
+
+    /**
+     * Drops every entry, now and again when the current transaction
+     * completes, bumping the catalog version after each.
+     */
+    public void clear () {
+        clearNow();
+        catalogVersion.bumpNow();
+        AfterTransaction.onCompletion( () -> {
+            clearNow();
+            catalogVersion.bumpNow();
+        } );
+    }
+
+    /**
+     * Returns the hit/miss counters and current size.
+     *
+     * @return cache statistics
+     */
+    public synchronized FoodCacheStatsDto getStats () {
+        return new FoodCacheStatsDto( enabled, hits.sum(), misses.sum(), evictions.sum(), byId.size(), all != null );
+    }
+
+    /**
+     * Evicts one food and the catalog list.
+     *
+     * @param id
+     *            food id, may be null
+     */
+    private synchronized void evictNow ( final Long id ) {
+        generation++;
+        if ( id != null ) {
+            removeFood( id );
+        }
+        all = null;
+    }
+
+    /**
+     * Drops every entry.
+     */
+    private synchronized void clearNow () {
+        generation++;
+        byId.clear();
+        idsByName.clear();
+        all = null;
+    }
+
+    /**
+     * Adds a food to both the id map and the name index.
+     *
+     * @param food
+     *            food with an id
+     */
+    private void putFood ( final FoodDto food ) {
+        removeFood( food.getId() );
+        byId.put( food.getId(), new Entry<>( FoodMapper.copy( food ), System.nanoTime() ) );
+        idsByName.put( food.getFoodName(), food.getId() );
+    }
+
+    /**
+     * Removes a food from both the id map and the name index.
+     *
+     * @param id
+     *            food id
+     */
+    private void removeFood ( final Long id ) {
+        final Entry<FoodDto> removed = byId.remove( id );
+        if ( removed != null ) {
+            idsByName.remove( removed.value.getFoodName(), id );
+        }
+    }
+
+    /**
+     * Returns true if the entry is older than the TTL.
+     *
+     * @param entry
+     *            cache entry
+     * @return true if expired
+     */
+    private boolean isExpired ( final Entry<?> entry ) {
+        return System.nanoTime() - entry.loadedAt > ttlNanos;
+    }
+
+    /**
+     * Values read inside a transaction may include that transaction's own
+     * uncommitted writes, so drop everything if it does not commit.
+     */
+    private void clearOnRollback () {
+        AfterTransaction.onRollback( this::clearNow );
+    }
+
+    /**
+     * A cached value and the time it was loaded.
+     *
+     * @param <T>
+     *            value type
+     */
+    private static final class Entry<T> {
+
+        /** Cached value */
+        private final T    value;
+
+        /** System.nanoTime() when the value was loaded */
+        private final long loadedAt;
+
+        /**
+         * Creates an entry
+         *
+         * @param value
+         *            cached value
+         * @param loadedAt
+         *            load time
+         */
+        private Entry ( final T value, final long loadedAt ) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
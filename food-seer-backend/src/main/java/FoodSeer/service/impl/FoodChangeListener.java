@@ -0,0 +1,66 @@
+package FoodSeer.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import FoodSeer.entity.Food;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that publishes a FoodChangedEvent for every Food
+ * insert, update and delete. Hibernate obtains the listener from Spring;
+ * where there is no event publisher it does nothing.
+ */
+public class FoodChangeListener {
+
+    /** Publisher of the events */
+    @Autowired ( required = false )
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Publishes a food after it is inserted.
+     *
+     * @param food
+     *            the inserted food
+     */
+    @PostPersist
+    public void afterPersist ( final Food food ) {
+        publish( FoodChangedEvent.written( food ) );
+    }
+
+    /**
+     * Publishes a food after it is updated.
+     *
+     * @param food
+     *            the updated food
+     */
+    @PostUpdate
+    public void afterUpdate ( final Food food ) {
+        publish( FoodChangedEvent.written( food ) );
+    }
+
+    /**
+     * Publishes a food after it is deleted.
+     *
+     * @param food
+     *            the deleted food
+     */
+    @PostRemove
+    public void afterRemove ( final Food food ) {
+        publish( FoodChangedEvent.deleted( food ) );
+    }
+
+    /**
+     * Publishes the event.
+     *
+     * @param event
+     *            the event
+     */
+    private void publish ( final FoodChangedEvent event ) {
+        if ( eventPublisher != null ) {
+            eventPublisher.publishEvent( event );
+        }
+    }
+}
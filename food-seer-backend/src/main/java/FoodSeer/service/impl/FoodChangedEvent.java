@@ -0,0 +1,100 @@
+package FoodSeer.service.impl;
+
+import FoodSeer.entity.Food;
+
+/**
+ * A food was written, whichever code path wrote it: FoodChangeListener
+ * publishes the entity writes, and the bulk stock updates and the JDBC
+ * import publish their own. The in-memory views of the catalog subscribe
+ * to it. It is published inside the writing transaction, so the inventory
+ * ledger commits with the write and the writer reads its own change; what
+ * must only follow a commit, the views defer with AfterTransaction.
+ *
+ * @param foodId
+ *            food id
+ * @param foodName
+ *            food name
+ * @param amount
+ *            units in stock after the write
+ * @param price
+ *            price
+ * @param reorderThreshold
+ *            the food's own reorder threshold, may be null
+ * @param kind
+ *            what was written
+ */
+public record FoodChangedEvent ( Long foodId, String foodName, int amount, int price, Integer reorderThreshold,
+        Kind kind ) {
+
+    /**
+     * What was written.
+     */
+    public enum Kind {
+        /** The food was inserted or edited; its stored amount is its stock */
+        WRITTEN,
+        /** Units were taken out of stock */
+        STOCK_TAKEN,
+        /** The food was deleted */
+        DELETED
+    }
+
+    /**
+     * Returns the event for an inserted or edited food.
+     *
+     * @param food
+     *            the written food
+     * @return the event
+     */
+    public static FoodChangedEvent written ( final Food food ) {
+        return of( food, food.getAmount(), Kind.WRITTEN );
+    }
+
+    /**
+     * Returns the event for a food whose stock was taken from.
+     *
+     * @param food
+     *            the food
+     * @param amount
+     *            units left in stock
+     * @return the event
+     */
+    public static FoodChangedEvent stockTaken ( final Food food, final int amount ) {
+        return of( food, amount, Kind.STOCK_TAKEN );
+    }
+
+    /**
+     * Returns the event for a deleted food.
+     *
+     * @param food
+     *            the deleted food
+     * @return the event
+     */
+    public static FoodChangedEvent deleted ( final Food food ) {
+        return of( food, 0, Kind.DELETED );
+    }
+
+    /**
+     * Returns true if the food was deleted.
+     *
+     * @return true for a deletion
+     */
+    public boolean isDeleted () {
+        return kind == Kind.DELETED;
+    }
+
+    /**
+     * Returns an event for a food.
+     *
+     * @param food
+     *            the food
+     * @param amount
+     *            units in stock
+     * @param kind
+     *            what was written
+     * @return the event
+     */
+    private static FoodChangedEvent of ( final Food food, final int amount, final Kind kind ) {
+        return new FoodChangedEvent( food.getId(), food.getFoodName(), amount, food.getPrice(),
+                food.getReorderThreshold(), kind );
+    }
+}
@@ -0,0 +1,272 @@
+package FoodSeer.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.repositories.OrderFoodPair;
+import FoodSeer.repositories.OrderRepository;
+
+/**
+ * Sparse food co-occurrence matrix learned from fulfilled orders, for
+ * "frequently ordered together" suggestions and a popularity signal.
+ *
+ * Each food keeps the foods it was ordered with and how often, in primitive
+ * arrays of bounded size: when a row fills up only the most frequent
+ * neighbors are kept, so memory grows with the catalog and not with order
+ * history, and a lookup costs the same however many orders there are. The
+ * matrix is built from the fulfilled orders on first use and then updated as
+ * orders are fulfilled. Updates are applied immediately and undone if the
+ * transaction rolls back.
+ */
+@Component
+public class FoodCoOccurrence extends DerivedState {
+
+    /** Neighbors kept per food after pruning */
+    private final int            maxNeighbors;
+
+    /** Order history, for the initial build */
+    @Autowired
+    private OrderRepository      orderRepository;
+
+    /** Row of the matrix for each food id, guarded by this */
+    private final Map<Long, Row> rows = new HashMap<>();
+
+    /**
+     * Creates the matrix.
+     *
+     * @param maxNeighbors
+     *            neighbors kept per food
+     */
+    public FoodCoOccurrence ( @Value ( "${app.food-related.max-neighbors:20}" ) final int maxNeighbors ) {
+        this.maxNeighbors = maxNeighbors;
+    }
+
+    /**
+     * Returns the foods most often ordered together with the given food,
+     * most frequent first.
+     *
+     * @param foodId
+     *            food id
+     * @param limit
+     *            maximum number of foods
+     * @return ids of the related foods
+     */
+    public synchronized List<Long> related ( final Long foodId, final int limit ) {
+        ensureBuilt();
+        final Row row = rows.get( foodId );
+        return row == null ? Collections.emptyList() : row.top( limit );
+    }
+
+    /**
+     * Returns the number of fulfilled orders that contained the food.
+     *
+     * @param foodId
+     *            food id
+     * @return order count
+     */
+    public synchronized long popularity ( final Long foodId ) {
+        ensureBuilt();
+        final Row row = rows.get( foodId );
+        return row == null ? 0 : row.orders;
+    }
+
+    /**
+     * Counts a fulfilled order, now, and takes it back out if the current
+     * transaction rolls back. Foods ordered more than once in the order
+     * count once.
+     *
+     * @param foodIds
+     *            ids of the foods in the order
+     */
+    public void recordOrder ( final Collection<Long> foodIds ) {
+        final List<Long> distinct = new ArrayList<>( new LinkedHashSet<>( foodIds ) );
+        distinct.removeIf( Objects::isNull );
+        synchronized ( this ) {
+            if ( beginWrite( () -> add( distinct, -1 ) ) ) {
+                add( distinct, 1 );
+            }
+        }
+    }
+
+    /**
+     * Builds the matrix from every fulfilled order. Callers hold the
+     * monitor.
+     */
+    @Override
+    protected void build () {
+        rows.clear();
+        final List<Long> order = new ArrayList<>();
+        Long orderId = null;
+        for ( final OrderFoodPair pair : orderRepository.findFulfilledOrderFoods() ) {
+            if ( !pair.getOrderId().equals( orderId ) ) {
+                add( new ArrayList<>( new LinkedHashSet<>( order ) ), 1 );
+                order.clear();
+                orderId = pair.getOrderId();
+            }
+            order.add( pair.getFoodId() );
+        }
+        add( new ArrayList<>( new LinkedHashSet<>( order ) ), 1 );
+    }
+
+    /**
+     * Adds (or with a negative delta, removes) one order's worth of counts.
+     * Callers hold the monitor.
+     *
+     * @param foodIds
+     *            distinct ids of the foods in the order
+     * @param delta
+     *            1 to count the order, -1 to take it back
+     */
+    private void add ( final List<Long> foodIds, final int delta ) {
+        for ( final Long foodId : foodIds ) {
+            final Row row = rows.computeIfAbsent( foodId, id -> new Row( maxNeighbors ) );
+            row.orders = Math.max( 0, row.orders + delta );
+            for ( final Long other : foodIds ) {
+                if ( !other.equals( foodId ) ) {
+                    row.add( other, delta );
+                }
+            }
+        }
+    }
+
+    /**
+     * One food's row of the matrix: its neighbors and how often each was
+     * ordered with it, in parallel arrays. The row holds up to twice the
+     * neighbor bound; when it is full the least frequent half is dropped.
+     */
+    private static final class Row {
+
+        /** Neighbors kept after pruning */
+        private final int    keep;
+
+        /** Neighbor food ids */
+        private long[]       ids;
+
+        /** Times each neighbor was ordered with this food */
+        private int[]        counts;
+
+        /** Number of neighbors in use */
+        private int          size;
+
+        /** Number of fulfilled orders containing this food */
+        private long         orders;
+
+        /**
+         * Creates an empty row
+         *
+         * @param keep
+         *            neighbors kept after pruning
+         */
+        private Row ( final int keep ) {
+            this.keep = Math.max( 1, keep );
+            this.ids = new long[4];
+            this.counts = new int[4];
+        }
+
+        /**
+         * Adjusts the count of a neighbor. Neighbors dropped by pruning are
+         * not brought back by a negative delta.
+         *
+         * @param id
+         *            neighbor food id
+         * @param delta
+         *            change in count
+         */
+        private void add ( final long id, final int delta ) {
+            for ( int i = 0; i < size; i++ ) {
+                if ( ids[i] == id ) {
+                    counts[i] += delta;
+                    if ( counts[i] <= 0 ) {
+                        removeAt( i );
+                    }
+                    return;
+                }
+            }
+            if ( delta <= 0 ) {
+                return;
+            }
+            if ( size == 2 * keep ) {
+                prune();
+            }
+            if ( size == ids.length ) {
+                ids = Arrays.copyOf( ids, Math.min( 2 * keep, 2 * size ) );
+                counts = Arrays.copyOf( counts, ids.length );
+            }
+            ids[size] = id;
+            counts[size] = delta;
+            size++;
+        }
+
+        /**
+         * Returns the most frequent neighbors, most frequent first.
+         *
+         * @param limit
+         *            maximum number of neighbors
+         * @return neighbor food ids
+         */
+        private List<Long> top ( final int limit ) {
+            final Integer[] order = sortedIndexes();
+            final List<Long> result = new ArrayList<>( Math.min( limit, size ) );
+            for ( int i = 0; i < size && result.size() < limit; i++ ) {
+                result.add( ids[order[i]] );
+            }
+            return result;
+        }
+
+        /**
+         * Keeps only the most frequent neighbors.
+         */
+        private void prune () {
+            final Integer[] order = sortedIndexes();
+            final long[] keptIds = new long[ids.length];
+            final int[] keptCounts = new int[counts.length];
+            final int kept = Math.min( keep, size );
+            for ( int i = 0; i < kept; i++ ) {
+                keptIds[i] = ids[order[i]];
+                keptCounts[i] = counts[order[i]];
+            }
+            ids = keptIds;
+            counts = keptCounts;
+            size = kept;
+        }
+
+        /**
+         * Removes the neighbor at the given position
+         *
+         * @param index
+         *            position in the arrays
+         */
+        private void removeAt ( final int index ) {
+            size--;
+            ids[index] = ids[size];
+            counts[index] = counts[size];
+        }
+
+        /**
+         * Returns the positions of the neighbors by descending count, ties
+         * broken by food id.
+         *
+         * @return positions in the arrays
+         */
+        private Integer[] sortedIndexes () {
+            final Integer[] order = new Integer[size];
+            for ( int i = 0; i < size; i++ ) {
+                order[i] = i;
+            }
+            Arrays.sort( order, ( a, b ) -> counts[a] != counts[b] ? Integer.compare( counts[b], counts[a] )
+                    : Long.compare( ids[a], ids[b] ) );
+            return order;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package FoodSeer.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodImportErrorDto;
+import FoodSeer.dto.FoodImportResultDto;
+import FoodSeer.entity.Allergen;
+import FoodSeer.mapper.FoodMapper;
+import FoodSeer.service.FoodImportService;
+import FoodSeer.service.FoodService;
+
+/**
+ * Implementation of the bulk food import. The upload is read one line at a
+ * time so the file is never held in memory. Valid rows are collected into
+ * chunks; each chunk is checked against the food name index and inserted
+ * with JDBC batches in its own transaction, so a large import neither holds
+ * one huge transaction nor fills the persistence context.
+ */
+@Service
+public class FoodImportServiceImpl implements FoodImportService {
+
+    /** Most rejected rows listed in the result; the count covers all of them */
+    private static final int    MAX_REPORTED_ERRORS = 500;
+
+    /** Inserts one food row */
+    private static final String INSERT_FOOD         = "INSERT INTO foods ( food_name, amount, price, allergen_mask ) VALUES ( ?, ?, ?, ? )";
+
+    /** Inserts one allergy of a food */
+    private static final String INSERT_ALLERGY      = "INSERT INTO food_allergies ( food_id, allergies ) VALUES ( ?, ? )";
+
+    /** Looks up foods by name through the food name index */
+    private static final String SELECT_BY_NAME      = "SELECT id, food_name FROM foods WHERE food_name IN ( :names )";
+
+    /** Plain JDBC access for the batched inserts */
+    @Autowired
+    private JdbcTemplate               jdbcTemplate;
+
+    /** Plain JDBC access for the name lookups */
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /** Used to run each chunk in its own transaction */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Validates rows the same way single creates are validated */
+    @Autowired
+    private FoodService                foodService;
+
+    /** Publishes the imported foods; the JDBC inserts bypass the entity listener */
+    @Autowired
+    private ApplicationEventPublisher  eventPublisher;
+
+    /** Parses NDJSON rows */
+    @Autowired
+    private ObjectMapper               objectMapper;
+
+    /** Rows sent to the database per JDBC batch */
+    @Value ( "${app.food-import.batch-size:500}" )
+    private int                        batchSize;
+
+    /** Rows committed per transaction */
+    @Value ( "${app.food-import.chunk-size:5000}" )
+    private int                        chunkSize;
+
+    /**
+     * Reads foods from the reader one row at a time and inserts the valid,
+     * new ones. Blank lines are skipped, as is a CSV header line starting
+     * with foodName. CSV fields may be quoted but may not span lines.
+     *
+     * @param reader
+     *            the uploaded file
+     * @param format
+     *            format of the file
+     * @return number of foods imported and the rejected rows
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    @Override
+    public FoodImportResultDto importFoods ( final Reader reader, final Format format ) throws IOException {
+        final TransactionTemplate transaction = new TransactionTemplate( transactionManager );
+        final Report report = new Report();
+        final Set<String> seen = new HashSet<>();
+        final List<Row> chunk = new ArrayList<>();
+
+        final BufferedReader in = new BufferedReader( reader );
+        long lineNumber = 0;
+        String line;
+        while ( ( line = in.readLine() ) != null ) {
+            lineNumber++;
+            if ( line.isBlank() || format == Format.CSV && lineNumber == 1 && isCsvHeader( line ) ) {
+                continue;
+            }
+
+            final FoodDto food;
+            try {
+                food = format == Format.CSV ? parseCsv( line ) : parseJson( line );
+            }
+            catch ( final IllegalArgumentException e ) {
+                report.reject( lineNumber, e.getMessage() );
+                continue;
+            }
+            if ( !foodService.isValidFood( food ) ) {
+                report.reject( lineNumber, "The provided food information is invalid." );
+                continue;
+            }
+            final String name = FoodMapper.normalizeName( food.getFoodName() );
+            if ( !seen.add( name ) ) {
+                report.reject( lineNumber, "The food " + name + " appears earlier in the file." );
+                continue;
+            }
+
+            final List<String> allergies = food.getAllergies() == null ? new ArrayList<>() : food.getAllergies();
+            chunk.add( new Row( lineNumber, name, food.getAmount(), food.getPrice(), allergies ) );
+            if ( chunk.size() >= chunkSize ) {
+                insert( transaction, chunk, report );
+                chunk.clear();
+            }
+        }
+        if ( !chunk.isEmpty() ) {
+            insert( transaction, chunk, report );
+        }
+
+        return report.toDto();
+    }
+
+    /**
+     * Inserts one chunk of rows in its own transaction. If a food with one
+     * of the names was added by another request after the names were
+     * checked, the unique name index fails the chunk; it is rolled back and
+     * inserted once more, and the second check rejects that row.
+     *
+     * @param transaction
+     *            runs the chunk's transaction
+     * @param rows
+     *            validated rows with names unique within the import
+     * @param report
+     *            collects the imported count and rejected rows
+     */
+    private void insert ( final TransactionTemplate transaction, final List<Row> rows, final Report report ) {
+        try {
+            transaction.executeWithoutResult( status -> insertChunk( rows, report ) );
+        }
+        catch ( final DataIntegrityViolationException e ) {
+            transaction.executeWithoutResult( status -> insertChunk( rows, report ) );
+        }
+    }
+
+    /**
+     * Inserts one chunk of rows, skipping names that are already in the
+     * catalog. Must run inside a transaction. The report is only changed
+     * once every row is written, so a chunk that is inserted again is not
+     * reported twice.
+     *
+     * @param rows
+     *            validated rows with names unique within the import
+     * @param report
+     *            collects the imported count and rejected rows
+     */
+    private void insertChunk ( final List<Row> rows, final Report report ) {
+        final Map<String, Long> existing = findIdsByName( rows );
+        final List<Row> fresh = new ArrayList<>( rows.size() );
+        final List<Row> taken = new ArrayList<>();
+        for ( final Row row : rows ) {
+            ( existing.containsKey( row.name() ) ? taken : fresh ).add( row );
+        }
+        if ( !fresh.isEmpty() ) {
+            insertFoods( fresh );
+        }
+
+        for ( final Row row : taken ) {
+            report.reject( row.line(), "The food " + row.name() + " already exists in the system." );
+        }
+        report.imported += fresh.size();
+    }
+
+    /**
+     * Inserts new foods and their allergies with JDBC batches and publishes
+     * them.
+     *
+     * @param fresh
+     *            rows whose names are not in the catalog
+     */
+    private void insertFoods ( final List<Row> fresh ) {
+        jdbcTemplate.batchUpdate( INSERT_FOOD, fresh, batchSize, ( ps, row ) -> {
+            ps.setString( 1, row.name() );
+            ps.setInt( 2, row.amount() );
+            ps.setInt( 3, row.price() );
+            ps.setLong( 4, Allergen.maskOf( row.allergies() ) );
+        } );
+
+        // IDENTITY keys are not returned from batches, so read them back by name
+        final Map<String, Long> ids = findIdsByName( fresh );
+        final List<Object[]> allergies = new ArrayList<>();
+        for ( final Row row : fresh ) {
+            final Long id = ids.get( row.name() );
+            eventPublisher.publishEvent( new FoodChangedEvent( id, row.name(), row.amount(), row.price(), null,
+                    FoodChangedEvent.Kind.WRITTEN ) );
+            for ( final String allergy : row.allergies() ) {
+                allergies.add( new Object[] { id, allergy } );
+            }
+        }
+
+        jdbcTemplate.batchUpdate( INSERT_ALLERGY, allergies, batchSize, ( ps, allergy ) -> {
+            ps.setLong( 1, (Long) allergy[0] );
+            ps.setString( 2, (String) allergy[1] );
+        } );
+    }
+
+    /**
+     * Looks up the ids of the rows' names, querying batchSize names at a time
+     * so the IN lists stay bounded.
+     *
+     * @param rows
+     *            rows to look up
+     * @return id by name for the names that exist
+     */
+    private Map<String, Long> findIdsByName ( final List<Row> rows ) {
+        final Map<String, Long> ids = new HashMap<>();
+        for ( int start = 0; start < rows.size(); start += batchSize ) {
+            final List<String> names = rows.subList( start, Math.min( start + batchSize, rows.size() ) ).stream()
+                    .map( Row::name ).toList();
+            namedParameterJdbcTemplate.query( SELECT_BY_NAME, Map.of( "names", names ),
+                    (RowCallbackHandler) rs -> ids.putIfAbsent( rs.getString( 2 ), rs.getLong( 1 ) ) );
+        }
+        return ids;
+    }
+
+    /**
+     * Returns true if the line is a CSV header.
+     *
+     * @param line
+     *            first line of the file
+     * @return true if the line names the columns
+     */
+    private static boolean isCsvHeader ( final String line ) {
+        return line.trim().replace( "\"", "" ).toLowerCase().startsWith( "foodname" );
+    }
+
+    /**
+     * Parses a CSV row of foodName,amount,price and optionally allergies
+     * separated by ';'.
+     *
+     * @param line
+     *            the row
+     * @return the food
+     * @throws IllegalArgumentException
+     *             if the row is malformed
+     */
+    private static FoodDto parseCsv ( final String line ) {
+        final List<String> fields = splitCsv( line );
+        if ( fields.size() < 3 || fields.size() > 4 ) {
+            throw new IllegalArgumentException( "Expected the columns foodName,amount,price,allergies." );
+        }
+
+        final List<String> allergies = new ArrayList<>();
+        if ( fields.size() == 4 ) {
+            for ( final String allergy : fields.get( 3 ).split( ";" ) ) {
+                if ( !allergy.isBlank() ) {
+                    allergies.add( allergy.trim() );
+                }
+            }
+        }
+
+        try {
+            return new FoodDto( fields.get( 0 ), Integer.parseInt( fields.get( 1 ).trim() ),
+                    Integer.parseInt( fields.get( 2 ).trim() ), allergies );
+        }
+        catch ( final NumberFormatException e ) {
+            throw new IllegalArgumentException( "The amount and price must be whole numbers." );
+        }
+    }
+
+    /**
+     * Splits a CSV row into fields. Fields may be wrapped in double quotes,
+     * with "" standing for a quote inside a quoted field.
+     *
+     * @param line
+     *            the row
+     * @return the fields
+     * @throws IllegalArgumentException
+     *             if a quoted field is not closed
+     */
+    private static List<String> splitCsv ( final String line ) {
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for ( int i = 0; i < line.length(); i++ ) {
+            final char c = line.charAt( i );
+            if ( quoted ) {
+                if ( c == '"' && i + 1 < line.length() && line.charAt( i + 1 ) == '"' ) {
+                    field.append( '"' );
+                    i++;
+                }
+                else if ( c == '"' ) {
+                    quoted = false;
+                }
+                else {
+                    field.append( c );
+                }
+            }
+            else if ( c == '"' ) {
+                quoted = true;
+            }
+            else if ( c == ',' ) {
+                fields.add( field.toString() );
+                field.setLength( 0 );
+            }
+            else {
+                field.append( c );
+            }
+        }
+        if ( quoted ) {
+            throw new IllegalArgumentException( "A quoted field is not closed." );
+        }
+        fields.add( field.toString() );
+        return fields;
+    }
+
+    /**
+     * Parses an NDJSON row holding one food object.
+     *
+     * @param line
+     *            the row
+     * @return the food
+     * @throws IllegalArgumentException
+     *             if the row is not a food object
+     */
+    private FoodDto parseJson ( final String line ) {
+        try {
+            final FoodDto food = objectMapper.readValue( line, FoodDto.class );
+            if ( food == null ) {
+                throw new IllegalArgumentException( "The row is not a food object." );
+            }
+            return food;
+        }
+        catch ( final JsonProcessingException e ) {
+            throw new IllegalArgumentException( "The row is not a food object." );
+        }
+    }
+
+    /**
+     * A validated row waiting to be inserted.
+     *
+     * @param line
+     *            line number in the file
+     * @param name
+     *            normalized food name
+     * @param amount
+     *            amount in stock
+     * @param price
+     *            price
+     * @param allergies
+     *            allergies of the food
+     */
+    private record Row ( long line, String name, int amount, int price, List<String> allergies ) {
+    }
+
+    /**
+     * Running totals of an import.
+     */
+    private static final class Report {
+
+        /** Foods inserted so far */
+        private int                            imported;
+
+        /** Rows rejected so far */
+        private int                            rejected;
+
+        /** The first MAX_REPORTED_ERRORS rejected rows */
+        private final List<FoodImportErrorDto> errors = new ArrayList<>();
+
+        /**
+         * Records a rejected row.
+         *
+         * @param line
+         *            line number
+         * @param message
+         *            why it was rejected
+         */
+        private void reject ( final long line, final String message ) {
+            rejected++;
+            if ( errors.size() < MAX_REPORTED_ERRORS ) {
+                errors.add( new FoodImportErrorDto( line, message ) );
+            }
+        }
+
+        /**
+         * Returns the result to send back, with the errors in line order.
+         *
+         * @return import result
+         */
+        private FoodImportResultDto toDto () {
+            errors.sort( Comparator.comparingLong( FoodImportErrorDto::line ) );
+            return new FoodImportResultDto( imported, rejected, errors );
+        }
+    }
+}
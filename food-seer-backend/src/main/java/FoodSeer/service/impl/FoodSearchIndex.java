@@ -0,0 +1,446 @@
+package FoodSeer.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.mapper.FoodMapper;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.FoodSummary;
+
+/**
+ * In-memory name search over the food catalog. Every word of every food name
+ * is kept in a prefix trie for type-ahead, and every name is split into
+ * trigrams so misspelled queries still find close matches.
+ *
+ * Results are ranked by relevance (exact name, then name prefix, then word
+ * prefixes, then trigram similarity) and then by stock, so foods that can
+ * actually be ordered come first. The index is built from the database on
+ * first use and kept current by every FoodChangedEvent; changes are applied
+ * immediately and again on commit, and a rollback marks the index for a
+ * rebuild.
+ */
+@Component
+public class FoodSearchIndex extends DerivedState {
+
+    /** Relevance of a food whose name equals the query */
+    private static final double          EXACT_MATCH    = 3.0;
+
+    /** Relevance of a food whose name starts with the query */
+    private static final double          NAME_PREFIX    = 2.0;
+
+    /** Relevance of a food where every query word prefixes a name word */
+    private static final double          WORD_PREFIX    = 1.0;
+
+    /** Smallest trigram similarity (0..1) counted as a fuzzy match */
+    private static final double          MIN_SIMILARITY = 0.3;
+
+    /** Source of the full catalog for (re)builds */
+    @Autowired
+    private FoodRepository               foodRepository;
+
+    /** Guards all of the structures below; builds also hold the monitor */
+    private final ReentrantReadWriteLock lock           = new ReentrantReadWriteLock();
+
+    /** Indexed foods by id */
+    private final Map<Long, Entry>       entries        = new HashMap<>();
+
+    /** Root of the word prefix trie */
+    private final TrieNode               root           = new TrieNode();
+
+    /** Ids of the foods containing each trigram */
+    private final Map<String, Set<Long>> trigrams       = new HashMap<>();
+
+    /**
+     * Returns the ids of the foods best matching the query, best first.
+     *
+     * @param query
+     *            what the user typed
+     * @param limit
+     *            maximum number of ids to return
+     * @return ids of the top matches
+     */
+    public List<Long> search ( final String query, final int limit ) {
+        final String normalized = normalize( query );
+        if ( normalized.isEmpty() || limit < 1 ) {
+            return Collections.emptyList();
+        }
+        ensureBuilt();
+
+        lock.readLock().lock();
+        try {
+            final Map<Long, Double> scores = new HashMap<>();
+            for ( final Long id : prefixMatches( normalized ) ) {
+                final String name = entries.get( id ).name();
+                scores.put( id, name.equals( normalized ) ? EXACT_MATCH
+                        : name.startsWith( normalized ) ? NAME_PREFIX : WORD_PREFIX );
+            }
+            if ( scores.size() < limit ) {
+                addFuzzyMatches( normalized, scores );
+            }
+            return topK( scores, limit );
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a written food, or drops a deleted one.
+     *
+     * @param event
+     *            the write
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( event.isDeleted() ) {
+            remove( event.foodId() );
+        }
+        else {
+            put( event.foodId(), event.foodName(), event.amount() );
+        }
+    }
+
+    /**
+     * Adds or updates a food, now and again when the current transaction
+     * commits.
+     *
+     * @param id
+     *            food id
+     * @param name
+     *            food name
+     * @param amount
+     *            amount in stock
+     */
+    public void put ( final Long id, final String name, final int amount ) {
+        if ( id == null || name == null ) {
+            return;
+        }
+        putNow( id, name, amount );
+        onCompletion( () -> putNow( id, name, amount ) );
+    }
+
+    /**
+     * Removes a food, now and again when the current transaction commits.
+     *
+     * @param id
+     *            food id
+     */
+    public void remove ( final Long id ) {
+        if ( id == null ) {
+            return;
+        }
+        removeNow( id );
+        onCompletion( () -> removeNow( id ) );
+    }
+
+    /**
+     * Builds the index from the database. Callers hold the monitor.
+     */
+    @Override
+    protected void build () {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            root.children.clear();
+            trigrams.clear();
+            for ( final FoodSummary food : foodRepository.findAllBy() ) {
+                putNow( food.getId(), food.getFoodName(), food.getAmount() );
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the foods where every query word is a prefix of a word of the
+     * name. Only the smallest candidate set is iterated.
+     *
+     * @param query
+     *            normalized query
+     * @return matching ids
+     */
+    private Set<Long> prefixMatches ( final String query ) {
+        final List<Set<Long>> candidates = new ArrayList<>();
+        for ( final String word : query.split( " " ) ) {
+            final TrieNode node = root.find( word );
+            if ( node == null ) {
+                return Collections.emptySet();
+            }
+            candidates.add( node.ids );
+        }
+        candidates.sort( Comparator.comparingInt( Set::size ) );
+
+        final Set<Long> matches = new HashSet<>();
+        for ( final Long id : candidates.get( 0 ) ) {
+            boolean all = true;
+            for ( int i = 1; i < candidates.size() && all; i++ ) {
+                all = candidates.get( i ).contains( id );
+            }
+            if ( all ) {
+                matches.add( id );
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Scores foods not already matched by their trigram (Jaccard) similarity
+     * to the query.
+     *
+     * @param query
+     *            normalized query
+     * @param scores
+     *            scores so far, added to
+     */
+    private void addFuzzyMatches ( final String query, final Map<Long, Double> scores ) {
+        final Set<String> queryTrigrams = trigramsOf( query );
+        final Map<Long, Integer> shared = new HashMap<>();
+        for ( final String trigram : queryTrigrams ) {
+            for ( final Long id : trigrams.getOrDefault( trigram, Collections.emptySet() ) ) {
+                shared.merge( id, 1, Integer::sum );
+            }
+        }
+        for ( final Map.Entry<Long, Integer> match : shared.entrySet() ) {
+            if ( scores.containsKey( match.getKey() ) ) {
+                continue;
+            }
+            final int common = match.getValue();
+            final int union = queryTrigrams.size() + entries.get( match.getKey() ).trigrams().size() - common;
+            final double similarity = (double) common / union;
+            if ( similarity >= MIN_SIMILARITY ) {
+                scores.put( match.getKey(), similarity );
+            }
+        }
+    }
+
+    /**
+     * Picks the best scored ids with a bounded heap. Ties are broken by
+     * stock (in stock first, then larger amounts) and then by name.
+     *
+     * @param scores
+     *            relevance of each match
+     * @param limit
+     *            number of ids to return
+     * @return the best ids, best first
+     */
+    private List<Long> topK ( final Map<Long, Double> scores, final int limit ) {
+        final Comparator<Long> better = Comparator.<Long> comparingDouble( scores::get )
+                .thenComparing( id -> entries.get( id ).amount() > 0 )
+                .thenComparingInt( id -> entries.get( id ).amount() )
+                .thenComparing( id -> entries.get( id ).name(), Comparator.reverseOrder() );
+
+        // min-heap on "better", so the worst of the current top k is on top
+        final PriorityQueue<Long> heap = new PriorityQueue<>( limit + 1, better );
+        for ( final Long id : scores.keySet() ) {
+            heap.add( id );
+            if ( heap.size() > limit ) {
+                heap.poll();
+            }
+        }
+        final List<Long> top = new ArrayList<>( heap );
+        top.sort( better.reversed() );
+        return top;
+    }
+
+    /**
+     * Adds or replaces a food in every structure.
+     *
+     * @param id
+     *            food id
+     * @param name
+     *            food name
+     * @param amount
+     *            amount in stock
+     */
+    private void putNow ( final Long id, final String name, final int amount ) {
+        final String normalized = normalize( name );
+        lock.writeLock().lock();
+        try {
+            final Entry existing = entries.get( id );
+            if ( existing != null && existing.name().equals( normalized ) ) {
+                // stock change only: the trie and trigrams are unchanged
+                entries.put( id, new Entry( normalized, amount, existing.trigrams() ) );
+                return;
+            }
+            removeNow( id );
+            final Entry entry = new Entry( normalized, amount, trigramsOf( normalized ) );
+            entries.put( id, entry );
+            for ( final String word : normalized.split( " " ) ) {
+                root.add( word, id );
+            }
+            for ( final String trigram : entry.trigrams() ) {
+                trigrams.computeIfAbsent( trigram, t -> new HashSet<>() ).add( id );
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a food from every structure.
+     *
+     * @param id
+     *            food id
+     */
+    private void removeNow ( final Long id ) {
+        lock.writeLock().lock();
+        try {
+            final Entry entry = entries.remove( id );
+            if ( entry == null ) {
+                return;
+            }
+            for ( final String word : entry.name().split( " " ) ) {
+                root.remove( word, 0, id );
+            }
+            for ( final String trigram : entry.trigrams() ) {
+                final Set<Long> ids = trigrams.get( trigram );
+                ids.remove( id );
+                if ( ids.isEmpty() ) {
+                    trigrams.remove( trigram );
+                }
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Repeats the change once the current transaction commits, or marks the
+     * index stale if it rolls back. Outside a transaction nothing is
+     * registered.
+     *
+     * @param change
+     *            change to repeat on commit
+     */
+    private void onCompletion ( final Runnable change ) {
+        AfterTransaction.onCompletion( change, this::markStale );
+    }
+
+    /**
+     * Normalizes a name or query: upper case, single spaces.
+     *
+     * @param text
+     *            name or query
+     * @return normalized text, empty for null
+     */
+    private static String normalize ( final String text ) {
+        final String normalized = FoodMapper.normalizeName( text );
+        return normalized == null ? "" : normalized.replaceAll( "\\s+", " " );
+    }
+
+    /**
+     * Returns the distinct trigrams of the text, padded so that the start
+     * and end of the name count.
+     *
+     * @param text
+     *            normalized text
+     * @return trigrams
+     */
+    private static Set<String> trigramsOf ( final String text ) {
+        final String padded = "  " + text + " ";
+        final Set<String> result = new HashSet<>();
+        for ( int i = 0; i + 3 <= padded.length(); i++ ) {
+            result.add( padded.substring( i, i + 3 ) );
+        }
+        return result;
+    }
+
+    /**
+     * An indexed food.
+     *
+     * @param name
+     *            normalized name
+     * @param amount
+     *            amount in stock
+     * @param trigrams
+     *            trigrams of the name
+     */
+    private record Entry ( String name, int amount, Set<String> trigrams ) {
+    }
+
+    /**
+     * Node of the word prefix trie. Each node holds the ids of every food
+     * with a word starting with the node's prefix, so a prefix lookup never
+     * walks a subtree.
+     */
+    private static final class TrieNode {
+
+        /** Child nodes by next character */
+        private final Map<Character, TrieNode> children = new HashMap<>();
+
+        /** Foods with a word having this prefix */
+        private final Set<Long>                ids      = new HashSet<>();
+
+        /**
+         * Adds the food under every prefix of the word.
+         *
+         * @param word
+         *            word of the name
+         * @param id
+         *            food id
+         */
+        private void add ( final String word, final Long id ) {
+            TrieNode node = this;
+            for ( int i = 0; i < word.length(); i++ ) {
+                node = node.children.computeIfAbsent( word.charAt( i ), c -> new TrieNode() );
+                node.ids.add( id );
+            }
+        }
+
+        /**
+         * Removes the food from every prefix of the word below this node,
+         * dropping nodes that become empty.
+         *
+         * @param word
+         *            word of the name
+         * @param index
+         *            position of the next character
+         * @param id
+         *            food id
+         */
+        private void remove ( final String word, final int index, final Long id ) {
+            if ( index == word.length() ) {
+                return;
+            }
+            final TrieNode child = children.get( word.charAt( index ) );
+            if ( child == null ) {
+                return;
+            }
+            child.ids.remove( id );
+            child.remove( word, index + 1, id );
+            if ( child.ids.isEmpty() ) {
+                children.remove( word.charAt( index ) );
+            }
+        }
+
+        /**
+         * Returns the node for the prefix.
+         *
+         * @param prefix
+         *            prefix to look up
+         * @return the node, or null if no word has the prefix
+         */
+        private TrieNode find ( final String prefix ) {
+            TrieNode node = this;
+            for ( int i = 0; i < prefix.length() && node != null; i++ ) {
+                node = node.children.get( prefix.charAt( i ) );
+            }
+            return node;
+        }
+    }
+}
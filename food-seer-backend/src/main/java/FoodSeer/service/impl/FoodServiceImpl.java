@@ -1,25 +1,36 @@
 package FoodSeer.service.impl;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import FoodSeer.dto.FoodDto;
-import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.FoodPageDto;
+import FoodSeer.dto.FoodQueryDto;
+import FoodSeer.dto.FoodUpdateDto;
+import FoodSeer.dto.FoodUpdateResultDto;
+import FoodSeer.entity.Allergen;
 import FoodSeer.entity.Food;
-import FoodSeer.entity.Inventory;
-import FoodSeer.entity.Order;
 import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.mapper.FoodMapper;
-import FoodSeer.mapper.InventoryMapper;
 import FoodSeer.repositories.FoodRepository;
-import FoodSeer.repositories.InventoryRepository;
+import FoodSeer.repositories.FoodSpecifications;
 import FoodSeer.repositories.OrderRepository;
 import FoodSeer.service.FoodService;
-import FoodSeer.service.InventoryService;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 
 /**
@@ -28,25 +39,45 @@ import jakarta.transaction.Transactional;
 @Service
 public class FoodServiceImpl implements FoodService {
 
+    /** Page size used by queryFoods when the client does not pass one */
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** Largest page queryFoods will return */
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /** Number of matches searchFoods returns when the client does not say */
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+
+    /** JDBC batch size used when updateFoods flushes its changes */
+    private static final int UPDATE_BATCH_SIZE = 50;
+
     /** Connection to the repository to work with the DAO + database */
     @Autowired
     private FoodRepository foodRepository;
 
-    /** Connection to the repository to work with the DAO + database */
+    /** Connection to the order repository */
     @Autowired
-    private InventoryRepository  inventoryRepository;
+    private OrderRepository orderRepository;
 
-    /** Connection to the repository to work with the DAO + database */
+    /** Read-through cache in front of the food lookups */
     @Autowired
-    private InventoryService     inventoryService;
-    
-    /** Connection to the order repository */
+    private FoodCache            foodCache;
+
+    /** Co-occurrence model for related foods */
     @Autowired
-    private OrderRepository orderRepository;
+    private FoodCoOccurrence     foodCoOccurrence;
+
+    /** Name index used by searchFoods */
+    @Autowired
+    private FoodSearchIndex      foodSearchIndex;
+
+    /** Reference to EntityManager */
+    @Autowired
+    private EntityManager        entityManager;
 
     /**
-     * Creates an food with the given information. A created food
-     * needs to add to a new/existing inventory
+     * Creates an food with the given information. Every food is part of
+     * the inventory, so nothing else needs to be written.
      *
      * @param foodDto
      *            food to create
@@ -66,49 +97,22 @@ public class FoodServiceImpl implements FoodService {
         }
 
         final Food food = FoodMapper.mapToFood( foodDto );
-        final Food savedFood = foodRepository.saveAndFlush( food );
-
-        // initialize inventory to see if it exists already or not
-        final List<Inventory> inventoryList = inventoryRepository.findAll();
-
-        if ( inventoryList.isEmpty() ) { // if inventory doesn't exist yet,
-                                         // create it
-            // initialize new list of foods to construct a new inventory
-            // Dto
-            final List<Food> foods = new ArrayList<>();
-            foods.add( savedFood );
-            final InventoryDto inventoryDto = new InventoryDto( 1L, foods );
-
-            final InventoryDto createdInventoryDto = inventoryService.createInventory( inventoryDto );
-
-            // SAVE the inventory to the repository
-            final Inventory createdInventory = InventoryMapper.mapToInventory( createdInventoryDto );
-            inventoryRepository.saveAndFlush( createdInventory );
-            InventoryMapper.mapToInventoryDto( createdInventory );
-
+        final Food savedFood;
+        try {
+            savedFood = foodRepository.saveAndFlush( food );
         }
-        else { // if the inventory does already exist... then get the existing
-               // one and call updateInventory with it
-
-            final Inventory inventory = inventoryRepository.getReferenceById( 1L );
-
-            // add the savedFood to the existing inventory
-            inventory.getFoods().add( savedFood );
-            final InventoryDto inventoryDto = InventoryMapper.mapToInventoryDto( inventory );
-            final InventoryDto createdInventoryDto = inventoryService.updateInventory( inventoryDto );
-
-            // SAVE the inventory to the repository
-            final Inventory createdInventory = InventoryMapper.mapToInventory( createdInventoryDto );
-            inventoryRepository.saveAndFlush( createdInventory );
-            InventoryMapper.mapToInventoryDto( createdInventory );
+        catch ( final DataIntegrityViolationException e ) {
+            // another request added the name after the check above
+            throw new IllegalArgumentException( "The name of the new food already exists in the system.", e );
         }
 
+        foodCache.evict( savedFood.getId() );
         return FoodMapper.mapToFoodDto( savedFood );
 
     }
 
     /**
-     * Returns the food with the given id.
+     * Returns the food with the given id, from the cache when possible.
      *
      * @param foodId
      *            food's id
@@ -117,21 +121,249 @@ public class FoodServiceImpl implements FoodService {
      *             if the food doesn't exist
      */
     @Override
+    @Transactional
     public FoodDto getFoodById ( final Long foodId ) {
+        final FoodDto cached = isCacheUsable() ? foodCache.get( foodId ) : null;
+        if ( cached != null ) {
+            return cached;
+        }
+        final long generation = foodCache.generation();
         final Food food = foodRepository.findById( foodId ).orElseThrow(
                 () -> new ResourceNotFoundException( "Food does not exist with id " + foodId ) );
-        return FoodMapper.mapToFoodDto( food );
+        final FoodDto foodDto = FoodMapper.mapToFoodDto( food );
+        foodCache.put( foodDto, generation );
+        return foodDto;
     }
 
     /**
-     * Returns a list of all foods
+     * Returns a list of all foods, from the cache when possible.
      *
      * @return list of all foods
      */
     @Override
+    @Transactional
     public List<FoodDto> getAllFoods () {
+        final List<FoodDto> cached = isCacheUsable() ? foodCache.getAll() : null;
+        if ( cached != null ) {
+            return cached;
+        }
+        final long generation = foodCache.generation();
         final List<Food> foods = foodRepository.findAll();
-        return foods.stream().map( FoodMapper::mapToFoodDto ).collect( Collectors.toList() );
+        final List<FoodDto> foodDtos = foods.stream().map( FoodMapper::mapToFoodDto ).collect( Collectors.toList() );
+        foodCache.putAll( foodDtos, generation );
+        return foodDtos;
+    }
+
+    /**
+     * Returns one page of foods matching the query. Filters, ordering and the
+     * page limit are all evaluated by the database; the cursor encodes the
+     * sort value and id of the last food on the previous page.
+     *
+     * @param query
+     *            filters, sort key, page size and cursor
+     * @return the matching foods and the cursor for the next page
+     */
+    @Override
+    public FoodPageDto queryFoods ( final FoodQueryDto query ) {
+        final String attribute = sortAttribute( query.sort() );
+        final int limit = query.limit() == null ? DEFAULT_PAGE_SIZE : query.limit();
+        if ( limit < 1 ) {
+            throw new IllegalArgumentException( "The page limit must be a positive integer." );
+        }
+        final int pageSize = Math.min( limit, MAX_PAGE_SIZE );
+
+        List<String> allergens = null;
+        if ( query.excludeAllergens() != null ) {
+            allergens = query.excludeAllergens().stream().map( FoodMapper::normalizeName )
+                    .filter( a -> a != null && !a.isEmpty() ).collect( Collectors.toList() );
+        }
+
+        Specification<Food> spec = Specification
+                .where( FoodSpecifications.nameStartsWith( FoodMapper.normalizeName( query.namePrefix() ) ) )
+                .and( FoodSpecifications.priceAtLeast( query.minPrice() ) )
+                .and( FoodSpecifications.priceAtMost( query.maxPrice() ) )
+                .and( FoodSpecifications.inStock( query.inStock() ) )
+                .and( FoodSpecifications.excludesAllergens( allergens ) );
+        if ( query.cursor() != null && !query.cursor().isEmpty() ) {
+            spec = spec.and( afterCursor( attribute, query.cursor() ) );
+        }
+
+        final Sort sort = "id".equals( attribute ) ? Sort.by( "id" ) : Sort.by( attribute ).and( Sort.by( "id" ) );
+
+        // fetch one extra row to find out whether there is a next page
+        final List<Food> foods = foodRepository.findBy( spec, q -> q.sortBy( sort ).limit( pageSize + 1 ).all() );
+
+        String nextCursor = null;
+        List<Food> page = foods;
+        if ( foods.size() > pageSize ) {
+            page = foods.subList( 0, pageSize );
+            nextCursor = encodeCursor( attribute, page.get( pageSize - 1 ) );
+        }
+
+        return new FoodPageDto( page.stream().map( FoodMapper::mapToFoodDto ).collect( Collectors.toList() ),
+                nextCursor );
+    }
+
+    /**
+     * Returns the foods whose names best match the query. The ranking comes
+     * from the in-memory search index; the foods themselves are read from
+     * the cache, with one query for any that are not cached.
+     *
+     * @param query
+     *            the text typed so far
+     * @param limit
+     *            maximum number of foods, null for the default
+     * @return the best matches, best first
+     */
+    @Override
+    @Transactional
+    public List<FoodDto> searchFoods ( final String query, final Integer limit ) {
+        final int k = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        if ( k < 1 ) {
+            throw new IllegalArgumentException( "The search limit must be a positive integer." );
+        }
+        return loadFoods( foodSearchIndex.search( query, Math.min( k, MAX_PAGE_SIZE ) ) );
+    }
+
+    /**
+     * Returns the foods most often ordered together with the given food
+     *
+     * @param foodId
+     *            food's id
+     * @param limit
+     *            maximum number of foods, null for the default
+     * @return the related foods, most frequent first
+     * @throws ResourceNotFoundException
+     *             if the food doesn't exist
+     * @throws IllegalArgumentException
+     *             if the limit is not positive
+     */
+    @Override
+    @Transactional
+    public List<FoodDto> getRelatedFoods ( final Long foodId, final Integer limit ) {
+        final int k = limit == null ? DEFAULT_SEARCH_LIMIT : limit;
+        if ( k < 1 ) {
+            throw new IllegalArgumentException( "The limit must be a positive integer." );
+        }
+        getFoodById( foodId );
+        return loadFoods( foodCoOccurrence.related( foodId, Math.min( k, MAX_PAGE_SIZE ) ) );
+    }
+
+    /**
+     * Loads foods by id, from the cache where possible, keeping the order of
+     * the ids.
+     *
+     * @param ids
+     *            food ids
+     * @return the foods that still exist, in the order of the ids
+     */
+    private List<FoodDto> loadFoods ( final List<Long> ids ) {
+        final Map<Long, FoodDto> found = new HashMap<>();
+        final List<Long> misses = new ArrayList<>();
+        final boolean useCache = isCacheUsable();
+        for ( final Long id : ids ) {
+            final FoodDto cached = useCache ? foodCache.get( id ) : null;
+            if ( cached != null ) {
+                found.put( id, cached );
+            }
+            else {
+                misses.add( id );
+            }
+        }
+        if ( !misses.isEmpty() ) {
+            final long generation = foodCache.generation();
+            for ( final Food food : foodRepository.findAllById( misses ) ) {
+                final FoodDto foodDto = FoodMapper.mapToFoodDto( food );
+                foodCache.put( foodDto, generation );
+                found.put( food.getId(), foodDto );
+            }
+        }
+
+        // ids of foods that no longer exist are simply left out
+        return ids.stream().map( found::get ).filter( f -> f != null ).collect( Collectors.toList() );
+    }
+
+    /**
+     * Maps a public sort key to the Food attribute it orders by.
+     *
+     * @param sortKey
+     *            name, price, amount or id (null means id)
+     * @return the entity attribute
+     */
+    private static String sortAttribute ( final String sortKey ) {
+        if ( sortKey == null || sortKey.isEmpty() ) {
+            return "id";
+        }
+        switch ( sortKey.trim().toLowerCase() ) {
+            case "name":
+                return "foodName";
+            case "price":
+                return "price";
+            case "amount":
+                return "amount";
+            case "id":
+                return "id";
+            default:
+                throw new IllegalArgumentException( "Unknown sort key " + sortKey );
+        }
+    }
+
+    /**
+     * Builds the cursor pointing just after the given food.
+     *
+     * @param attribute
+     *            sort attribute
+     * @param food
+     *            last food of the page
+     * @return opaque cursor
+     */
+    private static String encodeCursor ( final String attribute, final Food food ) {
+        final String value;
+        switch ( attribute ) {
+            case "foodName":
+                value = food.getFoodName();
+                break;
+            case "price":
+                value = String.valueOf( food.getPrice() );
+                break;
+            case "amount":
+                value = String.valueOf( food.getAmount() );
+                break;
+            default:
+                value = "";
+        }
+        final String raw = value + "|" + food.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString( raw.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Decodes a cursor into the keyset predicate for the next page.
+     *
+     * @param attribute
+     *            sort attribute
+     * @param cursor
+     *            cursor returned with the previous page
+     * @return keyset specification
+     */
+    private static Specification<Food> afterCursor ( final String attribute, final String cursor ) {
+        try {
+            final String raw = new String( Base64.getUrlDecoder().decode( cursor ), StandardCharsets.UTF_8 );
+            final int separator = raw.lastIndexOf( '|' );
+            final String value = raw.substring( 0, separator );
+            final Long lastId = Long.valueOf( raw.substring( separator + 1 ) );
+            switch ( attribute ) {
+                case "foodName":
+                    return FoodSpecifications.after( attribute, value, lastId );
+                case "price":
+                case "amount":
+                    return FoodSpecifications.after( attribute, Integer.valueOf( value ), lastId );
+                default:
+                    return FoodSpecifications.after( attribute, lastId, lastId );
+            }
+        }
+        catch ( final IllegalArgumentException | IndexOutOfBoundsException e ) {
+            throw new IllegalArgumentException( "The page cursor is invalid." );
+        }
     }
 
     /**
@@ -150,32 +382,18 @@ public class FoodServiceImpl implements FoodService {
         final Food food = foodRepository.findById( foodId ).orElseThrow(
                 () -> new ResourceNotFoundException( "Food does not exist with id " + foodId ) );
         
-        // Find all orders containing this food
-        final List<Order> ordersWithFood = orderRepository.findOrdersContainingFood(food);
-        
-        // Check if any unfulfilled orders contain this food
-        final List<Order> unfulfilledOrders = ordersWithFood.stream()
-                .filter(order -> !order.getIsFulfilled())
-                .collect(Collectors.toList());
-        
-        if (!unfulfilledOrders.isEmpty()) {
-            throw new IllegalStateException("Cannot delete food that is part of unfulfilled orders. " +
-                    "There are " + unfulfilledOrders.size() + " unfulfilled order(s) containing this food.");
-        }
-        
-        // Remove the food from all fulfilled orders before deletion
-        for (final Order order : ordersWithFood) {
-            // Remove the food from the order's foods list
-            order.getFoods().removeIf(f -> f.getId().equals(food.getId()));
-            // Save and flush to update the join table immediately
-            orderRepository.saveAndFlush(order);
+        // Check and clean up the order history with one statement each, so
+        // the cost does not grow with the number of orders
+        final long unfulfilledOrders = orderRepository.countUnfulfilledOrdersContainingFood( foodId );
+        if ( unfulfilledOrders > 0 ) {
+            throw new IllegalStateException( "Cannot delete food that is part of unfulfilled orders. "
+                    + "There are " + unfulfilledOrders + " unfulfilled order(s) containing this food." );
         }
-        
-        // Flush all pending changes to ensure join table is updated
-        orderRepository.flush();
-        
+        orderRepository.deleteFoodFromOrders( foodId );
+
         // Now safe to delete the food
         foodRepository.delete( food );
+        foodCache.evict( foodId );
     }
 
     /**
@@ -184,43 +402,59 @@ public class FoodServiceImpl implements FoodService {
     @Override
     public void deleteAllFoods () {
         foodRepository.deleteAll();
+        foodCache.clear();
     }
 
     /**
-     * Returns true if the recipe already exists in the database.
+     * Returns true if the food already exists in the database. A cached food
+     * with the name answers immediately; otherwise the check is a single
+     * lookup on the indexed food name column.
      *
      * @param name
-     *            recipe's name to check
+     *            food's name to check
      * @return true if already in the database
      */
     @Override
     public boolean isDuplicateName ( final String name ) {
-        final List<FoodDto> list = getAllFoods();
-        for ( int i = 0; i < list.size(); ++i ) {
-            if ( name.equals( list.get( i ).getFoodName() ) ) {
-                return true;
-            }
+        final String normalized = FoodMapper.normalizeName( name );
+        if ( normalized == null ) {
+            return false;
         }
-        return false;
+        return ( isCacheUsable() && foodCache.getByName( normalized ) != null )
+                || foodRepository.existsByFoodName( normalized );
     }
 
     /**
-     * Returns true if the recipe already exists in the database.
+     * Returns the food with the given name if it already exists in the
+     * database.
      *
      * @param name
-     *            recipe's name to check
-     * @return true if already in the database
+     *            food's name to check
+     * @return the existing food, or null if not in the database
      */
     @Override
     public FoodDto getDuplicateName ( final String name ) {
-        final List<FoodDto> list = getAllFoods();
-        for ( int i = 0; i < list.size(); ++i ) {
-            if ( name.equals( list.get( i ).getFoodName() ) ) {
-                return list.get( i );
-            }
+        final String normalized = FoodMapper.normalizeName( name );
+        if ( normalized == null ) {
+            return null;
         }
-        return null;
+        final FoodDto cached = isCacheUsable() ? foodCache.getByName( normalized ) : null;
+        if ( cached != null ) {
+            return cached;
+        }
+        return foodRepository.findByFoodName( normalized ).map( FoodMapper::mapToFoodDto ).orElse( null );
+    }
 
+    /**
+     * The cache only sees writes once they are flushed (that is when the
+     * entity listener fires), so it is bypassed while the current persistence
+     * context holds unflushed changes; the database query would flush them
+     * first and see them.
+     *
+     * @return true if the cache can answer the current lookup
+     */
+    private boolean isCacheUsable () {
+        return !entityManager.unwrap( Session.class ).isDirty();
     }
 
     /**
@@ -251,6 +485,11 @@ public class FoodServiceImpl implements FoodService {
             return false;
         }
 
+        // reorder threshold is optional, but cannot be negative
+        if (foodDto.getReorderThreshold() != null && foodDto.getReorderThreshold() < 0) {
+            return false;
+        }
+
         // allergies array can be null, but cannot contain null/blank entries
         final List<String> allergies = foodDto.getAllergies();
         if (allergies != null) {
@@ -266,7 +505,7 @@ public class FoodServiceImpl implements FoodService {
 
     /**
      * update the food's inventory amount and saves the updated food
-     * to the food repository AND the inventory repository
+     * to the food repository
      */
     @Override
     @Transactional
@@ -280,25 +519,166 @@ public class FoodServiceImpl implements FoodService {
         if (price < 0) {
             throw new IllegalArgumentException("The price of the food must be a non-negative integer.");
         }
-        // if the food name exists currently
-        if ( isDuplicateName( name ) ) {
+        // look the food up by its name (unique in the schema) and update
+        // the managed entity
+        final Food food = foodRepository.findByFoodName( FoodMapper.normalizeName( name ) ).orElseThrow(
+                () -> new ResourceNotFoundException( "Food does not exist with name " + name ) );
 
-            final FoodDto foodDto = getDuplicateName( name );
-            // update with the new entries
-            foodDto.setAmount( amount );
-            foodDto.setPrice(price);
-            foodDto.setAllergies(allergies);
+        food.setAmount( amount );
+        food.setPrice( price );
+        replaceAllergies( food, allergies );
 
-            final Food food = FoodMapper.mapToFood( foodDto );
-            final Food savedFood = foodRepository.saveAndFlush( food );
+        final Food savedFood = foodRepository.saveAndFlush( food );
+        foodCache.evict( savedFood.getId() );
+        return FoodMapper.mapToFoodDto( savedFood );
 
-            return FoodMapper.mapToFoodDto( savedFood );
+    }
 
+    /**
+     * Sets the stock level at or below which a food is reported as low. The
+     * write's FoodChangedEvent reports the change to the LowStockWatcher.
+     *
+     * @param foodId
+     *            food id
+     * @param reorderThreshold
+     *            the threshold, or null to use the default
+     * @return the updated food
+     */
+    @Override
+    @Transactional
+    public FoodDto setReorderThreshold ( final Long foodId, final Integer reorderThreshold ) {
+        if ( reorderThreshold != null && reorderThreshold < 0 ) {
+            throw new IllegalArgumentException( "The reorder threshold must be a non-negative integer." );
         }
-        else {
-            throw new ResourceNotFoundException( "Food does not exist with name " + name );
+        final Food food = foodRepository.findById( foodId )
+                .orElseThrow( () -> new ResourceNotFoundException( "Food does not exist with id " + foodId ) );
+        food.setReorderThreshold( reorderThreshold );
+        final Food savedFood = foodRepository.saveAndFlush( food );
+        foodCache.evict( savedFood.getId() );
+        return FoodMapper.mapToFoodDto( savedFood );
+    }
+
+    /**
+     * Applies many food changes in one transaction. All targets are loaded
+     * with one query by id and one by name; the changes are applied to the
+     * managed entities and written by a single batched flush.
+     *
+     * @param updates
+     *            the changes, each naming its food by id or name
+     * @return the result of each change, in request order
+     */
+    @Override
+    @Transactional
+    public List<FoodUpdateResultDto> updateFoods ( final List<FoodUpdateDto> updates ) {
+        final Set<Long> ids = new HashSet<>();
+        final Set<String> names = new HashSet<>();
+        for ( final FoodUpdateDto update : updates ) {
+            if ( update.id() != null ) {
+                ids.add( update.id() );
+            }
+            else if ( update.foodName() != null ) {
+                names.add( FoodMapper.normalizeName( update.foodName() ) );
+            }
+        }
+
+        final Map<Long, Food> byId = new HashMap<>();
+        final Map<String, Food> byName = new HashMap<>();
+        if ( !ids.isEmpty() ) {
+            foodRepository.findAllById( ids ).forEach( food -> byId.put( food.getId(), food ) );
+        }
+        if ( !names.isEmpty() ) {
+            foodRepository.findByFoodNameIn( names ).forEach( food -> byName.put( food.getFoodName(), food ) );
+        }
+
+        final List<Food> changed = new ArrayList<>();
+        final List<Integer> changedIndexes = new ArrayList<>();
+        final FoodUpdateResultDto[] results = new FoodUpdateResultDto[updates.size()];
+        for ( int i = 0; i < updates.size(); i++ ) {
+            final FoodUpdateDto update = updates.get( i );
+            final String invalid = validateUpdate( update );
+            if ( invalid != null ) {
+                results[i] = new FoodUpdateResultDto( i, FoodUpdateResultDto.INVALID, invalid, null );
+                continue;
+            }
+            final Food food = update.id() != null ? byId.get( update.id() )
+                    : byName.get( FoodMapper.normalizeName( update.foodName() ) );
+            if ( food == null ) {
+                results[i] = new FoodUpdateResultDto( i, FoodUpdateResultDto.NOT_FOUND, "Food does not exist with "
+                        + ( update.id() != null ? "id " + update.id() : "name " + update.foodName() ), null );
+                continue;
+            }
+
+            if ( update.amount() != null ) {
+                food.setAmount( update.amount() );
+            }
+            if ( update.price() != null ) {
+                food.setPrice( update.price() );
+            }
+            if ( update.allergies() != null ) {
+                replaceAllergies( food, update.allergies() );
+            }
+            changed.add( food );
+            changedIndexes.add( i );
         }
 
+        // dirty checking writes every change; batch the UPDATE statements
+        entityManager.unwrap( Session.class ).setJdbcBatchSize( UPDATE_BATCH_SIZE );
+        foodRepository.flush();
+
+        for ( int j = 0; j < changed.size(); j++ ) {
+            final Food food = changed.get( j );
+            foodCache.evict( food.getId() );
+            results[changedIndexes.get( j )] = new FoodUpdateResultDto( changedIndexes.get( j ),
+                    FoodUpdateResultDto.UPDATED, null, FoodMapper.mapToFoodDto( food ) );
+        }
+        return List.of( results );
+    }
+
+    /**
+     * Checks one change of a batch update.
+     *
+     * @param update
+     *            the change
+     * @return why the change is invalid, or null if it is valid
+     */
+    private static String validateUpdate ( final FoodUpdateDto update ) {
+        if ( update == null ) {
+            return "The change is empty.";
+        }
+        if ( update.id() == null && ( update.foodName() == null || update.foodName().trim().isEmpty() ) ) {
+            return "The change must name a food by id or name.";
+        }
+        if ( update.amount() != null && update.amount() < 0 ) {
+            return "The units of the food must be a positive integer.";
+        }
+        if ( update.price() != null && update.price() < 0 ) {
+            return "The price of the food must be a non-negative integer.";
+        }
+        if ( update.allergies() != null ) {
+            for ( final String allergy : update.allergies() ) {
+                if ( allergy == null || allergy.trim().isEmpty() ) {
+                    return "Allergies cannot be blank.";
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces the allergies of a managed food in place and recomputes its
+     * allergen mask.
+     *
+     * @param food
+     *            managed food
+     * @param allergies
+     *            new allergies, null for none
+     */
+    private static void replaceAllergies ( final Food food, final List<String> allergies ) {
+        // copy first: callers may pass the entity's own allergy list
+        final List<String> newAllergies = allergies == null ? new ArrayList<>() : new ArrayList<>( allergies );
+        food.getAllergies().clear();
+        food.getAllergies().addAll( newAllergies );
+        food.setAllergenMask( Allergen.maskOf( newAllergies ) );
     }
 
 }
@@ -0,0 +1,307 @@
+package FoodSeer.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.dto.FulfillmentTicketDto;
+import FoodSeer.service.OrderService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fulfills orders off the request thread, so a slow database during a rush
+ * holds up fulfillment workers instead of the request threads every other
+ * endpoint needs.
+ *
+ * Submitted orders wait in a bounded queue; when it is full, submissions
+ * are refused rather than queued without limit. A fixed number of workers,
+ * each on its own virtual thread, take orders from the queue and fulfill
+ * them through OrderService, one transaction per order. Transient database
+ * failures such as lock timeouts are retried with exponential backoff;
+ * any other failure is final.
+ *
+ * Every submission gets a ticket to poll. Tickets are kept in memory until
+ * they have been finished for the ticket lifetime, so they do not survive a
+ * restart, and neither do orders still in the queue.
+ */
+@Component
+public class FulfillmentQueue {
+
+    /** Waiting for a worker */
+    public static final String          QUEUED    = "QUEUED";
+
+    /** Being fulfilled */
+    public static final String          RUNNING   = "RUNNING";
+
+    /** Fulfilled */
+    public static final String          FULFILLED = "FULFILLED";
+
+    /** Not fulfilled; the ticket carries the reason */
+    public static final String          FAILED    = "FAILED";
+
+    /** Fulfills the orders */
+    @Autowired
+    private OrderService                orderService;
+
+    /** Orders waiting for a worker */
+    private final BlockingQueue<Ticket> queue;
+
+    /** Tickets by id */
+    private final Map<String, Ticket>   tickets   = new ConcurrentHashMap<>();
+
+    /** Unfinished tickets by order id, so an order is only queued once */
+    private final Map<Long, Ticket>     active    = new ConcurrentHashMap<>();
+
+    /** Worker threads */
+    private final List<Thread>          workers   = new ArrayList<>();
+
+    /** Number of workers */
+    private final int                   workerCount;
+
+    /** Most attempts per order */
+    private final int                   maxAttempts;
+
+    /** Wait before the first retry; doubled for each further retry */
+    private final long                  retryBackoff;
+
+    /** How long finished tickets are kept */
+    private final Duration              ticketLifetime;
+
+    /**
+     * Creates the queue.
+     *
+     * @param capacity
+     *            most orders waiting at once
+     * @param workerCount
+     *            number of workers
+     * @param maxAttempts
+     *            most attempts per order
+     * @param retryBackoff
+     *            wait before the first retry, in milliseconds
+     * @param ticketMinutes
+     *            how long finished tickets are kept, in minutes
+     */
+    public FulfillmentQueue ( @Value ( "${app.fulfillment-queue.capacity:1000}" ) final int capacity,
+            @Value ( "${app.fulfillment-queue.workers:4}" ) final int workerCount,
+            @Value ( "${app.fulfillment-queue.max-attempts:3}" ) final int maxAttempts,
+            @Value ( "${app.fulfillment-queue.retry-backoff-ms:100}" ) final long retryBackoff,
+            @Value ( "${app.fulfillment-queue.ticket-ttl-minutes:60}" ) final long ticketMinutes ) {
+        this.queue = new ArrayBlockingQueue<>( capacity );
+        this.workerCount = workerCount;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.ticketLifetime = Duration.ofMinutes( ticketMinutes );
+    }
+
+    /**
+     * Starts the workers.
+     */
+    @PostConstruct
+    public void start () {
+        for ( int i = 0; i < workerCount; i++ ) {
+            workers.add( Thread.ofVirtual().name( "fulfillment-" + i ).start( this::work ) );
+        }
+    }
+
+    /**
+     * Stops the workers. Orders still waiting are dropped.
+     */
+    @PreDestroy
+    public void shutdown () {
+        for ( final Thread worker : workers ) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Queues an order for fulfillment. An order that is already queued or
+     * being fulfilled keeps its ticket.
+     *
+     * @param orderId
+     *            id of the order
+     * @return the order's ticket
+     * @throws IllegalStateException
+     *             if the queue is full
+     */
+    public FulfillmentTicketDto submit ( final long orderId ) {
+        final Ticket ticket = new Ticket( UUID.randomUUID().toString(), orderId );
+        final Ticket existing = active.putIfAbsent( orderId, ticket );
+        if ( existing != null ) {
+            return existing.toDto();
+        }
+        tickets.put( ticket.id, ticket );
+        if ( !queue.offer( ticket ) ) {
+            tickets.remove( ticket.id );
+            active.remove( orderId, ticket );
+            throw new IllegalStateException( "The fulfillment queue is full" );
+        }
+        return ticket.toDto();
+    }
+
+    /**
+     * Returns the current state of a ticket.
+     *
+     * @param ticketId
+     *            ticket id
+     * @return the ticket, or null if it is unknown or has expired
+     */
+    public FulfillmentTicketDto getTicket ( final String ticketId ) {
+        final Ticket ticket = tickets.get( ticketId );
+        return ticket == null ? null : ticket.toDto();
+    }
+
+    /**
+     * Drops the tickets that finished more than the ticket lifetime ago.
+     * Runs periodically.
+     */
+    @Scheduled ( fixedDelayString = "${app.fulfillment-queue.sweep-interval-ms:60000}" )
+    public void removeExpired () {
+        final Instant cutoff = Instant.now().minus( ticketLifetime );
+        tickets.values().removeIf( ticket -> ticket.isFinishedBefore( cutoff ) );
+    }
+
+    /**
+     * Takes orders from the queue and fulfills them until interrupted.
+     */
+    private void work () {
+        while ( !Thread.currentThread().isInterrupted() ) {
+            final Ticket ticket;
+            try {
+                ticket = queue.take();
+            }
+            catch ( final InterruptedException e ) {
+                return;
+            }
+            try {
+                fulfill( ticket );
+            }
+            finally {
+                active.remove( ticket.orderId, ticket );
+            }
+        }
+    }
+
+    /**
+     * Fulfills one order, retrying transient failures.
+     *
+     * @param ticket
+     *            the order's ticket
+     */
+    private void fulfill ( final Ticket ticket ) {
+        for ( int attempt = 1;; attempt++ ) {
+            ticket.update( RUNNING, attempt, null );
+            try {
+                orderService.fulfillOrder( ticket.orderId );
+                ticket.update( FULFILLED, attempt, null );
+                return;
+            }
+            catch ( final TransientDataAccessException e ) {
+                if ( attempt >= maxAttempts ) {
+                    ticket.update( FAILED, attempt, e.getMessage() );
+                    return;
+                }
+            }
+            catch ( final RuntimeException e ) {
+                ticket.update( FAILED, attempt, e.getMessage() );
+                return;
+            }
+            try {
+                Thread.sleep( retryBackoff << ( attempt - 1 ) );
+            }
+            catch ( final InterruptedException e ) {
+                ticket.update( FAILED, attempt, "Fulfillment was interrupted" );
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A queued order and its current state.
+     */
+    private static final class Ticket {
+
+        /** Ticket id */
+        private final String id;
+
+        /** Order id */
+        private final Long   orderId;
+
+        /** Current status */
+        private String       status = QUEUED;
+
+        /** Attempts made */
+        private int          attempts;
+
+        /** Reason for a failure */
+        private String       error;
+
+        /** When the ticket finished, or null */
+        private Instant      finishedAt;
+
+        /**
+         * Creates a queued ticket.
+         *
+         * @param id
+         *            ticket id
+         * @param orderId
+         *            order id
+         */
+        private Ticket ( final String id, final Long orderId ) {
+            this.id = id;
+            this.orderId = orderId;
+        }
+
+        /**
+         * Moves the ticket to a new state.
+         *
+         * @param status
+         *            new status
+         * @param attempts
+         *            attempts made
+         * @param error
+         *            reason for a failure, or null
+         */
+        private synchronized void update ( final String status, final int attempts, final String error ) {
+            this.status = status;
+            this.attempts = attempts;
+            this.error = error;
+            if ( FULFILLED.equals( status ) || FAILED.equals( status ) ) {
+                finishedAt = Instant.now();
+            }
+        }
+
+        /**
+         * Returns true if the ticket finished before a point in time.
+         *
+         * @param time
+         *            point in time
+         * @return true if finished before it
+         */
+        private synchronized boolean isFinishedBefore ( final Instant time ) {
+            return finishedAt != null && finishedAt.isBefore( time );
+        }
+
+        /**
+         * Returns a snapshot of the ticket.
+         *
+         * @return the ticket's state
+         */
+        private synchronized FulfillmentTicketDto toDto () {
+            return new FulfillmentTicketDto( id, orderId, status, attempts, error );
+        }
+    }
+}
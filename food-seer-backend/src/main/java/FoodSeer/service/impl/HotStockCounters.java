@@ -0,0 +1,357 @@
+package FoodSeer.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.entity.Food;
+import FoodSeer.entity.StockJournalEntry;
+import FoodSeer.mapper.FoodMapper;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.StockJournalRepository;
+import jakarta.transaction.Transactional;
+
+/**
+ * Optional in-memory stock for a few configured hot foods, so that busy
+ * items do not serialize every fulfillment on their foods row.
+ *
+ * The stock of each hot food is split across striped atomic counters, and a
+ * fulfillment takes its units from a random stripe first, so concurrent
+ * fulfillments rarely touch the same counter and never wait on a lock. Each
+ * decrement is recorded in the stock_journal table in the fulfillment's own
+ * transaction (an insert, which does not contend), and a scheduled flush
+ * writes the committed entries back to foods.amount in one batch and deletes
+ * exactly those entries; ids are not handed out in commit order, so entries
+ * still being written are left for the next flush. After a restart the
+ * counters start from the amount minus the unflushed journal, so no
+ * committed decrement is lost.
+ *
+ * Until the next flush the amount stored on a hot food can be higher than
+ * its real stock. Writes to a hot food (an admin edit, an inventory update)
+ * drop its counters, which are reloaded on next use; the edit replaces the
+ * amount the pending journal is then subtracted from. If an edit leaves a
+ * food with fewer units than its journal, the flush does not write the
+ * oversold units back; they stay in the journal, keeping the counters at
+ * zero, until the food is restocked.
+ */
+@Component
+public class HotStockCounters {
+
+    /** Most journal entries written back by one flush */
+    private static final int             FLUSH_BATCH = 10000;
+
+    /** Whether hot stock is enabled at all */
+    private final boolean                enabled;
+
+    /** Normalized names of the hot foods */
+    private final Set<String>            hotNames    = new HashSet<>();
+
+    /** Counters per stock */
+    private final int                    stripes;
+
+    /** Stock of each hot food in use, by food id */
+    private final Map<Long, StripedStock> stocks      = new ConcurrentHashMap<>();
+
+    /** Foods, to load stock and write the journal back */
+    @Autowired
+    private FoodRepository               foodRepository;
+
+    /** Decrements not yet written to the foods */
+    @Autowired
+    private StockJournalRepository       stockJournalRepository;
+
+    /** Publishes the foods whose journal was written back */
+    @Autowired
+    private ApplicationEventPublisher    eventPublisher;
+
+    /**
+     * Creates the counters.
+     *
+     * @param enabled
+     *            false to treat every food as a normal food
+     * @param foods
+     *            comma separated names of the hot foods
+     */
+    public HotStockCounters ( @Value ( "${app.hot-stock.enabled:false}" ) final boolean enabled,
+            @Value ( "${app.hot-stock.foods:}" ) final String foods ) {
+        this.enabled = enabled;
+        for ( final String name : foods.split( "," ) ) {
+            if ( !name.trim().isEmpty() ) {
+                hotNames.add( FoodMapper.normalizeName( name ) );
+            }
+        }
+        this.stripes = Integer.highestOneBit( Math.max( 1, Runtime.getRuntime().availableProcessors() ) * 2 );
+    }
+
+    /**
+     * Returns true if the food's stock is kept here.
+     *
+     * @param food
+     *            the food
+     * @return true for a hot food
+     */
+    public boolean isHot ( final Food food ) {
+        return enabled && food.getId() != null && hotNames.contains( food.getFoodName() );
+    }
+
+    /**
+     * Returns the units of a food in stock: its counters if it is hot, its
+     * stored amount otherwise.
+     *
+     * @param food
+     *            the food
+     * @return units in stock
+     */
+    public int stockOf ( final Food food ) {
+        return isHot( food ) ? amount( food.getId() ) : food.getAmount();
+    }
+
+    /**
+     * Returns the current stock of a hot food.
+     *
+     * @param foodId
+     *            food id
+     * @return units in stock
+     */
+    public int amount ( final Long foodId ) {
+        return stock( foodId ).sum();
+    }
+
+    /**
+     * Takes units out of a hot food's stock if that many are left, and
+     * journals the decrement in the current transaction. If the transaction
+     * rolls back the units are put back.
+     *
+     * @param foodId
+     *            food id
+     * @param quantity
+     *            units to take out
+     * @return true if the units were taken, false if not enough are left
+     */
+    public boolean take ( final Long foodId, final int quantity ) {
+        return takeAll( Map.of( foodId, quantity ) ) == null;
+    }
+
+    /**
+     * Takes units out of the stock of several hot foods, all or nothing, and
+     * journals the decrements in the current transaction. If the
+     * transaction rolls back the units are put back.
+     *
+     * @param quantities
+     *            units to take out, by food id
+     * @return the id of a food without enough units left, in which case
+     *         nothing was taken, or null if every unit was taken
+     */
+    public Long takeAll ( final Map<Long, Integer> quantities ) {
+        final Map<StripedStock, Integer> taken = new HashMap<>();
+        for ( final Map.Entry<Long, Integer> entry : quantities.entrySet() ) {
+            final StripedStock stock = stock( entry.getKey() );
+            if ( !stock.take( entry.getValue() ) ) {
+                taken.forEach( StripedStock::give );
+                return entry.getKey();
+            }
+            taken.put( stock, entry.getValue() );
+        }
+        AfterTransaction.onRollback( () -> taken.forEach( StripedStock::give ) );
+        final List<StockJournalEntry> entries = new ArrayList<>( quantities.size() );
+        for ( final Map.Entry<Long, Integer> entry : quantities.entrySet() ) {
+            entries.add( new StockJournalEntry( entry.getKey(), entry.getValue() ) );
+        }
+        stockJournalRepository.saveAll( entries );
+        return null;
+    }
+
+    /**
+     * Drops the counters of a food that was edited or deleted, so the edit's
+     * amount is used from then on. Stock taken by fulfillments is already
+     * in the counters.
+     *
+     * @param event
+     *            the write
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( event.kind() != FoodChangedEvent.Kind.STOCK_TAKEN && hotNames.contains( event.foodName() ) ) {
+            forget( event.foodId() );
+        }
+    }
+
+    /**
+     * Drops the counters of a food once the current transaction completes,
+     * so they are reloaded from the database on next use.
+     *
+     * @param foodId
+     *            food id
+     */
+    public void forget ( final Long foodId ) {
+        if ( !enabled || foodId == null ) {
+            return;
+        }
+        stocks.remove( foodId );
+        AfterTransaction.onCompletion( () -> stocks.remove( foodId ) );
+    }
+
+    /**
+     * Writes the committed journal entries back to the foods in one batch
+     * and deletes them from the journal. Only the entries read are deleted.
+     * The entries of a food with fewer units than they take out are kept;
+     * those of a deleted food are dropped. Runs periodically.
+     */
+    @Scheduled ( fixedDelayString = "${app.hot-stock.flush-interval-ms:1000}" )
+    @Transactional
+    public void flush () {
+        final List<StockJournalEntry> entries = stockJournalRepository
+                .findAllByOrderByIdAsc( PageRequest.of( 0, FLUSH_BATCH ) );
+        if ( entries.isEmpty() ) {
+            return;
+        }
+        final Map<Long, Integer> quantities = new HashMap<>();
+        final Map<Long, List<Long>> entryIds = new HashMap<>();
+        for ( final StockJournalEntry entry : entries ) {
+            quantities.merge( entry.getFoodId(), entry.getQuantity(), Math::addExact );
+            entryIds.computeIfAbsent( entry.getFoodId(), id -> new ArrayList<>() ).add( entry.getId() );
+        }
+
+        final List<Long> foodIds = new ArrayList<>();
+        final List<Long> applied = new ArrayList<>();
+        for ( final Map.Entry<Long, Integer> change : quantities.entrySet() ) {
+            if ( foodRepository.decrementAmount( change.getKey(), change.getValue() ) == 1 ) {
+                foodIds.add( change.getKey() );
+                applied.addAll( entryIds.get( change.getKey() ) );
+            }
+            else if ( !foodRepository.existsById( change.getKey() ) ) {
+                applied.addAll( entryIds.get( change.getKey() ) );
+            }
+        }
+        stockJournalRepository.deleteAllByIdInBatch( applied );
+
+        // The bulk updates bypass the entity listener
+        for ( final Food food : foodRepository.findAllById( foodIds ) ) {
+            eventPublisher.publishEvent( FoodChangedEvent.stockTaken( food, stockOf( food ) ) );
+        }
+    }
+
+    /**
+     * Returns the stock of a hot food, loading it on first use.
+     *
+     * @param foodId
+     *            food id
+     * @return the food's stock
+     */
+    private StripedStock stock ( final Long foodId ) {
+        final StripedStock cached = stocks.get( foodId );
+        if ( cached != null ) {
+            return cached;
+        }
+        // loaded outside the map, so the queries do not hold up other foods
+        final int amount = foodRepository.findById( foodId ).map( Food::getAmount ).orElse( 0 );
+        final long journaled = stockJournalRepository.sumQuantityByFoodId( foodId );
+        final StripedStock loaded = new StripedStock( (int) Math.max( 0, amount - journaled ), stripes );
+        final StripedStock raced = stocks.putIfAbsent( foodId, loaded );
+        return raced != null ? raced : loaded;
+    }
+
+    /**
+     * Stock of one food split across counters. Counters are spaced apart in
+     * the array so that neighbors do not share a cache line.
+     */
+    private static final class StripedStock {
+
+        /** Array slots between two counters */
+        private static final int         SPACING = 16;
+
+        /** The counters, one every SPACING slots */
+        private final AtomicIntegerArray counters;
+
+        /** Number of counters */
+        private final int                size;
+
+        /**
+         * Creates the stock, spread evenly over the counters.
+         *
+         * @param amount
+         *            units in stock
+         * @param size
+         *            number of counters
+         */
+        private StripedStock ( final int amount, final int size ) {
+            this.size = size;
+            this.counters = new AtomicIntegerArray( size * SPACING );
+            for ( int i = 0; i < size; i++ ) {
+                counters.set( i * SPACING, amount / size + ( i < amount % size ? 1 : 0 ) );
+            }
+        }
+
+        /**
+         * Returns the units in stock.
+         *
+         * @return sum of the counters
+         */
+        private int sum () {
+            int sum = 0;
+            for ( int i = 0; i < size; i++ ) {
+                sum += counters.get( i * SPACING );
+            }
+            return sum;
+        }
+
+        /**
+         * Takes units from the counters, starting at a random one. If the
+         * counters do not hold enough units together, the units taken so
+         * far are put back.
+         *
+         * @param quantity
+         *            units to take
+         * @return true if every unit was taken
+         */
+        private boolean take ( final int quantity ) {
+            final int start = ThreadLocalRandom.current().nextInt( size );
+            int taken = 0;
+            for ( int i = 0; i < size && taken < quantity; i++ ) {
+                final int slot = ( ( start + i ) % size ) * SPACING;
+                while ( true ) {
+                    final int units = counters.get( slot );
+                    if ( units <= 0 ) {
+                        break;
+                    }
+                    final int part = Math.min( units, quantity - taken );
+                    if ( counters.compareAndSet( slot, units, units - part ) ) {
+                        taken += part;
+                        break;
+                    }
+                }
+            }
+            if ( taken < quantity ) {
+                give( taken );
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Puts units back on a random counter.
+         *
+         * @param quantity
+         *            units to put back
+         */
+        private void give ( final int quantity ) {
+            if ( quantity > 0 ) {
+                counters.addAndGet( ThreadLocalRandom.current().nextInt( size ) * SPACING, quantity );
+            }
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package FoodSeer.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Remembers the response to each request made with an Idempotency-Key
+ * header, so a client that retries after losing the response gets the first
+ * response back instead of creating or fulfilling an order twice.
+ *
+ * Keys are scoped to the user and the operation. The first request with a
+ * key runs; while it runs, other requests with the key get 409 Conflict.
+ * Once it finishes, its status and body are kept for the key lifetime and
+ * replayed, with an Idempotent-Replayed header, to every later request with
+ * the key without running the operation again. Responses with a 5xx status
+ * and operations that throw are not kept, so the request may be retried.
+ * Each key also keeps a SHA-256 fingerprint of the request body, and a
+ * request reusing the key with a different body gets 422 Unprocessable
+ * Entity instead of another request's response.
+ *
+ * Responses are kept in memory, in a map bounded by evicting the least
+ * recently used key. With app.idempotency.shared set, keys are also claimed
+ * and their responses stored in the idempotency_keys table with plain JDBC,
+ * so retries reaching another instance are answered too; the map then only
+ * saves database reads. A claim is leased: one older than the lease belongs
+ * to a request whose instance died before storing a response, and is taken
+ * over by the next request with the key. A periodic sweep drops expired
+ * keys from both.
+ */
+@Component
+public class IdempotencyStore {
+
+    /** Request header carrying the key */
+    public static final String       KEY_HEADER      = "Idempotency-Key";
+
+    /** Response header marking a replayed response */
+    public static final String       REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /** Longest key accepted */
+    public static final int          MAX_KEY_LENGTH  = 255;
+
+    /** Claims a key, with status 0 until the response is stored */
+    private static final String      INSERT_CLAIM    = "INSERT INTO idempotency_keys ( idem_key, status, body, fingerprint, created_at ) VALUES ( ?, 0, NULL, ?, ? )";
+
+    /** Stores the response of a claimed key */
+    private static final String      UPDATE_RESPONSE = "UPDATE idempotency_keys SET status = ?, body = ? WHERE idem_key = ?";
+
+    /** Reads a key */
+    private static final String      SELECT_KEY      = "SELECT status, body, fingerprint, created_at FROM idempotency_keys WHERE idem_key = ?";
+
+    /** Releases a key */
+    private static final String      DELETE_KEY      = "DELETE FROM idempotency_keys WHERE idem_key = ?";
+
+    /** Releases a claim whose lease ran out */
+    private static final String      DELETE_LAPSED   = "DELETE FROM idempotency_keys WHERE idem_key = ? AND status = 0 AND created_at < ?";
+
+    /** Drops expired keys */
+    private static final String      DELETE_EXPIRED  = "DELETE FROM idempotency_keys WHERE created_at < ?";
+
+    /** Plain JDBC access to the shared table */
+    @Autowired
+    private JdbcTemplate             jdbcTemplate;
+
+    /** Writes and reads the stored bodies */
+    @Autowired
+    private ObjectMapper             objectMapper;
+
+    /** Whether keys are shared through the database */
+    private final boolean            shared;
+
+    /** How long a key is remembered */
+    private final Duration           lifetime;
+
+    /** How long a claim holds a key before it is taken as abandoned */
+    private final Duration           lease;
+
+    /** Stored responses by scoped key, least recently used first, guarded by itself */
+    private final Map<String, Entry> responses;
+
+    /** Scoped keys whose request is running on this instance */
+    private final Set<String>        running         = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates the store.
+     *
+     * @param shared
+     *            whether keys are shared through the database
+     * @param ttlMinutes
+     *            how long a key is remembered, in minutes
+     * @param maxEntries
+     *            most responses kept in memory
+     * @param leaseSeconds
+     *            how long a claim holds a key, in seconds; longer than any
+     *            request takes
+     */
+    public IdempotencyStore ( @Value ( "${app.idempotency.shared:false}" ) final boolean shared,
+            @Value ( "${app.idempotency.ttl-minutes:1440}" ) final long ttlMinutes,
+            @Value ( "${app.idempotency.max-entries:10000}" ) final int maxEntries,
+            @Value ( "${app.idempotency.lease-seconds:300}" ) final long leaseSeconds ) {
+        this.shared = shared;
+        this.lifetime = Duration.ofMinutes( ttlMinutes );
+        this.lease = Duration.ofSeconds( leaseSeconds );
+        this.responses = new LinkedHashMap<>( 16, 0.75f, true ) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry ( final Map.Entry<String, Entry> eldest ) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Runs an operation once per key. Without a key, the operation simply
+     * runs.
+     *
+     * @param <T>
+     *            type of the response body
+     * @param operation
+     *            name of the operation, which scopes the key
+     * @param key
+     *            the client's key, or null
+     * @param request
+     *            the request body, fingerprinted to detect a reused key
+     * @param type
+     *            type of the response body, to read a stored body back
+     * @param action
+     *            the operation
+     * @return the operation's response; the stored response if the key was
+     *         used before; 409 if a request with the key is still running;
+     *         422 if the key was used with a different request body; or 400
+     *         if the key is blank or too long
+     */
+    public <T> ResponseEntity<T> execute ( final String operation, final String key, final Object request,
+            final Class<T> type, final Supplier<ResponseEntity<T>> action ) {
+        if ( key == null ) {
+            return action.get();
+        }
+        if ( key.isBlank() || key.length() > MAX_KEY_LENGTH ) {
+            return new ResponseEntity<>( HttpStatus.BAD_REQUEST );
+        }
+        final String scoped = scope( operation, key );
+        final String fingerprint = fingerprint( request );
+
+        final Entry stored = lookup( scoped );
+        if ( stored != null ) {
+            return answer( stored, fingerprint, type );
+        }
+        if ( !running.add( scoped ) ) {
+            return new ResponseEntity<>( HttpStatus.CONFLICT );
+        }
+        try {
+            if ( shared && !claim( scoped, fingerprint ) ) {
+                // another instance claimed the key since the lookup
+                final Entry winner = lookup( scoped );
+                return winner == null ? new ResponseEntity<>( HttpStatus.CONFLICT )
+                        : answer( winner, fingerprint, type );
+            }
+            final ResponseEntity<T> response;
+            try {
+                response = action.get();
+            }
+            catch ( final RuntimeException e ) {
+                release( scoped );
+                throw e;
+            }
+            if ( response.getStatusCode().is5xxServerError() ) {
+                release( scoped );
+            }
+            else {
+                store( scoped, fingerprint, response );
+            }
+            return response;
+        }
+        finally {
+            running.remove( scoped );
+        }
+    }
+
+    /**
+     * Drops expired keys. Runs periodically.
+     */
+    @Scheduled ( fixedDelayString = "${app.idempotency.sweep-interval-ms:600000}" )
+    public void removeExpired () {
+        final Instant cutoff = Instant.now().minus( lifetime );
+        synchronized ( responses ) {
+            responses.values().removeIf( entry -> entry.createdAt.isBefore( cutoff ) );
+        }
+        if ( shared ) {
+            jdbcTemplate.update( DELETE_EXPIRED, Timestamp.from( cutoff ) );
+        }
+    }
+
+    /**
+     * Answers a request whose key is already in use.
+     *
+     * @param <T>
+     *            type of the response body
+     * @param entry
+     *            the key's entry
+     * @param fingerprint
+     *            fingerprint of the request
+     * @param type
+     *            type of the response body
+     * @return 422 if the key was used for another request, 409 if its
+     *         request is still running, or else the stored response
+     */
+    private <T> ResponseEntity<T> answer ( final Entry entry, final String fingerprint, final Class<T> type ) {
+        if ( entry.fingerprint != null && !entry.fingerprint.equals( fingerprint ) ) {
+            return new ResponseEntity<>( HttpStatus.UNPROCESSABLE_ENTITY );
+        }
+        return entry.status == 0 ? new ResponseEntity<>( HttpStatus.CONFLICT ) : replay( entry, type );
+    }
+
+    /**
+     * Finds the unexpired entry of a key, in memory or else in the shared
+     * table. A completed entry read from the table is kept in memory; a
+     * claim older than the lease is released.
+     *
+     * @param scoped
+     *            scoped key
+     * @return the entry, or null
+     */
+    private Entry lookup ( final String scoped ) {
+        final Instant cutoff = Instant.now().minus( lifetime );
+        synchronized ( responses ) {
+            final Entry entry = responses.get( scoped );
+            if ( entry != null && !entry.createdAt.isBefore( cutoff ) ) {
+                return entry;
+            }
+        }
+        if ( !shared ) {
+            return null;
+        }
+        final List<Entry> rows = jdbcTemplate.query( SELECT_KEY, ( rs, rowNum ) -> new Entry( rs.getInt( "status" ),
+                rs.getString( "body" ), rs.getString( "fingerprint" ), rs.getTimestamp( "created_at" ).toInstant() ),
+                scoped );
+        if ( rows.isEmpty() ) {
+            return null;
+        }
+        final Entry entry = rows.get( 0 );
+        if ( entry.createdAt.isBefore( cutoff ) ) {
+            // not swept yet; free the key for this request
+            jdbcTemplate.update( DELETE_KEY, scoped );
+            return null;
+        }
+        final Instant leaseCutoff = Instant.now().minus( lease );
+        if ( entry.status == 0 && entry.createdAt.isBefore( leaseCutoff ) ) {
+            // its request died without storing a response; free the key
+            jdbcTemplate.update( DELETE_LAPSED, scoped, Timestamp.from( leaseCutoff ) );
+            return null;
+        }
+        if ( entry.status != 0 ) {
+            synchronized ( responses ) {
+                responses.put( scoped, entry );
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Claims a key in the shared table.
+     *
+     * @param scoped
+     *            scoped key
+     * @param fingerprint
+     *            fingerprint of the request
+     * @return false if the key is already claimed
+     */
+    private boolean claim ( final String scoped, final String fingerprint ) {
+        try {
+            jdbcTemplate.update( INSERT_CLAIM, scoped, fingerprint, Timestamp.from( Instant.now() ) );
+            return true;
+        }
+        catch ( final DuplicateKeyException e ) {
+            return false;
+        }
+    }
+
+    /**
+     * Releases a claimed key, so the request may be retried.
+     *
+     * @param scoped
+     *            scoped key
+     */
+    private void release ( final String scoped ) {
+        if ( shared ) {
+            jdbcTemplate.update( DELETE_KEY, scoped );
+        }
+    }
+
+    /**
+     * Stores a response for a key. A body that cannot be written releases
+     * the key instead.
+     *
+     * @param scoped
+     *            scoped key
+     * @param fingerprint
+     *            fingerprint of the request
+     * @param response
+     *            the response
+     */
+    private void store ( final String scoped, final String fingerprint, final ResponseEntity<?> response ) {
+        final String body;
+        try {
+            body = response.hasBody() ? objectMapper.writeValueAsString( response.getBody() ) : null;
+        }
+        catch ( final JsonProcessingException e ) {
+            release( scoped );
+            return;
+        }
+        final Entry entry = new Entry( response.getStatusCode().value(), body, fingerprint, Instant.now() );
+        synchronized ( responses ) {
+            responses.put( scoped, entry );
+        }
+        if ( shared ) {
+            jdbcTemplate.update( UPDATE_RESPONSE, entry.status, body, scoped );
+        }
+    }
+
+    /**
+     * Rebuilds a stored response.
+     *
+     * @param <T>
+     *            type of the response body
+     * @param entry
+     *            the stored response
+     * @param type
+     *            type of the response body
+     * @return the response, marked as replayed
+     */
+    private <T> ResponseEntity<T> replay ( final Entry entry, final Class<T> type ) {
+        final T body;
+        try {
+            body = entry.body == null ? null : objectMapper.readValue( entry.body, type );
+        }
+        catch ( final JsonProcessingException e ) {
+            throw new IllegalStateException( "Stored response cannot be read", e );
+        }
+        return ResponseEntity.status( entry.status ).header( REPLAYED_HEADER, "true" ).body( body );
+    }
+
+    /**
+     * Scopes a key to the current user and an operation, hashed to a fixed
+     * length.
+     *
+     * @param operation
+     *            name of the operation
+     * @param key
+     *            the client's key
+     * @return the scoped key
+     */
+    private static String scope ( final String operation, final String key ) {
+        final Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        final String user = auth == null ? "" : auth.getName();
+        return sha256( ( user + '\0' + operation + '\0' + key ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Fingerprints a request body by hashing its JSON.
+     *
+     * @param request
+     *            the request body, may be null
+     * @return the fingerprint
+     */
+    private String fingerprint ( final Object request ) {
+        try {
+            return sha256( objectMapper.writeValueAsBytes( request ) );
+        }
+        catch ( final JsonProcessingException e ) {
+            throw new IllegalArgumentException( "Request cannot be fingerprinted", e );
+        }
+    }
+
+    /**
+     * Hashes bytes with SHA-256.
+     *
+     * @param bytes
+     *            bytes to hash
+     * @return the hash in hex
+     */
+    private static String sha256 ( final byte[] bytes ) {
+        try {
+            return HexFormat.of().formatHex( MessageDigest.getInstance( "SHA-256" ).digest( bytes ) );
+        }
+        catch ( final NoSuchAlgorithmException e ) {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * A key's stored response.
+     *
+     * @param status
+     *            HTTP status, or 0 while the request is running
+     * @param body
+     *            JSON body, or null
+     * @param fingerprint
+     *            fingerprint of the request, or null for rows stored before
+     *            requests were fingerprinted
+     * @param createdAt
+     *            when the key was first used
+     */
+    private record Entry ( int status, String body, String fingerprint, Instant createdAt ) {
+    }
+}
@@ -0,0 +1,299 @@
+package FoodSeer.service.impl;
+
+import java.sql.PreparedStatement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import FoodSeer.dto.InventoryChangeDto;
+import FoodSeer.dto.InventoryChangesDto;
+import FoodSeer.entity.InventoryChange;
+import FoodSeer.repositories.InventoryChangeRepository;
+import jakarta.transaction.Transactional;
+
+/**
+ * Append-only ledger of inventory changes, so clients can keep a copy of the
+ * inventory by fetching only what changed since their last sync.
+ *
+ * Every FoodChangedEvent, and so every write to a food's amount or price,
+ * inserts an entry with the food's new values in the transaction of the
+ * write. Entries are inserted with plain JDBC, which is safe while
+ * Hibernate is flushing.
+ *
+ * Sequence numbers are handed out at insert, not at commit, so a later
+ * entry can commit before an earlier one. Reads therefore stop below the
+ * oldest entry whose transaction is still open, and at the highest sequence
+ * number handed out when the read began, so an entry inserted during the
+ * read cannot be skipped; a client never moves past a sequence number that
+ * may still appear. A periodic compaction deletes every entry a newer entry
+ * of the same food supersedes, which keeps the ledger at about one entry
+ * per food without losing anything a client needs.
+ */
+@Component
+public class InventoryLedger {
+
+    /** Inserts one entry */
+    private static final String       INSERT_CHANGE = "INSERT INTO inventory_changes ( food_id, food_name, amount, price, deleted ) VALUES ( ?, ?, ?, ?, ? )";
+
+    /** Highest sequence number handed out and visible to the reader */
+    private static final String       MAX_SEQ       = "SELECT COALESCE(MAX(id), 0) FROM inventory_changes";
+
+    /** Adds an entry for every food that has none yet */
+    private static final String       SEED_CHANGES  = "INSERT INTO inventory_changes ( food_id, food_name, amount, price, deleted ) "
+            + "SELECT f.id, f.food_name, f.amount, f.price, FALSE FROM foods f "
+            + "WHERE NOT EXISTS ( SELECT 1 FROM inventory_changes c WHERE c.food_id = f.id )";
+
+    /** Most entries returned by one read */
+    public static final int           MAX_LIMIT     = 10000;
+
+    /** Superseded entries deleted per batch during compaction */
+    private static final int          COMPACT_BATCH = 1000;
+
+    /** Plain JDBC access for the inserts */
+    @Autowired
+    private JdbcTemplate              jdbcTemplate;
+
+    /** The ledger, for reads and compaction */
+    @Autowired
+    private InventoryChangeRepository inventoryChangeRepository;
+
+    /** Entries returned by a read without a limit */
+    private final int                 defaultLimit;
+
+    /** Sequence numbers of entries whose transaction is still open */
+    private final NavigableSet<Long>  pending       = new ConcurrentSkipListSet<>();
+
+    /**
+     * Shared by inserts, exclusive for reads, so a read never runs between
+     * an insert and the registration of its sequence number
+     */
+    private final ReadWriteLock       lock          = new ReentrantReadWriteLock();
+
+    /**
+     * Creates the ledger.
+     *
+     * @param defaultLimit
+     *            entries returned by a read without a limit
+     */
+    public InventoryLedger ( @Value ( "${app.inventory-changes.default-limit:1000}" ) final int defaultLimit ) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    /**
+     * Records a written or deleted food, in the writing transaction so the
+     * entry commits or rolls back with the write.
+     *
+     * @param event
+     *            the write
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( event.isDeleted() ) {
+            recordDeleted( event.foodId(), event.foodName() );
+        }
+        else {
+            record( event.foodId(), event.foodName(), event.amount(), event.price() );
+        }
+    }
+
+    /**
+     * Records a food's amount and price after a write.
+     *
+     * @param foodId
+     *            food id
+     * @param foodName
+     *            food name
+     * @param amount
+     *            units in stock
+     * @param price
+     *            price
+     */
+    public void record ( final Long foodId, final String foodName, final int amount, final int price ) {
+        insert( foodId, foodName, amount, price, false );
+    }
+
+    /**
+     * Records the deletion of a food.
+     *
+     * @param foodId
+     *            food id
+     * @param foodName
+     *            food name
+     */
+    public void recordDeleted ( final Long foodId, final String foodName ) {
+        insert( foodId, foodName, 0, 0, true );
+    }
+
+    /**
+     * Returns the changes after a sequence number, oldest first.
+     *
+     * @param since
+     *            sequence number the client has seen, 0 for everything
+     * @param limit
+     *            most changes to return, null for the default
+     * @return the changes and the sequence number to sync from next
+     * @throws IllegalArgumentException
+     *             if since is negative or limit is not between 1 and
+     *             MAX_LIMIT
+     */
+    public InventoryChangesDto changesSince ( final long since, final Integer limit ) {
+        if ( since < 0 ) {
+            throw new IllegalArgumentException( "The sequence number must be a non-negative integer." );
+        }
+        final int max = limit == null ? defaultLimit : limit;
+        if ( max < 1 || max > MAX_LIMIT ) {
+            throw new IllegalArgumentException( "The limit must be between 1 and " + MAX_LIMIT + "." );
+        }
+
+        if ( TransactionSynchronizationManager.isActualTransactionActive() ) {
+            // write out this transaction's pending food changes, and with them their entries
+            inventoryChangeRepository.flush();
+        }
+        final long upTo = readHorizon();
+        final List<InventoryChange> rows = inventoryChangeRepository.findChanges( since, upTo,
+                PageRequest.of( 0, max + 1 ) );
+        final boolean hasMore = rows.size() > max;
+        final List<InventoryChangeDto> changes = rows.stream().limit( max )
+                .map( c -> new InventoryChangeDto( c.getId(), c.getFoodId(), c.getFoodName(), c.getAmount(),
+                        c.getPrice(), c.isDeleted() ) )
+                .toList();
+        final long latest = changes.isEmpty() ? since : changes.get( changes.size() - 1 ).seq();
+        return new InventoryChangesDto( latest, hasMore, changes );
+    }
+
+    /**
+     * Adds an entry for every food the ledger does not know yet, e.g. foods
+     * created before the ledger existed, so a sync from 0 returns the whole
+     * inventory.
+     */
+    public void seed () {
+        jdbcTemplate.update( SEED_CHANGES );
+    }
+
+    /**
+     * Deletes the entries that a newer entry of the same food supersedes.
+     * Runs periodically.
+     */
+    @Scheduled ( fixedDelayString = "${app.inventory-changes.compact-interval-ms:3600000}" )
+    @Transactional
+    public void compact () {
+        List<Long> ids = inventoryChangeRepository.findSupersededIds( PageRequest.of( 0, COMPACT_BATCH ) );
+        while ( !ids.isEmpty() ) {
+            inventoryChangeRepository.deleteAllByIdInBatch( ids );
+            ids = inventoryChangeRepository.findSupersededIds( PageRequest.of( 0, COMPACT_BATCH ) );
+        }
+    }
+
+    /**
+     * Inserts an entry and keeps its sequence number pending until its
+     * transaction completes.
+     *
+     * @param foodId
+     *            food id
+     * @param foodName
+     *            food name
+     * @param amount
+     *            units in stock
+     * @param price
+     *            price
+     * @param deleted
+     *            true for a deletion
+     */
+    private void insert ( final Long foodId, final String foodName, final int amount, final int price,
+            final boolean deleted ) {
+        if ( foodId == null ) {
+            return;
+        }
+        final boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        final long seq;
+        lock.readLock().lock();
+        try {
+            jdbcTemplate.update( con -> {
+                final PreparedStatement ps = con.prepareStatement( INSERT_CHANGE, new String[] { "id" } );
+                ps.setLong( 1, foodId );
+                ps.setString( 2, foodName );
+                ps.setInt( 3, amount );
+                ps.setInt( 4, price );
+                ps.setBoolean( 5, deleted );
+                return ps;
+            }, keyHolder );
+            seq = keyHolder.getKey().longValue();
+            if ( inTransaction ) {
+                pending.add( seq );
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        if ( inTransaction ) {
+            ownEntries().add( seq );
+        }
+    }
+
+    /**
+     * Returns the sequence numbers this transaction inserted, registering
+     * their release on completion the first time.
+     *
+     * @return this transaction's sequence numbers
+     */
+    @SuppressWarnings ( "unchecked" )
+    private Set<Long> ownEntries () {
+        Set<Long> own = (Set<Long>) TransactionSynchronizationManager.getResource( this );
+        if ( own == null ) {
+            final Set<Long> entries = new HashSet<>();
+            TransactionSynchronizationManager.bindResource( this, entries );
+            AfterTransaction.onCompletion( () -> {
+                TransactionSynchronizationManager.unbindResourceIfPossible( this );
+                pending.removeAll( entries );
+            } );
+            own = entries;
+        }
+        return own;
+    }
+
+    /**
+     * Returns the last sequence number a read may include: the highest one
+     * handed out so far, or just below the oldest entry of another open
+     * transaction if that is lower. The caller's own entries do not hold it
+     * back. Both are read under the write lock, so no insert is between
+     * handing out its sequence number and registering it as pending; every
+     * entry up to the result has completed, apart from the caller's own.
+     *
+     * @return last readable sequence number, 0 if there is none
+     */
+    @SuppressWarnings ( "unchecked" )
+    private long readHorizon () {
+        final Set<Long> own = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (Set<Long>) TransactionSynchronizationManager.getResource( this )
+                : null;
+        lock.writeLock().lock();
+        try {
+            final long assigned = jdbcTemplate.queryForObject( MAX_SEQ, Long.class );
+            for ( final Long seq : pending ) {
+                if ( own == null || !own.contains( seq ) ) {
+                    return Math.min( assigned, seq - 1 );
+                }
+            }
+            return assigned;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -1,35 +1,44 @@
 package FoodSeer.service.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodUpdateDto;
+import FoodSeer.dto.FoodUpdateResultDto;
+import FoodSeer.dto.InventoryChangesDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.LowStockDto;
 import FoodSeer.entity.Food;
-import FoodSeer.entity.Inventory;
-import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.mapper.FoodMapper;
-import FoodSeer.mapper.InventoryMapper;
-import FoodSeer.repositories.InventoryRepository;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.InventoryItem;
 import FoodSeer.service.FoodService;
 import FoodSeer.service.InventoryService;
-import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 
 /**
  * Implementation of the InventoryService interface for FoodSeer.
- * Manages the collection of Food items available in the system.
+ * The inventory is a read-only view over the foods table: every food is in
+ * the inventory, so there is no inventory row or join table to maintain.
  */
 @Service
 public class InventoryServiceImpl implements InventoryService {
 
+    /** Id reported for the inventory, kept for API compatibility */
+    public static final Long INVENTORY_ID = 1L;
+
     /** Connection to the repository to work with the DAO + database */
     @Autowired
-    private InventoryRepository inventoryRepository;
+    private FoodRepository foodRepository;
 
     /**
      * Lazy dependency injection to prevent circular dependency
@@ -39,95 +48,165 @@ public class InventoryServiceImpl implements InventoryService {
     @Lazy
     private FoodService foodService;
 
-    /** Reference to EntityManager */
+    /** Watches stock levels against the reorder thresholds */
+    @Autowired
+    private LowStockWatcher lowStockWatcher;
+
+    /** Ledger of inventory changes for delta sync */
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    /** Version of the catalog, bumped on every inventory write */
     @Autowired
-    private EntityManager entityManager;
+    private CatalogVersion catalogVersion;
 
     /**
-     * Creates the inventory.
+     * Saves the foods of the given inventory, adding new foods and
+     * overwriting the amount, price and allergies of existing ones.
+     *
+     * Foods are matched by name, never by the ids in the payload, and are
+     * written through FoodService, so they are validated and normalized like
+     * any other food. A food listed twice is saved once with its last
+     * values. Each given food is then given the id of its row.
      *
      * @param inventoryDto
      *            The inventory to create
-     * @return The created inventory as a DTO
+     * @return The inventory as a DTO
+     * @throws IllegalArgumentException
+     *             if a food is invalid; nothing is saved then
      */
     @Override
+    @Transactional
     public InventoryDto createInventory(final InventoryDto inventoryDto) {
-        final Inventory inventory = InventoryMapper.mapToInventory(inventoryDto);
-        final Inventory savedInventory = inventoryRepository.saveAndFlush(inventory);
-        return InventoryMapper.mapToInventoryDto(savedInventory);
+        if (inventoryDto.getFoods() != null && !inventoryDto.getFoods().isEmpty()) {
+            final Map<String, Food> byName = new LinkedHashMap<>();
+            for (final Food f : inventoryDto.getFoods()) {
+                final String name = FoodMapper.normalizeName(f.getFoodName());
+                byName.remove(name);
+                byName.put(name, f);
+            }
+            final List<FoodUpdateDto> updates = new ArrayList<>(byName.size());
+            for (final Food f : byName.values()) {
+                updates.add(new FoodUpdateDto(null, f.getFoodName(), f.getAmount(), f.getPrice(), f.getAllergies()));
+            }
+
+            final List<FoodUpdateResultDto> results = foodService.updateFoods(updates);
+            final Map<String, Long> ids = new HashMap<>();
+            int i = 0;
+            for (final Map.Entry<String, Food> entry : byName.entrySet()) {
+                final FoodUpdateResultDto result = results.get(i++);
+                final Food f = entry.getValue();
+                final FoodDto saved;
+                if (FoodUpdateResultDto.UPDATED.equals(result.status())) {
+                    saved = result.food();
+                } else if (FoodUpdateResultDto.NOT_FOUND.equals(result.status())) {
+                    saved = foodService.createFood(
+                            new FoodDto(f.getFoodName(), f.getAmount(), f.getPrice(), f.getAllergies()));
+                } else {
+                    throw new IllegalArgumentException(result.message());
+                }
+                ids.put(entry.getKey(), saved.getId());
+            }
+            for (final Food f : inventoryDto.getFoods()) {
+                f.setId(ids.get(FoodMapper.normalizeName(f.getFoodName())));
+            }
+        }
+        catalogVersion.bump();
+        return getInventory();
     }
 
     /**
-     * Returns the single inventory.
+     * Returns the inventory: the id, name, amount and price of every food,
+     * read with a single projection query.
      *
-     * @return The single inventory as a DTO
+     * @return The inventory as a DTO
      */
     @Override
     public InventoryDto getInventory() {
-        final List<Inventory> inventoryList = inventoryRepository.findAll();
-
-        if (inventoryList.isEmpty()) {
-            // initialize new empty food list in the new inventory
-            final List<Food> foods = new ArrayList<>();
-            final InventoryDto newInventoryDto = new InventoryDto(1L, foods);
-            return createInventory(newInventoryDto);
+        final List<InventoryItem> items = foodRepository.findInventoryByOrderByIdAsc();
+        final List<Food> foods = new ArrayList<>(items.size());
+        for (final InventoryItem item : items) {
+            final Food food = new Food(item.getFoodName(), item.getAmount(), item.getPrice(), new ArrayList<>());
+            food.setId(item.getId());
+            foods.add(food);
         }
-
-        return InventoryMapper.mapToInventoryDto(inventoryList.get(0));
+        return new InventoryDto(INVENTORY_ID, foods);
     }
 
     /**
      * Updates the contents of the inventory.
      *
      * This method does NOT add new foods to the inventory.
-     * It only updates the existing foods' values (amount, price, etc.)
-     * if they already exist in the inventory.
+     * It only updates the existing foods' amounts and prices if they
+     * already exist in the inventory; allergies are left unchanged.
+     *
+     * The payload is indexed by food id (or name when there is no id), so a
+     * food listed twice is updated once with its last values. The affected
+     * foods are then loaded, changed and flushed together through
+     * FoodService.updateFoods, keeping the cost linear in the payload.
      *
      * @param inventoryDto
      *            The inventory data to update
      * @return The updated inventory as a DTO
+     * @throws IllegalArgumentException
+     *             if a food has a negative amount or price; nothing is
+     *             updated then
      */
     @Override
     @Transactional
     public InventoryDto updateInventory(final InventoryDto inventoryDto) {
-
-        final Inventory inventory = inventoryRepository.findById(1L)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Inventory does not exist with id of " + inventoryDto.getId()));
-
-        final List<Integer> indexesToRemove = new ArrayList<>();
-        final List<Food> foodsToAdd = new ArrayList<>();
-
+        final Map<Object, FoodUpdateDto> updates = new LinkedHashMap<>();
         for (final Food f : inventoryDto.getFoods()) {
-            final int size = inventory.getFoods().size();
-            for (int index = 0; index < size; index++) {
-                if (inventory.getFoods().get(index).getFoodName().equals(f.getFoodName())) {
-
-                    // Update existing food item
-                    final FoodDto fDto = foodService.updateFood(f.getFoodName(), f.getAmount(), f.getPrice(), f.getAllergies());
-                    final Food updatedFood = FoodMapper.mapToFood(fDto);
-
-                    // track indexes and updated foods
-                    indexesToRemove.add(index);
-                    foodsToAdd.add(updatedFood);
+            final Object key = f.getId() != null ? f.getId() : FoodMapper.normalizeName(f.getFoodName());
+            updates.remove(key);
+            // the inventory carries only amounts and prices; allergies are kept
+            updates.put(key, new FoodUpdateDto(f.getId(), f.getFoodName(), f.getAmount(), f.getPrice(), null));
+        }
 
-                    FoodMapper.mapToFoodDto(updatedFood);
+        if (!updates.isEmpty()) {
+            for (final FoodUpdateResultDto result : foodService.updateFoods(new ArrayList<>(updates.values()))) {
+                // foods that are not in the inventory are skipped
+                if (FoodUpdateResultDto.INVALID.equals(result.status())) {
+                    throw new IllegalArgumentException(result.message());
                 }
             }
         }
+        catalogVersion.bump();
+        return getInventory();
+    }
 
-        // clear persistence context to prevent detached entity issues
-        entityManager.clear();
+    /**
+     * Returns the foods whose stock is at or below their reorder threshold,
+     * from the LowStockWatcher's list.
+     *
+     * @return the low foods, least stocked first
+     */
+    @Override
+    public List<LowStockDto> getLowStock() {
+        return lowStockWatcher.getLowStock();
+    }
 
-        // apply updates to inventory
-        int num = indexesToRemove.size();
-        while (num > 0) {
-            inventory.getFoods().remove((int) indexesToRemove.get(num - 1));
-            inventory.getFoods().add(foodsToAdd.get(num - 1));
-            num--;
-        }
+    /**
+     * Opens a server-sent event stream of low stock crossings.
+     *
+     * @return the event stream
+     */
+    @Override
+    public SseEmitter streamLowStock() {
+        return lowStockWatcher.subscribe();
+    }
 
-        final Inventory savedInventory = inventoryRepository.save(inventory);
-        return InventoryMapper.mapToInventoryDto(savedInventory);
+    /**
+     * Returns the inventory changes after a sequence number.
+     *
+     * @param since
+     *            sequence number the client has seen, 0 for everything
+     * @param limit
+     *            most changes to return, null for the default
+     * @return the changes, oldest first
+     */
+    @Override
+    public InventoryChangesDto getChanges(final long since, final Integer limit) {
+        return inventoryLedger.changesSince(since, limit);
     }
 }
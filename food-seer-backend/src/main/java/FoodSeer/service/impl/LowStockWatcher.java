@@ -0,0 +1,232 @@
+package FoodSeer.service.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import FoodSeer.dto.LowStockDto;
+import FoodSeer.entity.Food;
+import FoodSeer.repositories.FoodRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the list of foods whose stock is at or below their reorder threshold
+ * and pushes every crossing to subscribed server-sent event streams, so
+ * dashboards do not have to poll the inventory.
+ *
+ * Every FoodChangedEvent reports the food's new amount here. A food going
+ * low is sent as a "low" event and a low food going back above its
+ * threshold as a "restocked" event. The list is built from the database on
+ * first use and changed immediately; events are only sent once the
+ * transaction commits, and a rollback marks the list for a rebuild.
+ */
+@Component
+public class LowStockWatcher extends DerivedState {
+
+    /** Event sent when a food goes low */
+    public static final String                LOW       = "low";
+
+    /** Event sent when a low food is restocked */
+    public static final String                RESTOCKED = "restocked";
+
+    /** Threshold of foods without their own */
+    private final int                         defaultThreshold;
+
+    /** How long a stream stays open, in milliseconds */
+    private final long                        streamTimeout;
+
+    /** Foods, for the initial build */
+    @Autowired
+    private FoodRepository                    foodRepository;
+
+    /** Low foods by id, guarded by this */
+    private final Map<Long, LowStockDto>      low       = new HashMap<>();
+
+    /** Open event streams */
+    private final List<SseEmitter>            emitters  = new CopyOnWriteArrayList<>();
+
+    /** Sends events off the writing thread, in order */
+    private final ExecutorService             sender;
+
+    /**
+     * Creates the watcher.
+     *
+     * @param defaultThreshold
+     *            threshold of foods without their own
+     * @param streamTimeout
+     *            how long a stream stays open, in milliseconds
+     */
+    public LowStockWatcher ( @Value ( "${app.low-stock.default-threshold:5}" ) final int defaultThreshold,
+            @Value ( "${app.low-stock.stream-timeout-ms:1800000}" ) final long streamTimeout ) {
+        this.defaultThreshold = defaultThreshold;
+        this.streamTimeout = streamTimeout;
+        this.sender = Executors.newSingleThreadExecutor( r -> {
+            final Thread thread = new Thread( r, "low-stock-events" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+    }
+
+    /**
+     * Returns the threshold in effect for a food.
+     *
+     * @param reorderThreshold
+     *            the food's own threshold, may be null
+     * @return the threshold
+     */
+    public int thresholdOf ( final Integer reorderThreshold ) {
+        return reorderThreshold == null ? defaultThreshold : reorderThreshold;
+    }
+
+    /**
+     * Returns the foods that are low, least stocked first.
+     *
+     * @return the low foods
+     */
+    public synchronized List<LowStockDto> getLowStock () {
+        ensureBuilt();
+        final List<LowStockDto> foods = new ArrayList<>( low.values() );
+        foods.sort( Comparator.comparingInt( LowStockDto::amount ).thenComparing( LowStockDto::foodName ) );
+        return foods;
+    }
+
+    /**
+     * Opens an event stream of low stock crossings.
+     *
+     * @return the stream
+     */
+    public SseEmitter subscribe () {
+        synchronized ( this ) {
+            ensureBuilt();
+        }
+        final SseEmitter emitter = new SseEmitter( streamTimeout );
+        emitter.onCompletion( () -> emitters.remove( emitter ) );
+        emitter.onTimeout( () -> emitters.remove( emitter ) );
+        emitter.onError( e -> emitters.remove( emitter ) );
+        emitters.add( emitter );
+        return emitter;
+    }
+
+    /**
+     * Records a written food's stock level, or drops a deleted food.
+     *
+     * @param event
+     *            the write
+     */
+    @EventListener
+    public void onFoodChanged ( final FoodChangedEvent event ) {
+        if ( event.isDeleted() ) {
+            remove( event.foodId() );
+        }
+        else {
+            observe( event.foodId(), event.foodName(), event.amount(), event.reorderThreshold() );
+        }
+    }
+
+    /**
+     * Records a food's new stock level.
+     *
+     * @param foodId
+     *            food id
+     * @param foodName
+     *            food name
+     * @param amount
+     *            units in stock
+     * @param reorderThreshold
+     *            the food's own threshold, may be null
+     */
+    public void observe ( final Long foodId, final String foodName, final int amount,
+            final Integer reorderThreshold ) {
+        final LowStockDto item = new LowStockDto( foodId, foodName, amount, thresholdOf( reorderThreshold ) );
+        final String event;
+        synchronized ( this ) {
+            if ( foodId == null || !beginWrite() ) {
+                return;
+            }
+            final boolean wasLow = low.containsKey( foodId );
+            if ( amount <= item.reorderThreshold() ) {
+                low.put( foodId, item );
+                event = wasLow ? null : LOW;
+            }
+            else {
+                low.remove( foodId );
+                event = wasLow ? RESTOCKED : null;
+            }
+        }
+        // sent once the write commits; outside a transaction, right away
+        AfterTransaction.onCommit( () -> publish( event, item ) );
+    }
+
+    /**
+     * Removes a deleted food from the list.
+     *
+     * @param foodId
+     *            food id
+     */
+    public void remove ( final Long foodId ) {
+        synchronized ( this ) {
+            if ( beginWrite() ) {
+                low.remove( foodId );
+            }
+        }
+    }
+
+    /**
+     * Closes the open streams and stops the sender.
+     */
+    @PreDestroy
+    public void shutdown () {
+        sender.shutdownNow();
+        for ( final SseEmitter emitter : emitters ) {
+            emitter.complete();
+        }
+    }
+
+    /**
+     * Sends an event to every open stream.
+     *
+     * @param event
+     *            event name, or null for none
+     * @param item
+     *            event data
+     */
+    private void publish ( final String event, final LowStockDto item ) {
+        if ( event == null || emitters.isEmpty() ) {
+            return;
+        }
+        sender.execute( () -> {
+            for ( final SseEmitter emitter : emitters ) {
+                try {
+                    emitter.send( SseEmitter.event().name( event ).data( item ) );
+                }
+                catch ( final IOException | IllegalStateException e ) {
+                    emitters.remove( emitter );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Builds the list from the database. Callers hold the monitor.
+     */
+    @Override
+    protected void build () {
+        low.clear();
+        for ( final Food food : foodRepository.findLowStock( defaultThreshold ) ) {
+            low.put( food.getId(), new LowStockDto( food.getId(), food.getFoodName(), food.getAmount(),
+                    thresholdOf( food.getReorderThreshold() ) ) );
+        }
+    }
+}
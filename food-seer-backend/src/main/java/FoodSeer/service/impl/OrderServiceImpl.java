@@ -1,25 +1,45 @@
 package FoodSeer.service.impl;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import FoodSeer.dto.FulfillmentResultDto;
 import FoodSeer.dto.InventoryDto;
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderLineDto;
+import FoodSeer.dto.OrderPageDto;
 import FoodSeer.entity.Food;
 import FoodSeer.entity.Order;
+import FoodSeer.entity.OrderLine;
 import FoodSeer.exception.ResourceNotFoundException;
 import FoodSeer.mapper.OrderMapper;
 import FoodSeer.entity.User;
 import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.OrderLineItem;
 import FoodSeer.repositories.OrderRepository;
+import FoodSeer.repositories.OrderSummary;
 import FoodSeer.service.InventoryService;
 import FoodSeer.service.OrderService;
 import FoodSeer.service.UserService;
+import jakarta.transaction.Transactional;
 
 /**
  * Implementation of the OrderService interface for managing food orders.
@@ -27,6 +47,15 @@ import FoodSeer.service.UserService;
 @Service
 public class OrderServiceImpl implements OrderService {
 
+    /** Orders per page when no limit is given. */
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** Most orders returned per page. */
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /** Most orders fulfilled in one batch. */
+    private static final int MAX_FULFILL_BATCH = 500;
+
     /** Repository for food items. */
     @Autowired
     private FoodRepository foodRepository;
@@ -43,26 +72,78 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private UserService userService;
 
+    /** Publishes the foods whose stock changed. */
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /** Order and stock totals for the dashboards. */
+    @Autowired
+    private DashboardStats dashboardStats;
+
+    /** In-memory stock of hot foods. */
+    @Autowired
+    private HotStockCounters hotStockCounters;
+
+    /** Stock held for unfulfilled orders. */
+    @Autowired
+    private StockReservations stockReservations;
+
+    /** Co-occurrence model fed by fulfilled orders. */
+    @Autowired
+    private FoodCoOccurrence foodCoOccurrence;
+
     /**
-     * Creates an order with the given information.
+     * Creates an order with the given information and holds its units of
+     * stock until it is fulfilled or the hold lapses.
+     *
+     * The order's lines are taken from its line items, plus one unit per
+     * entry of its legacy food list; units of the same food are merged into
+     * one line. All foods are loaded with a single query, and a merged line
+     * asking for more units than its food has in stock is rejected before
+     * anything is saved.
      *
      * @param orderDto order to create
      * @return created order
+     * @throws IllegalArgumentException if a quantity is not positive, a
+     *         food's units add up past its stock, or a food does not have
+     *         enough stock left to promise
+     * @throws ResourceNotFoundException if a food does not exist
      */
     @Override
+    @Transactional
     public OrderDto createOrder(final OrderDto orderDto) {
-        // Load actual Food entities from database (managed entities)
-        final List<Food> foods = new ArrayList<>();
+        // Units per food id, in the order the foods were first listed
+        final Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (final OrderLineDto line : orderDto.getLines()) {
+            if (line.quantity() <= 0) {
+                throw new IllegalArgumentException("The quantity of each order line must be a positive integer.");
+            }
+            addUnits(quantities, requireFoodId(line.foodId()), line.quantity());
+        }
         for (final Food food : orderDto.getFoods()) {
-            final Food f = foodRepository.findById(food.getId())
-                    .orElseThrow(() -> new ResourceNotFoundException("A Food item does not exist within the order."));
-            foods.add(f);
+            addUnits(quantities, requireFoodId(food.getId()), 1);
+        }
+
+        // Load actual Food entities from database (managed entities)
+        final Map<Long, Food> foods = new HashMap<>();
+        for (final Food food : foodRepository.findAllById(quantities.keySet())) {
+            foods.put(food.getId(), food);
         }
 
         // Create order entity directly (not using mapper to avoid creating new Food objects)
         final Order order = new Order();
         order.setName(orderDto.getName());
-        order.setFoods(foods);
+        for (final Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            final Food food = foods.get(entry.getKey());
+            if (food == null) {
+                throw new ResourceNotFoundException("A Food item does not exist within the order.");
+            }
+            if (entry.getValue() > food.getAmount()) {
+                throw new IllegalArgumentException("Not enough stock to order " + food.getFoodName()
+                        + ". Requested: " + entry.getValue() + ", Available: " + food.getAmount());
+            }
+            order.addFood(food, entry.getValue());
+        }
         order.setIsFulfilled(false);
         
         // Set the current user as the owner of this order
@@ -73,9 +154,41 @@ public class OrderServiceImpl implements OrderService {
         order.setUser(currentUser);
         
         final Order savedOrder = orderRepository.save(order);
+        stockReservations.reserve(savedOrder.getId(), savedOrder.getLines());
+        dashboardStats.orderCreated();
         return OrderMapper.mapToOrderDto(savedOrder);
     }
 
+    /**
+     * Adds units of a food to the merged quantities of an order.
+     *
+     * @param quantities units per food id
+     * @param foodId the food id
+     * @param units units to add
+     * @throws IllegalArgumentException if the food's units overflow an int
+     */
+    private static void addUnits(final Map<Long, Integer> quantities, final Long foodId, final int units) {
+        try {
+            quantities.merge(foodId, units, Math::addExact);
+        } catch (final ArithmeticException e) {
+            throw new IllegalArgumentException("The quantity of an order line is too large.");
+        }
+    }
+
+    /**
+     * Checks that an ordered food has an id.
+     *
+     * @param foodId the food id
+     * @return the food id
+     * @throws ResourceNotFoundException if the id is missing
+     */
+    private static Long requireFoodId(final Long foodId) {
+        if (foodId == null) {
+            throw new ResourceNotFoundException("A Food item does not exist within the order.");
+        }
+        return foodId;
+    }
+
     /**
      * Returns the order with the given id.
      *
@@ -85,7 +198,7 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public OrderDto getOrderById(final Long orderId) {
-        final Order order = orderRepository.findById(orderId)
+        final Order order = orderRepository.findWithLinesById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order does not exist with id " + orderId));
         return OrderMapper.mapToOrderDto(order);
     }
@@ -97,49 +210,378 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public List<OrderDto> getAllOrders() {
-        final List<Order> orders = orderRepository.findAll();
-        return orders.stream().map(OrderMapper::mapToOrderDto).collect(Collectors.toList());
+        return listOrders(null, null);
+    }
+
+    /**
+     * Retrieves one page of orders, by id, using keyset pagination.
+     *
+     * @param fulfilled the fulfillment state, or null for both
+     * @param limit maximum number of orders, or null for the default
+     * @param cursor cursor returned with the previous page, or null
+     * @return the orders and the cursor for the next page
+     */
+    @Override
+    public OrderPageDto getOrderPage(final Boolean fulfilled, final Integer limit, final String cursor) {
+        return pageOrders(null, fulfilled, limit, cursor);
+    }
+
+    /**
+     * Retrieves one page of the current user's orders, by id, using keyset
+     * pagination.
+     *
+     * @param fulfilled the fulfillment state, or null for both
+     * @param limit maximum number of orders, or null for the default
+     * @param cursor cursor returned with the previous page, or null
+     * @return the orders and the cursor for the next page
+     */
+    @Override
+    public OrderPageDto getCurrentUserOrderPage(final Boolean fulfilled, final Integer limit,
+            final String cursor) {
+        final User currentUser = userService.getCurrentUser();
+        if (currentUser == null) {
+            throw new IllegalStateException("No authenticated user found");
+        }
+        return pageOrders(currentUser.getId(), fulfilled, limit, cursor);
+    }
+
+    /**
+     * Lists orders with two queries, one for the orders and one for all of
+     * their lines, whatever the number of orders or lines.
+     *
+     * @param userId the id of the user, or null for every user
+     * @param fulfilled the fulfillment state, or null for both
+     * @return the matching orders, by id
+     */
+    private List<OrderDto> listOrders(final Long userId, final Boolean fulfilled) {
+        final List<OrderSummary> summaries = orderRepository.findSummaries(userId, fulfilled, 0L,
+                Pageable.unpaged());
+        return mapSummaries(userId, fulfilled, 0L, summaries);
+    }
+
+    /**
+     * Reads one page of orders after the cursor's id. One more order than the
+     * page size is read to learn whether another page follows.
+     *
+     * @param userId the id of the user, or null for every user
+     * @param fulfilled the fulfillment state, or null for both
+     * @param limit maximum number of orders, or null for the default
+     * @param cursor cursor returned with the previous page, or null
+     * @return the orders and the cursor for the next page
+     * @throws IllegalArgumentException if the limit is not positive or the
+     *         cursor is invalid
+     */
+    private OrderPageDto pageOrders(final Long userId, final Boolean fulfilled, final Integer limit,
+            final String cursor) {
+        final int requested = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (requested < 1) {
+            throw new IllegalArgumentException("The page limit must be a positive integer.");
+        }
+        final int pageSize = Math.min(requested, MAX_PAGE_SIZE);
+        final long afterId = decodeCursor(cursor);
+
+        final List<OrderSummary> summaries = orderRepository.findSummaries(userId, fulfilled, afterId,
+                PageRequest.of(0, pageSize + 1));
+        final boolean hasMore = summaries.size() > pageSize;
+        final List<OrderSummary> page = hasMore ? summaries.subList(0, pageSize) : summaries;
+        final String nextCursor = hasMore ? encodeCursor(page.get(pageSize - 1).getId()) : null;
+        return new OrderPageDto(mapSummaries(userId, fulfilled, afterId, page), nextCursor);
+    }
+
+    /**
+     * Loads the lines of the given orders with one query and builds the
+     * OrderDtos.
+     *
+     * @param userId the id of the user, or null for every user
+     * @param fulfilled the fulfillment state, or null for both
+     * @param afterId id the orders were read after
+     * @param summaries the orders, by id
+     * @return the orders with their lines
+     */
+    private List<OrderDto> mapSummaries(final Long userId, final Boolean fulfilled, final long afterId,
+            final List<OrderSummary> summaries) {
+        if (summaries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final long lastId = summaries.get(summaries.size() - 1).getId();
+        return OrderMapper.mapToOrderDtos(summaries,
+                orderRepository.findLineItems(userId, fulfilled, afterId, lastId));
+    }
+
+    /**
+     * Builds the cursor pointing just after the given order.
+     *
+     * @param orderId id of the last order of the page
+     * @return opaque cursor
+     */
+    private static String encodeCursor(final long orderId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(orderId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor into the id the next page starts after.
+     *
+     * @param cursor cursor returned with the previous page, or null
+     * @return the id, 0 for the first page
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    private static long decodeCursor(final String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("The page cursor is invalid.");
+        }
     }
 
     /**
      * Fulfills the order by checking food availability and updating inventory.
      *
+     * The order's stock holds are removed as its units leave the stock.
+     * Each food's stock is taken out with a guarded update that only succeeds
+     * if enough units are left, so concurrent fulfillments cannot oversell.
+     * The order is loaded with its lines and foods in one query, and each
+     * line is one guarded update whatever its quantity.
+     * Everything runs in one transaction: if any food is short, the whole
+     * fulfillment rolls back. Foods are updated in id order so concurrent
+     * fulfillments lock rows in the same order. Hot foods are taken from
+     * HotStockCounters instead, without touching their rows.
+     *
      * @param orderId The id of the order to fulfill
      * @return the updated OrderDto
+     * @throws IllegalArgumentException if a food is out of stock
+     * @throws IllegalStateException if the order is already fulfilled
      */
     @Override
+    @Transactional
     public OrderDto fulfillOrder(final long orderId) {
-        final Order order = orderRepository.findById(orderId)
+        final Order order = orderRepository.findWithLinesById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order does not exist with id " + orderId));
 
-        // Count how many of each food is in the order
-        final Map<Long, Long> foodCounts = order.getFoods().stream()
-                .collect(Collectors.groupingBy(Food::getId, Collectors.counting()));
+        // Units of each food in the order, by food id
+        final Map<Long, Integer> foodCounts = new TreeMap<>();
+        final Map<Long, Food> foodsById = new HashMap<>();
+        for (final OrderLine line : order.getLines()) {
+            foodCounts.merge(line.getFood().getId(), line.getQuantity(), Integer::sum);
+            foodsById.put(line.getFood().getId(), line.getFood());
+        }
 
-        // Check inventory and deduct quantities
-        for (final Map.Entry<Long, Long> entry : foodCounts.entrySet()) {
+        if (orderRepository.markFulfilled(orderId) == 0) {
+            throw new IllegalStateException("Order " + orderId + " is already fulfilled");
+        }
+
+        // Deduct quantities, checking the stock in the same statement
+        for (final Map.Entry<Long, Integer> entry : foodCounts.entrySet()) {
             final Long foodId = entry.getKey();
-            final Long quantityNeeded = entry.getValue();
-            
-            final Food food = foodRepository.findById(foodId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Food not found with id " + foodId));
-            
-            // Check if enough stock
-            if (food.getAmount() < quantityNeeded) {
-                throw new IllegalArgumentException("Not enough stock to fulfill the order for " + food.getFoodName() 
+            final int quantityNeeded = entry.getValue();
+            final Food ordered = foodsById.get(foodId);
+
+            if (hotStockCounters.isHot(ordered)) {
+                if (!hotStockCounters.take(foodId, quantityNeeded)) {
+                    throw new IllegalArgumentException("Not enough stock to fulfill the order for "
+                            + ordered.getFoodName() + ". Need: " + quantityNeeded + ", Available: "
+                            + hotStockCounters.amount(foodId));
+                }
+            } else if (foodRepository.decrementAmount(foodId, quantityNeeded) == 0) {
+                final Food food = foodRepository.findById(foodId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Food not found with id " + foodId));
+                throw new IllegalArgumentException("Not enough stock to fulfill the order for " + food.getFoodName()
                         + ". Need: " + quantityNeeded + ", Available: " + food.getAmount());
             }
-            
-            // Deduct from inventory
-            food.setAmount((int) (food.getAmount() - quantityNeeded));
-            foodRepository.save(food);
         }
 
-        order.setIsFulfilled(true);
-        final Order savedOrder = orderRepository.save(order);
+        stockReservations.commit(orderId);
+
+        afterStockWrite(foodCounts.keySet());
+        dashboardStats.orderFulfilled();
+        foodCoOccurrence.recordOrder(foodCounts.keySet());
+
+        final Order savedOrder = orderRepository.findWithLinesById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order does not exist with id " + orderId));
         return OrderMapper.mapToOrderDto(savedOrder);
     }
 
+    /**
+     * Fulfills several orders in one transaction.
+     *
+     * The unfulfilled orders are locked with one query, their lines read
+     * with another and their foods locked with a third, all in id order like
+     * single fulfillments, so batches cannot deadlock with them. Stock is
+     * then allotted to the orders in id order; an order that needs more than
+     * is left fails and leaves its units to the next. The units of the
+     * orders that succeed are deducted with one statement per food, and
+     * those orders are marked fulfilled with one more.
+     *
+     * @param orderIds the ids of the orders to fulfill
+     * @return one result per distinct order id, in the order given
+     * @throws IllegalArgumentException if no ids, a null id or more than
+     *         MAX_FULFILL_BATCH ids are given
+     * @throws IllegalStateException if the stock of a locked food changed
+     *         anyway; nothing is fulfilled
+     */
+    @Override
+    @Transactional
+    public List<FulfillmentResultDto> fulfillOrders(final List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty() || orderIds.size() > MAX_FULFILL_BATCH) {
+            throw new IllegalArgumentException(
+                    "Between 1 and " + MAX_FULFILL_BATCH + " orders can be fulfilled at once.");
+        }
+        final Set<Long> ids = new LinkedHashSet<>();
+        for (final Long orderId : orderIds) {
+            if (orderId == null) {
+                throw new IllegalArgumentException("Order ids must not be null.");
+            }
+            ids.add(orderId);
+        }
+
+        final Map<Long, FulfillmentResultDto> results = new HashMap<>();
+        final List<Long> open = orderRepository.lockUnfulfilled(ids);
+        if (open.size() < ids.size()) {
+            final Set<Long> existing = new HashSet<>(orderRepository.findExistingIds(ids));
+            for (final Long orderId : ids) {
+                if (!open.contains(orderId)) {
+                    results.put(orderId, new FulfillmentResultDto(orderId, false, existing.contains(orderId)
+                            ? "Order " + orderId + " is already fulfilled"
+                            : "Order does not exist with id " + orderId));
+                }
+            }
+        }
+
+        // Units of each food per order, by order id and then food id
+        final Map<Long, Map<Long, Integer>> orderFoods = new TreeMap<>();
+        final Set<Long> foodIds = new TreeSet<>();
+        for (final Long orderId : open) {
+            orderFoods.put(orderId, new TreeMap<>());
+        }
+        if (!open.isEmpty()) {
+            for (final OrderLineItem line : orderRepository.findLineItemsByOrderIds(open)) {
+                orderFoods.get(line.getOrderId()).merge(line.getFoodId(), line.getQuantity(), Integer::sum);
+                foodIds.add(line.getFoodId());
+            }
+        }
+
+        // Units left of each food, read under lock
+        final Map<Long, Food> foods = new HashMap<>();
+        final Map<Long, Integer> left = new HashMap<>();
+        if (!foodIds.isEmpty()) {
+            for (final Food food : foodRepository.findAllForUpdate(foodIds)) {
+                foods.put(food.getId(), food);
+                left.put(food.getId(), hotStockCounters.isHot(food) ? hotStockCounters.amount(food.getId())
+                        : food.getAmount());
+            }
+        }
+
+        // Allot stock to the orders in id order
+        final Map<Long, Integer> taken = new TreeMap<>();
+        final List<Long> fulfilled = new ArrayList<>();
+        for (final Map.Entry<Long, Map<Long, Integer>> order : orderFoods.entrySet()) {
+            String shortage = findShortage(order.getValue(), foods, left);
+            if (shortage == null) {
+                shortage = takeHotStock(order.getValue(), foods, left);
+            }
+            if (shortage != null) {
+                results.put(order.getKey(), new FulfillmentResultDto(order.getKey(), false, shortage));
+                continue;
+            }
+            for (final Map.Entry<Long, Integer> entry : order.getValue().entrySet()) {
+                left.merge(entry.getKey(), -entry.getValue(), Integer::sum);
+                taken.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+            fulfilled.add(order.getKey());
+        }
+
+        // Deduct the allotted units of the other foods, one statement per food
+        for (final Map.Entry<Long, Integer> entry : taken.entrySet()) {
+            final Food food = foods.get(entry.getKey());
+            if (hotStockCounters.isHot(food)) {
+                continue;
+            }
+            if (foodRepository.decrementAmount(food.getId(), entry.getValue()) != 1) {
+                throw new IllegalStateException("The stock of " + food.getFoodName()
+                        + " changed during fulfillment; no orders were fulfilled");
+            }
+        }
+
+        if (!fulfilled.isEmpty()) {
+            orderRepository.markAllFulfilled(fulfilled);
+            stockReservations.commit(fulfilled);
+            afterStockWrite(taken.keySet());
+        }
+        for (final Long orderId : fulfilled) {
+            dashboardStats.orderFulfilled();
+            foodCoOccurrence.recordOrder(orderFoods.get(orderId).keySet());
+            results.put(orderId, new FulfillmentResultDto(orderId, true, null));
+        }
+        return ids.stream().map(results::get).toList();
+    }
+
+    /**
+     * Takes the units an order needs of hot foods out of their counters, all
+     * or nothing. The counters are not covered by the row locks, so a
+     * concurrent fulfillment may have taken the units since they were read;
+     * the order is then reported short and the food's units left reread.
+     *
+     * @param needed units of each food the order needs, by food id
+     * @param foods  the order's foods, by id
+     * @param left   units left of each food, by id
+     * @return why the order cannot be fulfilled, or null if the units were taken
+     */
+    private String takeHotStock(final Map<Long, Integer> needed, final Map<Long, Food> foods,
+            final Map<Long, Integer> left) {
+        final Map<Long, Integer> hot = new TreeMap<>();
+        for (final Map.Entry<Long, Integer> entry : needed.entrySet()) {
+            if (hotStockCounters.isHot(foods.get(entry.getKey()))) {
+                hot.put(entry.getKey(), entry.getValue());
+            }
+        }
+        final Long shortId = hot.isEmpty() ? null : hotStockCounters.takeAll(hot);
+        if (shortId == null) {
+            return null;
+        }
+        left.put(shortId, hotStockCounters.amount(shortId));
+        return "Not enough stock to fulfill the order for " + foods.get(shortId).getFoodName() + ". Need: "
+                + hot.get(shortId) + ", Available: " + left.get(shortId);
+    }
+
+    /**
+     * Checks that the units an order needs of each food are left.
+     *
+     * @param needed units of each food the order needs, by food id
+     * @param foods  the order's foods, by id
+     * @param left   units left of each food, by id
+     * @return why the order cannot be fulfilled, or null if it can
+     */
+    private static String findShortage(final Map<Long, Integer> needed, final Map<Long, Food> foods,
+            final Map<Long, Integer> left) {
+        for (final Map.Entry<Long, Integer> entry : needed.entrySet()) {
+            final Food food = foods.get(entry.getKey());
+            if (food == null) {
+                return "Food not found with id " + entry.getKey();
+            }
+            final int available = left.get(entry.getKey());
+            if (available < entry.getValue()) {
+                return "Not enough stock to fulfill the order for " + food.getFoodName() + ". Need: "
+                        + entry.getValue() + ", Available: " + available;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Publishes the foods whose stock was changed with bulk updates, which
+     * bypass the entity listener.
+     *
+     * @param foodIds ids of the changed foods
+     */
+    private void afterStockWrite(final Collection<Long> foodIds) {
+        for (final Food food : foodRepository.findAllById(foodIds)) {
+            eventPublisher.publishEvent(FoodChangedEvent.stockTaken(food, hotStockCounters.stockOf(food)));
+        }
+    }
+
     /**
      * Checks if all ingredients/foods for an order item are available.
      *
@@ -180,9 +622,7 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public List<OrderDto> getAllFulfilledOrders() {
-        return getAllOrders().stream()
-                .filter(OrderDto::getIsFulfilled)
-                .collect(Collectors.toList());
+        return listOrders(null, true);
     }
 
     /**
@@ -192,9 +632,7 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public List<OrderDto> getAllUnfulfilledOrders() {
-        return getAllOrders().stream()
-                .filter(o -> !o.getIsFulfilled())
-                .collect(Collectors.toList());
+        return listOrders(null, false);
     }
 
     /**
@@ -209,8 +647,7 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalStateException("No authenticated user found");
         }
         
-        final List<Order> orders = orderRepository.findByUser(currentUser);
-        return orders.stream().map(OrderMapper::mapToOrderDto).collect(Collectors.toList());
+        return listOrders(currentUser.getId(), null);
     }
 
     /**
@@ -225,8 +662,7 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalStateException("No authenticated user found");
         }
         
-        final List<Order> orders = orderRepository.findByUserAndIsFulfilled(currentUser, true);
-        return orders.stream().map(OrderMapper::mapToOrderDto).collect(Collectors.toList());
+        return listOrders(currentUser.getId(), true);
     }
 
     /**
@@ -241,7 +677,6 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalStateException("No authenticated user found");
         }
         
-        final List<Order> orders = orderRepository.findByUserAndIsFulfilled(currentUser, false);
-        return orders.stream().map(OrderMapper::mapToOrderDto).collect(Collectors.toList());
+        return listOrders(currentUser.getId(), false);
     }
 }
@@ -0,0 +1,265 @@
+package FoodSeer.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.RecommendationPageDto;
+import FoodSeer.entity.Allergen;
+import FoodSeer.entity.User;
+import FoodSeer.mapper.FoodMapper;
+import FoodSeer.service.FoodService;
+import FoodSeer.service.RecommendationService;
+
+/**
+ * Computes personalized recommendations from a user's cost preference and
+ * dietary restrictions.
+ *
+ * The in-stock foods of each budget tier are precomputed and kept sorted, so
+ * a request only has to drop the foods containing the user's allergens and
+ * cut out a page. Foods that are ordered more often rank first. The candidate
+ * sets are rebuilt from the cached catalog whenever the CatalogVersion
+ * changes, which includes every fulfilled order since it changes stock.
+ */
+@Service
+public class RecommendationServiceImpl implements RecommendationService {
+
+    /** Page size used when none is given */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    /** Largest page size a client may ask for */
+    private static final int MAX_PAGE_SIZE     = 100;
+
+    /**
+     * Order of recommendations: most often ordered, then cheapest, then best
+     * stocked, then by name
+     */
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparingLong( ( final Candidate c ) -> -c.popularity() )
+            .thenComparingInt( c -> c.food().getPrice() )
+            .thenComparing( Comparator.comparingInt( ( final Candidate c ) -> c.food().getAmount() ).reversed() )
+            .thenComparing( c -> c.food().getFoodName() );
+
+    /** Food service, for the catalog */
+    @Autowired
+    private FoodService              foodService;
+
+    /** Version of the catalog the candidate sets were built from */
+    @Autowired
+    private CatalogVersion           catalogVersion;
+
+    /** Order history, for the popularity of each food */
+    @Autowired
+    private FoodCoOccurrence         foodCoOccurrence;
+
+    /** Current candidate sets */
+    private volatile Candidates      candidates;
+
+    @Override
+    public RecommendationPageDto getRecommendations ( final User user, final Integer page, final Integer size ) {
+        final int pageNumber = page == null ? 0 : page;
+        final int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.min( size, MAX_PAGE_SIZE );
+        if ( pageNumber < 0 || pageSize <= 0 ) {
+            throw new IllegalArgumentException( "The page must not be negative and the size must be positive." );
+        }
+
+        final List<Candidate> tier = currentCandidates().byTier().get( BudgetTier.of( user.getCostPreference() ) );
+        final Restrictions restrictions = Restrictions.parse( user.getDietaryRestrictions() );
+
+        final List<FoodDto> foods = new ArrayList<>( pageSize );
+        final long first = (long) pageNumber * pageSize;
+        int total = 0;
+        for ( final Candidate candidate : tier ) {
+            if ( !restrictions.allows( candidate ) ) {
+                continue;
+            }
+            if ( total >= first && foods.size() < pageSize ) {
+                foods.add( FoodMapper.copy( candidate.food() ) );
+            }
+            total++;
+        }
+        return new RecommendationPageDto( foods, pageNumber, pageSize, total );
+    }
+
+    /**
+     * Returns the candidate sets for the current catalog version, rebuilding
+     * them if the catalog changed.
+     *
+     * @return current candidate sets
+     */
+    private Candidates currentCandidates () {
+        final Candidates current = candidates;
+        if ( current != null && current.version().equals( catalogVersion.etag() ) ) {
+            return current;
+        }
+        synchronized ( this ) {
+            if ( candidates != null && candidates.version().equals( catalogVersion.etag() ) ) {
+                return candidates;
+            }
+            // Read the version first, so a change during the load forces
+            // another rebuild
+            final String version = catalogVersion.etag();
+            final List<Candidate> inStock = new ArrayList<>();
+            for ( final FoodDto food : foodService.getAllFoods() ) {
+                if ( food.getAmount() > 0 ) {
+                    inStock.add( new Candidate( food, Allergen.maskOf( food.getAllergies() ),
+                            foodCoOccurrence.popularity( food.getId() ) ) );
+                }
+            }
+            inStock.sort( RANKING );
+
+            final Map<BudgetTier, List<Candidate>> byTier = new EnumMap<>( BudgetTier.class );
+            for ( final BudgetTier tier : BudgetTier.values() ) {
+                final List<Candidate> eligible = new ArrayList<>();
+                for ( final Candidate candidate : inStock ) {
+                    if ( candidate.food().getPrice() <= tier.maxPrice ) {
+                        eligible.add( candidate );
+                    }
+                }
+                byTier.put( tier, Collections.unmodifiableList( eligible ) );
+            }
+            candidates = new Candidates( version, byTier );
+            return candidates;
+        }
+    }
+
+    /**
+     * Budget tiers a user can choose as cost preference. Tiers are
+     * cumulative: each includes every cheaper tier.
+     */
+    private enum BudgetTier {
+
+        BUDGET ( "budget", 10 ),
+        MODERATE ( "moderate", 20 ),
+        PREMIUM ( "premium", 35 ),
+        NO_LIMIT ( "no-limit", Integer.MAX_VALUE );
+
+        /** Cost preference value stored for the user */
+        private final String preference;
+
+        /** Highest price in the tier */
+        private final int    maxPrice;
+
+        /**
+         * Creates a tier
+         *
+         * @param preference
+         *            stored cost preference
+         * @param maxPrice
+         *            highest price in the tier
+         */
+        BudgetTier ( final String preference, final int maxPrice ) {
+            this.preference = preference;
+            this.maxPrice = maxPrice;
+        }
+
+        /**
+         * Looks up the tier of a cost preference. Users without a
+         * recognized preference see everything.
+         *
+         * @param preference
+         *            stored cost preference, may be null
+         * @return the tier
+         */
+        private static BudgetTier of ( final String preference ) {
+            for ( final BudgetTier tier : values() ) {
+                if ( tier.preference.equalsIgnoreCase( preference == null ? "" : preference.trim() ) ) {
+                    return tier;
+                }
+            }
+            return NO_LIMIT;
+        }
+    }
+
+    /**
+     * A recommendable food with its allergen mask and popularity.
+     *
+     * @param food
+     *            the food
+     * @param allergenMask
+     *            mask of the food's allergies
+     * @param popularity
+     *            number of fulfilled orders containing the food
+     */
+    private record Candidate ( FoodDto food, long allergenMask, long popularity ) {
+    }
+
+    /**
+     * A user's dietary restrictions. Known allergens are matched through the
+     * mask; other restrictions are compared with the allergy names of foods
+     * that have an allergy outside the dictionary.
+     *
+     * @param mask
+     *            mask of the restricted known allergens
+     * @param others
+     *            restricted allergies outside the dictionary, upper case
+     */
+    private record Restrictions ( long mask, Set<String> others ) {
+
+        /**
+         * Parses the comma separated restrictions stored for a user
+         *
+         * @param dietaryRestrictions
+         *            stored restrictions, may be null
+         * @return the restrictions
+         */
+        private static Restrictions parse ( final String dietaryRestrictions ) {
+            long mask = 0L;
+            final Set<String> others = new HashSet<>();
+            if ( dietaryRestrictions != null ) {
+                for ( final String restriction : dietaryRestrictions.split( "," ) ) {
+                    final Allergen allergen = Allergen.fromCode( restriction );
+                    if ( allergen != null ) {
+                        mask |= allergen.getBit();
+                    }
+                    else if ( !restriction.trim().isEmpty() ) {
+                        others.add( restriction.trim().toUpperCase() );
+                    }
+                }
+            }
+            return new Restrictions( mask, others );
+        }
+
+        /**
+         * Returns true if the food contains none of the restricted allergies
+         *
+         * @param candidate
+         *            the food
+         * @return true if the user may be recommended the food
+         */
+        private boolean allows ( final Candidate candidate ) {
+            if ( ( candidate.allergenMask() & mask ) != 0 ) {
+                return false;
+            }
+            if ( others.isEmpty() || ( candidate.allergenMask() & Allergen.OTHER_BIT ) == 0 ) {
+                return true;
+            }
+            for ( final String allergy : candidate.food().getAllergies() ) {
+                if ( allergy != null && others.contains( allergy.trim().toUpperCase() ) ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Candidate sets built from one catalog version.
+     *
+     * @param version
+     *            catalog version the sets were built from
+     * @param byTier
+     *            in-stock foods of each budget tier, ranked
+     */
+    private record Candidates ( String version, Map<BudgetTier, List<Candidate>> byTier ) {
+    }
+}
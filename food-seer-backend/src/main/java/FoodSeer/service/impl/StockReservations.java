@@ -0,0 +1,208 @@
+package FoodSeer.service.impl;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import FoodSeer.entity.Food;
+import FoodSeer.entity.OrderLine;
+import FoodSeer.entity.StockHold;
+import FoodSeer.repositories.FoodQuantity;
+import FoodSeer.repositories.StockHoldRepository;
+import jakarta.transaction.Transactional;
+
+/**
+ * Reservation ledger for food stock. Creating an order holds the ordered
+ * units, so a customer learns right away whether the order can be filled;
+ * fulfilling the order turns its holds into the actual stock decrement, and
+ * holds of orders that are never fulfilled lapse after the configured time.
+ *
+ * The units held per food are kept in memory, so the available-to-promise
+ * stock (amount minus held units) costs no query. The counters mirror the
+ * stock_holds table: they are built from it on first use, changed together
+ * with it, and changes are undone if the transaction rolls back. Holds are a
+ * promise, not a lock; the guarded decrement at fulfillment stays the final
+ * stock check.
+ */
+@Component
+public class StockReservations extends DerivedState {
+
+    /** How long a hold lasts */
+    private final Duration                 holdTime;
+
+    /** The ledger */
+    @Autowired
+    private StockHoldRepository            stockHoldRepository;
+
+    /** Current stock of hot foods, whose stored amount lags */
+    @Autowired
+    private HotStockCounters               hotStockCounters;
+
+    /** Units held per food id, guarded by this */
+    private final Map<Long, Integer>       held = new HashMap<>();
+
+    /**
+     * Creates the ledger.
+     *
+     * @param holdMinutes
+     *            minutes a hold lasts
+     */
+    public StockReservations ( @Value ( "${app.stock-holds.ttl-minutes:30}" ) final long holdMinutes ) {
+        this.holdTime = Duration.ofMinutes( holdMinutes );
+    }
+
+    /**
+     * Returns the units of a food that can still be promised to new orders.
+     *
+     * @param foodId
+     *            food id
+     * @param amount
+     *            units in stock
+     * @return units in stock minus units held, never negative
+     */
+    public synchronized int available ( final Long foodId, final int amount ) {
+        ensureBuilt();
+        return Math.max( 0, amount - held.getOrDefault( foodId, 0 ) );
+    }
+
+    /**
+     * Holds the units of an order. Either every food has enough available
+     * stock and all of them are held, or nothing is.
+     *
+     * @param orderId
+     *            id of the order
+     * @param lines
+     *            the order's lines
+     * @throws IllegalArgumentException
+     *             if a food does not have enough available stock
+     */
+    public void reserve ( final Long orderId, final List<OrderLine> lines ) {
+        final Map<Long, Integer> quantities = new TreeMap<>();
+        final Map<Long, Food> byId = new HashMap<>();
+        for ( final OrderLine line : lines ) {
+            quantities.merge( line.getFood().getId(), line.getQuantity(), Integer::sum );
+            byId.put( line.getFood().getId(), line.getFood() );
+        }
+
+        synchronized ( this ) {
+            for ( final Map.Entry<Long, Integer> entry : quantities.entrySet() ) {
+                final Food food = byId.get( entry.getKey() );
+                final int amount = hotStockCounters.isHot( food ) ? hotStockCounters.amount( food.getId() )
+                        : food.getAmount();
+                final int available = available( food.getId(), amount );
+                if ( available < entry.getValue() ) {
+                    throw new IllegalArgumentException( "Not enough stock to order " + food.getFoodName()
+                            + ". Requested: " + entry.getValue() + ", Available: " + available );
+                }
+            }
+            if ( beginWrite( () -> add( quantities, -1 ) ) ) {
+                add( quantities, 1 );
+            }
+        }
+
+        final Instant expiresAt = Instant.now().plus( holdTime );
+        final List<StockHold> holds = new ArrayList<>( quantities.size() );
+        for ( final Map.Entry<Long, Integer> entry : quantities.entrySet() ) {
+            holds.add( new StockHold( orderId, entry.getKey(), entry.getValue(), expiresAt ) );
+        }
+        stockHoldRepository.saveAll( holds );
+    }
+
+    /**
+     * Removes the holds of an order that is being fulfilled; its units are
+     * taken out of stock instead.
+     *
+     * @param orderId
+     *            id of the order
+     */
+    public void commit ( final Long orderId ) {
+        release( stockHoldRepository.findByOrderId( orderId ) );
+    }
+
+    /**
+     * Removes the holds of several orders that are being fulfilled together,
+     * in one read and one delete.
+     *
+     * @param orderIds
+     *            ids of the orders
+     */
+    public void commit ( final Collection<Long> orderIds ) {
+        release( stockHoldRepository.findByOrderIdIn( orderIds ) );
+    }
+
+    /**
+     * Releases every hold that has lapsed. Runs periodically.
+     */
+    @Scheduled ( fixedDelayString = "${app.stock-holds.sweep-interval-ms:60000}" )
+    @Transactional
+    public void releaseExpired () {
+        release( stockHoldRepository.findByExpiresAtBefore( Instant.now() ) );
+    }
+
+    /**
+     * Deletes holds and takes their units out of the counters.
+     *
+     * @param holds
+     *            holds to release
+     */
+    private void release ( final List<StockHold> holds ) {
+        if ( holds.isEmpty() ) {
+            return;
+        }
+        final Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for ( final StockHold hold : holds ) {
+            quantities.merge( hold.getFoodId(), hold.getQuantity(), Integer::sum );
+        }
+        // build before deleting, so the build does not miss these holds
+        ensureBuilt();
+        stockHoldRepository.deleteAllInBatch( holds );
+        synchronized ( this ) {
+            if ( beginWrite( () -> add( quantities, 1 ) ) ) {
+                add( quantities, -1 );
+            }
+        }
+    }
+
+    /**
+     * Builds the counters from the ledger. Callers hold the monitor.
+     */
+    @Override
+    protected void build () {
+        held.clear();
+        for ( final FoodQuantity row : stockHoldRepository.sumQuantityByFood() ) {
+            held.put( row.getFoodId(), row.getQuantity().intValue() );
+        }
+    }
+
+    /**
+     * Adds (or with a negative sign, removes) held units. Callers hold the
+     * monitor.
+     *
+     * @param quantities
+     *            units per food id
+     * @param sign
+     *            1 to add, -1 to remove
+     */
+    private void add ( final Map<Long, Integer> quantities, final int sign ) {
+        for ( final Map.Entry<Long, Integer> entry : quantities.entrySet() ) {
+            final int units = held.getOrDefault( entry.getKey(), 0 ) + sign * entry.getValue();
+            if ( units > 0 ) {
+                held.put( entry.getKey(), units );
+            }
+            else {
+                held.remove( entry.getKey() );
+            }
+        }
+    }
+}
@@ -21,6 +21,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private DashboardStats dashboardStats;
+
     @Override
     public User getCurrentUser () {
         final Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -65,6 +68,9 @@ public class UserServiceImpl implements UserService {
         // Delete all orders associated with this user
         final List<Order> userOrders = orderRepository.findByUser(user);
         orderRepository.deleteAll(userOrders);
+        for (final Order order : userOrders) {
+            dashboardStats.orderDeleted(order.getIsFulfilled());
+        }
         
         // Now delete the user
         userRepository.deleteById(id);
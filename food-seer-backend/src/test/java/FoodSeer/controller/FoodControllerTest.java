@@ -1,7 +1,10 @@
 package FoodSeer.controller;
 
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -12,15 +15,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import FoodSeer.TestUtils;
 import FoodSeer.dto.FoodDto;
 import FoodSeer.repositories.FoodRepository;
-import FoodSeer.repositories.InventoryRepository;
 import FoodSeer.service.FoodService;
 
 /**
@@ -38,12 +43,8 @@ public class FoodControllerTest {
     @Autowired
     private FoodRepository foodRepository;
 
-    /** Reference to inventory repository */
-    @Autowired
-    private InventoryRepository inventoryRepository;
-
-    /** Reference to food service */
-    @Autowired
+    /** Reference to food service, spied to miss a duplicate name */
+    @SpyBean
     private FoodService foodService;
 
     /**
@@ -55,7 +56,6 @@ public class FoodControllerTest {
     @BeforeEach
     public void setUp () throws Exception {
         foodRepository.deleteAll();
-        inventoryRepository.deleteAll();
     }
 
     /**
@@ -142,6 +142,27 @@ public class FoodControllerTest {
             .andExpect(status().isConflict()); // 409
     }
 
+    /**
+     * Tests that a food whose name is taken after the duplicate check, as by
+     * a concurrent request, is rejected by the unique index with a 409.
+     *
+     * @throws Exception
+     *             if error
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    void testCreateFoodNameTakenConcurrently () throws Exception {
+        final FoodDto food = new FoodDto( "COFFEE", 5, 3, Arrays.asList( "MILK" ) );
+        foodService.createFood( food );
+        doReturn( false ).when( foodService ).isDuplicateName( anyString() );
+
+        mvc.perform( post( "/api/foods" )
+                .contentType( MediaType.APPLICATION_JSON )
+                .content( TestUtils.asJsonString( food ) ) )
+                .andExpect( status().isConflict() );
+    }
+
     
     @Test
     @Transactional
@@ -220,4 +241,80 @@ public class FoodControllerTest {
                 .content(TestUtils.asJsonString(update)))
             .andExpect(status().isBadRequest());
     }
+
+    /**
+     * Tests GET /api/foods with filters, sort key and keyset pagination
+     *
+     * @throws Exception
+     *             if error
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    void testGetFoodsFilteredAndPaged () throws Exception {
+        foodService.createFood( new FoodDto( "BAGEL", 30, 4, Arrays.asList( "GLUTEN", "SESAME" ) ) );
+        foodService.createFood( new FoodDto( "BANANA", 60, 1, Arrays.asList() ) );
+        foodService.createFood( new FoodDto( "BURRITO", 0, 11, Arrays.asList( "GLUTEN" ) ) );
+        foodService.createFood( new FoodDto( "BROWNIE", 12, 6, Arrays.asList( "EGGS" ) ) );
+        foodService.createFood( new FoodDto( "COFFEE", 50, 3, Arrays.asList( "CAFFEINE" ) ) );
+
+        mvc.perform( get( "/api/foods" ).param( "name", "b" ).param( "inStock", "true" )
+                .param( "excludeAllergens", "gluten" ).param( "sort", "price" ) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.length()" ).value( 2 ) )
+                .andExpect( jsonPath( "$[0].foodName" ).value( "BANANA" ) )
+                .andExpect( jsonPath( "$[1].foodName" ).value( "BROWNIE" ) );
+
+        mvc.perform( get( "/api/foods" ).param( "minPrice", "4" ).param( "maxPrice", "11" ).param( "sort", "name" ) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.length()" ).value( 3 ) )
+                .andExpect( jsonPath( "$[0].foodName" ).value( "BAGEL" ) );
+
+        final MvcResult first = mvc.perform( get( "/api/foods" ).param( "sort", "name" ).param( "limit", "3" ) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.length()" ).value( 3 ) )
+                .andExpect( jsonPath( "$[2].foodName" ).value( "BROWNIE" ) )
+                .andReturn();
+        final String cursor = first.getResponse().getHeader( FoodController.NEXT_CURSOR_HEADER );
+
+        mvc.perform( get( "/api/foods" ).param( "sort", "name" ).param( "limit", "3" ).param( "cursor", cursor ) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath( "$.length()" ).value( 2 ) )
+                .andExpect( jsonPath( "$[0].foodName" ).value( "BURRITO" ) )
+                .andExpect( jsonPath( "$[1].foodName" ).value( "COFFEE" ) )
+                .andExpect( header().doesNotExist( FoodController.NEXT_CURSOR_HEADER ) );
+
+        mvc.perform( get( "/api/foods" ).param( "sort", "calories" ) ).andExpect( status().isBadRequest() );
+        mvc.perform( get( "/api/foods" ).param( "cursor", "???" ) ).andExpect( status().isBadRequest() );
+    }
+
+    /**
+     * Tests that catalog reads carry the catalog version as an ETag and that
+     * a matching If-None-Match is answered with 304 until the catalog changes.
+     *
+     * @throws Exception
+     *             if error
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    void testGetFoodsNotModified () throws Exception {
+        foodService.createFood( new FoodDto( "BAGEL", 30, 4, Arrays.asList( "GLUTEN" ) ) );
+
+        final String etag = mvc.perform( get( "/api/foods" ) ).andExpect( status().isOk() )
+                .andExpect( header().exists( HttpHeaders.ETAG ) ).andReturn().getResponse()
+                .getHeader( HttpHeaders.ETAG );
+
+        mvc.perform( get( "/api/foods" ).header( HttpHeaders.IF_NONE_MATCH, etag ) )
+                .andExpect( status().isNotModified() )
+                .andExpect( header().string( HttpHeaders.ETAG, etag ) );
+        mvc.perform( get( "/api/inventory" ).header( HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag ) )
+                .andExpect( status().isNotModified() );
+
+        foodService.updateFood( "BAGEL", 10, 4, Arrays.asList( "GLUTEN" ) );
+
+        mvc.perform( get( "/api/foods" ).header( HttpHeaders.IF_NONE_MATCH, etag ) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath( "$[0].amount" ).value( 10 ) );
+    }
 }
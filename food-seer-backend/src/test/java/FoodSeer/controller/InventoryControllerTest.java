@@ -3,6 +3,8 @@ package FoodSeer.controller;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
@@ -19,10 +21,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import FoodSeer.TestUtils;
+import FoodSeer.dto.FoodDto;
 import FoodSeer.dto.InventoryDto;
 import FoodSeer.entity.Food;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.Query;
+import FoodSeer.service.FoodService;
 
 /**
  * Inventory Controller Test for FoodSeer.
@@ -36,21 +38,19 @@ public class InventoryControllerTest {
     @Autowired
     private MockMvc mvc;
 
-    /** Reference to EntityManager */
+    /** Reference to FoodService */
     @Autowired
-    private EntityManager entityManager;
+    private FoodService foodService;
 
     /**
-     * Sets up the test case. We assume only one inventory row.
-     * Because inventory is treated as a singleton (only one row),
-     * we must truncate for auto-increment on the ID to work correctly.
+     * Sets up the test case. The inventory lists every food,
+     * so clearing the foods empties it.
      *
      * @throws Exception if error
      */
     @BeforeEach
     public void setUp() throws Exception {
-        final Query query = entityManager.createNativeQuery("DELETE FROM inventory");
-        query.executeUpdate();
+        foodService.deleteAllFoods();
     }
 
     /**
@@ -109,4 +109,59 @@ public class InventoryControllerTest {
                 .getResponse()
                 .getContentAsString();
     }
+
+    /**
+     * Tests the low stock list and event stream endpoints.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    public void testLowStock() throws Exception {
+        foodService.createFood(new FoodDto("soup", 1, 4, new ArrayList<>()));
+
+        mvc.perform(get("/api/inventory/lowStock"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].foodName").value("SOUP"))
+                .andExpect(jsonPath("$[0].amount").value(1));
+
+        mvc.perform(get("/api/inventory/lowStock/stream"))
+                .andExpect(request().asyncStarted());
+    }
+
+    /**
+     * Tests the GET /api/inventory/changes delta sync endpoint.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    public void testGetChanges() throws Exception {
+        final FoodDto soup = foodService.createFood(new FoodDto("soup", 10, 4, new ArrayList<>()));
+
+        mvc.perform(get("/api/inventory/changes").param("since", "0").param("limit", "10000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.changes[-1:].foodId").value(soup.getId().intValue()))
+                .andExpect(jsonPath("$.changes[-1:].amount").value(10));
+
+        mvc.perform(get("/api/inventory/changes").param("since", "-1"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/inventory/changes").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that customers cannot see the low stock list.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    public void testLowStockForbidden() throws Exception {
+        mvc.perform(get("/api/inventory/lowStock")).andExpect(status().isForbidden());
+    }
 }
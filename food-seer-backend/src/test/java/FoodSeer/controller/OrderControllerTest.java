@@ -1,17 +1,24 @@
 package FoodSeer.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,6 +34,7 @@ import FoodSeer.repositories.OrderRepository;
 import FoodSeer.repositories.UserRepository;
 import FoodSeer.service.InventoryService;
 import FoodSeer.service.OrderService;
+import FoodSeer.service.impl.IdempotencyStore;
 
 /**
  * Tests Controller for API endpoints for an Order.
@@ -47,8 +55,8 @@ class OrderControllerTest {
     @Autowired
     private FoodRepository foodRepository;
 
-    /** Service for orders */
-    @Autowired
+    /** Service for orders, spied to fail a fulfillment once */
+    @SpyBean
     private OrderService orderService;
 
     /** Service for inventory */
@@ -168,6 +176,42 @@ class OrderControllerTest {
                 .andExpect(status().isOk());
     }
     
+    /**
+     * Tests paging through the unfulfilled orders with the X-Next-Cursor
+     * header, and rejecting a bad limit or cursor.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testGetUnfulfilledOrdersPaged() throws Exception {
+        final List<Food> foods = foodRepository.findAll();
+        for (int i = 0; i < 3; i++) {
+            final OrderDto orderDto = new OrderDto(0L, "Paged" + i);
+            orderDto.setFoods(foods.subList(0, 1));
+            orderService.createOrder(orderDto);
+        }
+
+        final String cursor = mvc.perform(get("/api/orders/unfulfilledOrders").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("Paged0"))
+                .andExpect(header().exists(OrderController.NEXT_CURSOR_HEADER))
+                .andReturn().getResponse().getHeader(OrderController.NEXT_CURSOR_HEADER);
+
+        mvc.perform(get("/api/orders/unfulfilledOrders").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Paged2"))
+                .andExpect(header().doesNotExist(OrderController.NEXT_CURSOR_HEADER));
+
+        mvc.perform(get("/api/orders/unfulfilledOrders").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/orders/unfulfilledOrders").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     @WithMockUser(username = "staff", roles = "STAFF")
@@ -207,16 +251,213 @@ class OrderControllerTest {
     @WithMockUser(username = "staff", roles = "STAFF")
     void testFulfillOrder_BadRequest() throws Exception {
         Food food = foodRepository.findAll().get(0);
-        food.setAmount(0); // no stock, will throw inside service
+        food.setAmount(1);
         foodRepository.save(food);
 
         OrderDto o = new OrderDto(0L, "FailOrder");
         o.setFoods(List.of(food));
         OrderDto saved = orderService.createOrder(o);
 
+        food.setAmount(0); // stock gone after ordering, will throw inside service
+        foodRepository.save(food);
+
+        mvc.perform(post("/api/orders/fulfillOrder")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(saved)))
+            .andExpect(status().isBadRequest()); // 400
+    }
+
+    /**
+     * Tests that a fulfillment failing for a transient reason, such as a
+     * lock timeout, answers 500 and is not stored under its Idempotency-Key:
+     * the retry with the key runs the fulfillment again and succeeds.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testIdempotencyKey_TransientFailure() throws Exception {
+        final OrderDto orderDto = new OrderDto(0L, "LockedOrder");
+        orderDto.setFoods(foodRepository.findAll().subList(0, 1));
+        final OrderDto saved = orderService.createOrder(orderDto);
+        final String key = UUID.randomUUID().toString();
+
+        doThrow(new CannotAcquireLockException("lock wait timeout")).doCallRealMethod()
+                .when(orderService).fulfillOrder(saved.getId());
+        mvc.perform(post("/api/orders/fulfillOrder")
+                .header(IdempotencyStore.KEY_HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(saved)))
+            .andExpect(status().isInternalServerError());
+
         mvc.perform(post("/api/orders/fulfillOrder")
+                .header(IdempotencyStore.KEY_HEADER, key)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(TestUtils.asJsonString(saved)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    /**
+     * Tests that an order without an id is refused with 400.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testFulfillOrder_NoId() throws Exception {
+        mvc.perform(post("/api/orders/fulfillOrder")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(new OrderDto(null, "NoId"))))
+            .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that retries with the same Idempotency-Key get the first
+     * response back: one order is created and fulfilled, and the retries are
+     * marked as replayed. Reusing the key for another order is refused.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testIdempotencyKey() throws Exception {
+        final OrderDto orderDto = new OrderDto(0L, "RetriedOrder");
+        orderDto.setFoods(foodRepository.findAll().subList(0, 1));
+        final String createKey = UUID.randomUUID().toString();
+
+        mvc.perform(post("/api/orders")
+                .header(IdempotencyStore.KEY_HEADER, createKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(orderDto)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER));
+        final OrderDto savedOrder = new OrderDto(orderRepository.findAll().get(0).getId(), "RetriedOrder");
+
+        mvc.perform(post("/api/orders")
+                .header(IdempotencyStore.KEY_HEADER, createKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(orderDto)))
+            .andExpect(status().isOk())
+            .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+            .andExpect(jsonPath("$.id").value(savedOrder.getId()));
+        assertEquals(1, orderRepository.count());
+
+        // the key cannot be reused for a different order
+        final OrderDto otherOrder = new OrderDto(0L, "OtherOrder");
+        otherOrder.setFoods(orderDto.getFoods());
+        mvc.perform(post("/api/orders")
+                .header(IdempotencyStore.KEY_HEADER, createKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(otherOrder)))
+            .andExpect(status().isUnprocessableEntity());
+        assertEquals(1, orderRepository.count());
+
+        final String fulfillKey = UUID.randomUUID().toString();
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/api/orders/fulfillOrder")
+                    .header(IdempotencyStore.KEY_HEADER, fulfillKey)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtils.asJsonString(savedOrder)))
+                .andExpect(status().isOk());
+        }
+
+        // without the key, the retry is a second fulfillment
+        mvc.perform(post("/api/orders/fulfillOrder")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(savedOrder)))
+            .andExpect(status().isGone());
+
+        mvc.perform(post("/api/orders")
+                .header(IdempotencyStore.KEY_HEADER, " ")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(orderDto)))
+            .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests queueing an order for asynchronous fulfillment, which answers
+     * 202 with a ticket to poll, polling an unknown ticket, and refusing an
+     * order without an id.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testSubmitFulfillment() throws Exception {
+        final String location = mvc.perform(post("/api/orders/fulfillments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(new OrderDto(999L, "FakeOrder"))))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.orderId").value(999))
+            .andExpect(header().exists("Location"))
+            .andReturn().getResponse().getHeader("Location");
+
+        mvc.perform(get(location))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orderId").value(999));
+
+        mvc.perform(get("/api/orders/fulfillments/unknown"))
+            .andExpect(status().isNotFound());
+
+        mvc.perform(post("/api/orders/fulfillments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(new OrderDto(null, "NoId"))))
+            .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests fulfilling a batch of orders, with one result per distinct id,
+     * and rejecting an empty batch.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testFulfillOrders() throws Exception {
+        final List<Food> foods = foodRepository.findAll();
+        final OrderDto first = new OrderDto(0L, "Ticket1");
+        first.setFoods(foods.subList(0, 2));
+        final OrderDto second = new OrderDto(0L, "Ticket2");
+        second.setFoods(foods.subList(0, 1));
+        final Long firstId = orderService.createOrder(first).getId();
+        final Long secondId = orderService.createOrder(second).getId();
+
+        mvc.perform(post("/api/orders/fulfillOrders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(List.of(secondId, firstId, secondId, 999L))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$[0].orderId").value(secondId.intValue()))
+            .andExpect(jsonPath("$[0].fulfilled").value(true))
+            .andExpect(jsonPath("$[1].fulfilled").value(true))
+            .andExpect(jsonPath("$[2].fulfilled").value(false));
+
+        mvc.perform(post("/api/orders/fulfillOrders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCreateOrder_OutOfStock() throws Exception {
+        Food food = foodRepository.findAll().get(0);
+        food.setAmount(0);
+        foodRepository.save(food);
+
+        OrderDto o = new OrderDto(0L, "SoldOutOrder");
+        o.setFoods(List.of(food));
+
+        mvc.perform(post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(o)))
             .andExpect(status().isBadRequest()); // 400
     }
 
@@ -0,0 +1,112 @@
+package FoodSeer.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.service.FoodService;
+import FoodSeer.service.impl.DashboardStats;
+
+/**
+ * Stats Controller Test for FoodSeer.
+ * Ensures the dashboard totals endpoint reports the current totals.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StatsControllerTest {
+
+    /** Mock MVC for testing controller */
+    @Autowired
+    private MockMvc mvc;
+
+    /** Reference to FoodService */
+    @Autowired
+    private FoodService foodService;
+
+    /** Reference to the dashboard totals */
+    @Autowired
+    private DashboardStats dashboardStats;
+
+    /** Runs a test's writes in a transaction of their own */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Sets up the test case with no foods.
+     *
+     * @throws Exception if error
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        foodService.deleteAllFoods();
+    }
+
+    /**
+     * Tests the GET /api/stats endpoint.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    public void testGetStats() throws Exception {
+        dashboardStats.reconcile();
+        foodService.createFood(new FoodDto("soup", 10, 4, new ArrayList<>()));
+        foodService.createFood(new FoodDto("salad", 0, 6, new ArrayList<>()));
+
+        mvc.perform(get("/api/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalFoods").value(2))
+                .andExpect(jsonPath("$.inStockFoods").value(1))
+                .andExpect(jsonPath("$.outOfStockFoods").value(1));
+    }
+
+    /**
+     * Tests that a food written while the totals are rebuilt on another
+     * thread is still counted: the rebuild cannot see the uncommitted food,
+     * so the write's commit forces another rebuild.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    public void testRebuildBeforeCommit() throws Exception {
+        dashboardStats.reconcile();
+        transactionTemplate.executeWithoutResult(status -> {
+            foodService.createFood(new FoodDto("soup", 10, 4, new ArrayList<>()));
+            final Thread rebuild = new Thread(dashboardStats::reconcile);
+            rebuild.start();
+            try {
+                rebuild.join();
+            } catch (final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(1, dashboardStats.snapshot().totalFoods());
+        foodService.deleteAllFoods();
+    }
+
+    /**
+     * Tests that customers cannot see the dashboard totals.
+     *
+     * @throws Exception if issue when running the test
+     */
+    @Test
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    public void testGetStatsForbidden() throws Exception {
+        mvc.perform(get("/api/stats")).andExpect(status().isForbidden());
+    }
+}
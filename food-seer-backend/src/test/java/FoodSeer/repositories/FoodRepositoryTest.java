@@ -2,6 +2,8 @@ package FoodSeer.repositories;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
 import java.util.List;
@@ -13,6 +15,7 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 
+import FoodSeer.entity.Allergen;
 import FoodSeer.entity.Food;
 import jakarta.transaction.Transactional;
 
@@ -67,4 +70,47 @@ class FoodRepositoryTest {
                 () -> assertEquals( Arrays.asList( "CINNAMON" ), f2.getAllergies() ) );
     }
 
+    @Test
+    @Transactional
+    public void testFindByFoodName () {
+        assertEquals( food1Id, foodRepository.findByFoodName( "COFFEE" ).get().getId() );
+        assertEquals( food2Id, foodRepository.findByFoodName( "PUMPKIN_SPICE" ).get().getId() );
+        assertTrue( foodRepository.findByFoodName( "TEA" ).isEmpty() );
+
+        assertTrue( foodRepository.existsByFoodName( "COFFEE" ) );
+        assertFalse( foodRepository.existsByFoodName( "TEA" ) );
+    }
+
+    @Test
+    @Transactional
+    public void testAllergenMaskExclusion () {
+        final Food f1 = foodRepository.findById( food1Id ).get();
+        assertEquals( Allergen.MILK.getBit() | Allergen.OTHER_BIT, f1.getAllergenMask() );
+
+        foodRepository.save( new Food( "LATTE", 4, 5, Arrays.asList( "MILK", "CAFFEINE" ) ) );
+        foodRepository.save( new Food( "TEA", 4, 2, Arrays.asList( "CAFFEINE" ) ) );
+
+        final List<Food> noMilk = foodRepository.findAll( FoodSpecifications.excludesAllergens( List.of( "MILK" ) ) );
+        assertEquals( List.of( "PUMPKIN_SPICE", "TEA" ), noMilk.stream().map( Food::getFoodName ).sorted().toList() );
+
+        // codes outside the dictionary use the allergy collection instead
+        final List<Food> noCinnamonOrCaffeine = foodRepository
+                .findAll( FoodSpecifications.excludesAllergens( List.of( "CINNAMON", "CAFFEINE" ) ) );
+        assertEquals( List.of( "COFFEE" ), noCinnamonOrCaffeine.stream().map( Food::getFoodName ).toList() );
+    }
+
+    @Test
+    @Transactional
+    public void testFindInventory () {
+        final List<InventoryItem> inventory = foodRepository.findInventoryByOrderByIdAsc();
+        assertEquals( 2, inventory.size() );
+        assertAll( "Inventory contents",
+                () -> assertEquals( food1Id, inventory.get( 0 ).getId() ),
+                () -> assertEquals( "COFFEE", inventory.get( 0 ).getFoodName() ),
+                () -> assertEquals( 5, inventory.get( 0 ).getAmount() ),
+                () -> assertEquals( 3, inventory.get( 0 ).getPrice() ),
+                () -> assertEquals( food2Id, inventory.get( 1 ).getId() ),
+                () -> assertEquals( 10, inventory.get( 1 ).getAmount() ) );
+    }
+
 }
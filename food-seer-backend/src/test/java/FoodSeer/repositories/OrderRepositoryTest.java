@@ -16,6 +16,7 @@ import FoodSeer.dto.FoodDto;
 import FoodSeer.dto.InventoryDto;
 import FoodSeer.dto.OrderDto;
 import FoodSeer.entity.Food;
+import FoodSeer.entity.Order;
 import FoodSeer.entity.User;
 import FoodSeer.service.FoodService;
 import FoodSeer.service.InventoryService;
@@ -106,4 +107,33 @@ class OrderRepositoryTest {
                 orderRepository.getReferenceById(savedOrder.getId()).getId(),
                 "The saved and retrieved order IDs should match");
     }
+
+    /**
+     * Tests counting unfulfilled orders for a food and removing the food from
+     * every order in one statement.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCountAndDeleteFoodFromOrders() {
+        final List<Food> foods = foodRepository.findAll();
+        final Food food = foods.get(0);
+
+        final OrderDto first = new OrderDto(0L, "Order1");
+        first.setFoods(List.of(food, foods.get(1)));
+        final OrderDto second = new OrderDto(0L, "Order2");
+        second.setFoods(List.of(food));
+        final Long firstId = orderService.createOrder(first).getId();
+        orderService.createOrder(second);
+
+        assertEquals(2, orderRepository.countUnfulfilledOrdersContainingFood(food.getId()));
+
+        final Order order = orderRepository.findById(firstId).orElseThrow();
+        order.setIsFulfilled(true);
+        assertEquals(1, orderRepository.countUnfulfilledOrdersContainingFood(food.getId()));
+        assertEquals(0, orderRepository.countUnfulfilledOrdersContainingFood(foods.get(2).getId()));
+
+        assertEquals(2, orderRepository.deleteFoodFromOrders(food.getId()));
+        assertEquals(0, orderRepository.countUnfulfilledOrdersContainingFood(food.getId()));
+    }
 }
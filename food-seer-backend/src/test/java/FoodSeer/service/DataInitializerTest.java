@@ -6,9 +6,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import FoodSeer.entity.Food;
+import FoodSeer.entity.Order;
+import FoodSeer.entity.User;
 import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.OrderRepository;
 import FoodSeer.repositories.RoleRepository;
 import FoodSeer.repositories.UserRepository;
 import FoodSeer.service.impl.DataInitializer;
@@ -29,6 +36,12 @@ public class DataInitializerTest {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
     @BeforeEach
     public void setup() {
         foodRepository.deleteAll();
@@ -69,6 +82,95 @@ public class DataInitializerTest {
         assertNotEquals(originalHash, updatedHash);
     }
 
+    @Test
+    public void testMigrationsRunOnce() {
+        dataInitializer.onApplicationReady();
+        dataInitializer.onApplicationReady();
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schema_migrations WHERE version = '001-drop-inventory-tables'", Integer.class));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testOrdersFoodsMigratedOnce() {
+        final Food coffee = foodRepository.save(new Food("COFFEE", 5, 3, java.util.List.of()));
+        final User user = userRepository.save(User.builder().username("migrated").email("migrated@test.com")
+                .password("password").role("ROLE_CUSTOMER").build());
+        final Order order = new Order(null, "Old order");
+        order.setUser(user);
+        final Long orderId = orderRepository.save(order).getId();
+        try {
+            jdbcTemplate.execute("CREATE TABLE orders_foods (order_id BIGINT NOT NULL, foods_id BIGINT NOT NULL)");
+            jdbcTemplate.update("INSERT INTO orders_foods VALUES (?, ?), (?, ?), (?, ?)",
+                    orderId, 999999L, orderId, coffee.getId(), orderId, coffee.getId());
+            jdbcTemplate.update("DELETE FROM schema_migrations WHERE version = '002-orders-foods-to-order-lines'");
+
+            // a row whose food is gone fails the migration; the join table is kept
+            assertThrows(Exception.class, () -> dataInitializer.onApplicationReady());
+            assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders_foods", Integer.class));
+
+            jdbcTemplate.update("DELETE FROM orders_foods WHERE foods_id = 999999");
+            dataInitializer.onApplicationReady();
+            assertEquals(2, jdbcTemplate.queryForObject(
+                    "SELECT quantity FROM order_lines WHERE order_id = ?", Integer.class, orderId));
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM schema_migrations WHERE version = '002-orders-foods-to-order-lines'",
+                    Integer.class));
+            dataInitializer.onApplicationReady();
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM order_lines WHERE order_id = ?", Integer.class, orderId));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS orders_foods");
+            orderRepository.deleteAll();
+            foodRepository.deleteAll();
+            userRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testFoodNamesMadeUnique() {
+        try {
+            // the schema of a database from before food names were unique
+            jdbcTemplate.execute("DROP INDEX uk_foods_food_name ON foods");
+            jdbcTemplate.execute("CREATE INDEX idx_foods_food_name ON foods (food_name)");
+            jdbcTemplate.update("INSERT INTO foods (food_name, amount, price, allergen_mask) "
+                    + "VALUES ('COFFEE', 5, 3, 0), (' coffee', 2, 3, 0), ('tea', 4, 2, 0)");
+            jdbcTemplate.update("DELETE FROM schema_migrations WHERE version = '003-unique-food-names'");
+
+            // duplicates fail the migration, and nothing is changed
+            assertThrows(IllegalStateException.class, () -> dataInitializer.onApplicationReady());
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM foods WHERE food_name = 'tea'", Integer.class));
+
+            jdbcTemplate.update("DELETE FROM foods WHERE food_name = ' coffee'");
+            dataInitializer.onApplicationReady();
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM foods WHERE food_name = 'TEA'", Integer.class));
+            assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                    "INSERT INTO foods (food_name, amount, price, allergen_mask) VALUES ('TEA', 1, 1, 0)"));
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM schema_migrations WHERE version = '003-unique-food-names'",
+                    Integer.class));
+        } finally {
+            foodRepository.deleteAll();
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_foods_food_name");
+            jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_foods_food_name ON foods (food_name)");
+        }
+    }
+
+    @Test
+    public void testAllergenMasksBackfilled() {
+        final FoodSeer.entity.Food food = new FoodSeer.entity.Food("LATTE", 5, 4, java.util.List.of("MILK"));
+        food.setAllergenMask(0L);
+        final Long id = foodRepository.save(food).getId();
+
+        dataInitializer.onApplicationReady();
+
+        assertEquals(FoodSeer.entity.Allergen.MILK.getBit(), foodRepository.findById(id).get().getAllergenMask());
+    }
+
     @Test
     public void testSampleFoodsCreatedWhenEmpty() {
         assertEquals(0, foodRepository.count());
@@ -0,0 +1,87 @@
+package FoodSeer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodImportResultDto;
+
+@SpringBootTest
+@Transactional
+public class FoodImportServiceImplTest {
+
+    @Autowired
+    private FoodImportService foodImportService;
+
+    @Autowired
+    private FoodService foodService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        foodService.deleteAllFoods();
+    }
+
+    @Test
+    public void testImportCsv() throws Exception {
+        foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("CAFFEINE")));
+
+        String csv = String.join("\n",
+                "foodName,amount,price,allergies",
+                "bagel,30,4,GLUTEN;WHEAT;SESAME",
+                "\"SALAD, GARDEN\",15,10,",
+                "",
+                "Bagel,1,1,",
+                "coffee,2,2,",
+                "TEA,-1,2,",
+                "SOUP,abc,2,");
+        FoodImportResultDto result = foodImportService.importFoods(new StringReader(csv), FoodImportService.Format.CSV);
+
+        assertEquals(2, result.imported());
+        assertEquals(4, result.rejected());
+        assertEquals(List.of(5L, 6L, 7L, 8L), result.errors().stream().map(e -> e.line()).toList());
+
+        FoodDto bagel = foodService.getDuplicateName("BAGEL");
+        assertNotNull(bagel);
+        assertEquals(30, bagel.getAmount());
+        assertEquals(Arrays.asList("GLUTEN", "WHEAT", "SESAME"), bagel.getAllergies());
+        assertNotNull(foodService.getDuplicateName("SALAD, GARDEN"));
+        assertNull(foodService.getDuplicateName("TEA"));
+
+        assertTrue(inventoryService.getInventory().getFoods().stream()
+                .anyMatch(f -> f.getFoodName().equals("BAGEL")));
+    }
+
+    @Test
+    public void testImportNdjsonInChunks() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            ndjson.append("{\"foodName\":\"ITEM ").append(i).append("\",\"amount\":").append(i)
+                    .append(",\"price\":2,\"allergies\":[\"SOY\"]}\n");
+        }
+        ndjson.append("not json\n");
+
+        FoodImportResultDto result = foodImportService.importFoods(new StringReader(ndjson.toString()),
+                FoodImportService.Format.NDJSON);
+
+        assertEquals(1200, result.imported());
+        assertEquals(1, result.rejected());
+        assertEquals(1201L, result.errors().get(0).line());
+        assertEquals(1200, foodService.getAllFoods().size());
+        assertEquals(Arrays.asList("SOY"), foodService.getDuplicateName("ITEM 1199").getAllergies());
+    }
+}
@@ -9,8 +9,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FoodUpdateDto;
+import FoodSeer.dto.FoodUpdateResultDto;
 import FoodSeer.dto.InventoryDto;
 import FoodSeer.exception.ResourceNotFoundException;
+import FoodSeer.service.impl.FoodCache;
 
 @SpringBootTest
 @Transactional
@@ -22,6 +25,9 @@ public class FoodServiceImplTest {
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private FoodCache foodCache;
+
     @BeforeEach
     public void setUp() throws Exception {
         foodService.deleteAllFoods();
@@ -104,6 +110,87 @@ public class FoodServiceImplTest {
         assertFood(updated, "COFFEE", 12, 5, Arrays.asList("Water"));
     }
     
+    @Test
+    public void testUpdateFoodsBatch() {
+        FoodDto coffee = foodService.createFood(new FoodDto("COFFEE", 5, 3, Arrays.asList("MILK")));
+        foodService.createFood(new FoodDto("TEA", 2, 2, Arrays.asList("CAFFEINE")));
+
+        java.util.List<FoodUpdateResultDto> results = foodService.updateFoods(Arrays.asList(
+                new FoodUpdateDto(coffee.getId(), null, 40, null, null),
+                new FoodUpdateDto(null, "tea", 30, 4, Arrays.asList("CAFFEINE", "SUGAR")),
+                new FoodUpdateDto(null, "MATCHA", 10, 5, null),
+                new FoodUpdateDto(coffee.getId(), null, -1, null, null)));
+
+        assertEquals(4, results.size());
+        assertEquals(FoodUpdateResultDto.UPDATED, results.get(0).status());
+        assertFood(results.get(0).food(), "COFFEE", 40, 3, Arrays.asList("MILK"));
+        assertEquals(FoodUpdateResultDto.UPDATED, results.get(1).status());
+        assertEquals(FoodUpdateResultDto.NOT_FOUND, results.get(2).status());
+        assertEquals(FoodUpdateResultDto.INVALID, results.get(3).status());
+
+        assertFood(foodService.getDuplicateName("TEA"), "TEA", 30, 4, Arrays.asList("CAFFEINE", "SUGAR"));
+        assertEquals(40, foodService.getFoodById(coffee.getId()).getAmount());
+    }
+
+    @Test
+    public void testSearchFoods() {
+        foodService.createFood(new FoodDto("CAESAR SALAD", 0, 11, Arrays.asList("EGGS")));
+        foodService.createFood(new FoodDto("GARDEN SALAD", 5, 10, Arrays.asList()));
+        foodService.createFood(new FoodDto("SALMON", 3, 24, Arrays.asList("FISH")));
+        foodService.createFood(new FoodDto("PASTA", 4, 14, Arrays.asList("WHEAT")));
+
+        // name prefix first, then word prefix with in-stock foods ahead
+        assertEquals(Arrays.asList("SALMON", "GARDEN SALAD", "CAESAR SALAD"),
+                foodService.searchFoods("sal", null).stream().map(FoodDto::getFoodName).toList());
+        assertEquals(Arrays.asList("GARDEN SALAD"),
+                foodService.searchFoods("gar sal", null).stream().map(FoodDto::getFoodName).toList());
+        assertEquals(1, foodService.searchFoods("sal", 1).size());
+
+        // a typo still finds the food
+        assertEquals("PASTA", foodService.searchFoods("pasat", null).get(0).getFoodName());
+
+        // restocking moves the food ahead
+        foodService.updateFood("CAESAR SALAD", 9, 11, Arrays.asList("EGGS"));
+        assertEquals("CAESAR SALAD", foodService.searchFoods("salad", null).get(0).getFoodName());
+        assertThrows(IllegalArgumentException.class, () -> foodService.searchFoods("sal", 0));
+    }
+
+    @Test
+    public void testCachedFoodIsEvictedOnUpdate() {
+        FoodDto created = foodService.createFood(new FoodDto("MOCHA", 5, 4, Arrays.asList("MILK")));
+
+        foodService.getFoodById(created.getId());
+        long hits = foodCache.getStats().hits();
+        FoodDto cached = foodService.getFoodById(created.getId());
+        assertEquals(hits + 1, foodCache.getStats().hits());
+        assertFood(cached, "MOCHA", 5, 4, Arrays.asList("MILK"));
+
+        // mutating a returned copy must not leak into the cache
+        cached.setAmount(99);
+        assertEquals(5, foodService.getFoodById(created.getId()).getAmount());
+
+        foodService.updateFood("MOCHA", 7, 6, Arrays.asList("MILK", "CAFFEINE"));
+        assertFood(foodService.getFoodById(created.getId()), "MOCHA", 7, 6, Arrays.asList("MILK", "CAFFEINE"));
+
+        foodService.getAllFoods();
+        foodService.createFood(new FoodDto("CHAI", 3, 3, Arrays.asList("CAFFEINE")));
+        assertTrue(foodService.getAllFoods().stream().anyMatch(f -> f.getFoodName().equals("CHAI")));
+    }
+
+    @Test
+    public void testStaleReadIsNotCached() {
+        FoodDto created = foodService.createFood(new FoodDto("CORTADO", 5, 4, Arrays.asList("MILK")));
+
+        // a read that began before an eviction must not be cached after it
+        long generation = foodCache.generation();
+        FoodDto stale = foodService.getFoodById(created.getId());
+        foodCache.evict(created.getId());
+        foodCache.put(stale, generation);
+        long misses = foodCache.getStats().misses();
+        foodService.getFoodById(created.getId());
+        assertEquals(misses + 1, foodCache.getStats().misses());
+    }
+
     @Test
     public void testDeleteFoodSuccess() {
         FoodDto food = new FoodDto("LATTE", 5, 4, Arrays.asList("MILK"));
@@ -141,6 +228,19 @@ public class FoodServiceImplTest {
         assertEquals("COFFEE", duplicate.getFoodName());
     }
 
+    @Test
+    public void testDuplicateNameIsNormalized() {
+        FoodDto food = new FoodDto("COFFEE", 5, 3, Arrays.asList("MILK"));
+        foodService.createFood(food);
+
+        assertTrue(foodService.isDuplicateName(" coffee "));
+        assertFalse(foodService.isDuplicateName(null));
+        assertEquals("COFFEE", foodService.getDuplicateName("coffee").getFoodName());
+
+        FoodDto updated = foodService.updateFood("Coffee", 7, 3, Arrays.asList("MILK"));
+        assertEquals(7, updated.getAmount());
+    }
+
     @Test
     public void testGetDuplicateNameNotFound() {
         FoodDto result = foodService.getDuplicateName("NON_EXISTENT");
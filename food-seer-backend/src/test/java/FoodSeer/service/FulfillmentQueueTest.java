@@ -0,0 +1,226 @@
+package FoodSeer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import FoodSeer.TestUtils;
+import FoodSeer.dto.FulfillmentTicketDto;
+import FoodSeer.dto.OrderDto;
+import FoodSeer.entity.Food;
+import FoodSeer.entity.User;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.OrderRepository;
+import FoodSeer.repositories.UserRepository;
+import FoodSeer.service.impl.FulfillmentQueue;
+
+/**
+ * Tests fulfilling orders through the FulfillmentQueue. The workers run in
+ * their own transactions, so these tests commit their data. The queue has
+ * one worker and room for one order, so a test can fill it.
+ */
+@SpringBootTest ( properties = { "app.fulfillment-queue.capacity=1", "app.fulfillment-queue.workers=1",
+        "app.fulfillment-queue.retry-backoff-ms=100" } )
+@AutoConfigureMockMvc
+class FulfillmentQueueTest {
+
+    /** Mock MVC, to submit through the controller */
+    @Autowired
+    private MockMvc          mvc;
+
+    /** Reference to Food repository */
+    @Autowired
+    private FoodRepository   foodRepository;
+
+    /** Reference to Order repository */
+    @Autowired
+    private OrderRepository  orderRepository;
+
+    /** Reference to User repository */
+    @Autowired
+    private UserRepository   userRepository;
+
+    /** Reference to Order service, spied to fail or hold up fulfillments */
+    @SpyBean
+    private OrderService     orderService;
+
+    /** Reference to the fulfillment queue */
+    @Autowired
+    private FulfillmentQueue fulfillmentQueue;
+
+    /**
+     * Clears the orders and foods and creates the customer placing the
+     * orders.
+     */
+    @BeforeEach
+    public void setUp () {
+        orderRepository.deleteAll();
+        foodRepository.deleteAll();
+        userRepository.deleteAll();
+        userRepository.save( User.builder().username( "customer" ).email( "customer@test.com" )
+                .password( "password" ).role( "ROLE_CUSTOMER" ).build() );
+    }
+
+    /**
+     * Removes the committed orders, foods and users, which the next test
+     * class does not expect.
+     */
+    @AfterEach
+    public void tearDown () {
+        orderRepository.deleteAll();
+        foodRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Tests that a queued order is fulfilled by a worker and its ticket
+     * reports it, and that a failure is reported without a retry.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    void testFulfillQueuedOrder () throws InterruptedException {
+        final Food tea = foodRepository.save( new Food( "TEA", 5, 2, new ArrayList<>() ) );
+        final OrderDto order = new OrderDto( 0L, "Teas" );
+        order.setFoods( new ArrayList<>( List.of( tea, tea ) ) );
+        final Long orderId = orderService.createOrder( order ).getId();
+
+        final FulfillmentTicketDto ticket = fulfillmentQueue.submit( orderId );
+        assertEquals( orderId, ticket.orderId() );
+        final FulfillmentTicketDto done = awaitFinished( ticket.ticketId() );
+        assertEquals( FulfillmentQueue.FULFILLED, done.status() );
+        assertEquals( 1, done.attempts() );
+        assertTrue( orderService.getOrderById( orderId ).getIsFulfilled() );
+        assertEquals( 3, foodRepository.findById( tea.getId() ).get().getAmount() );
+
+        // fulfilling it again fails for good
+        final FulfillmentTicketDto again = awaitFinished( fulfillmentQueue.submit( orderId ).ticketId() );
+        assertEquals( FulfillmentQueue.FAILED, again.status() );
+        assertEquals( 1, again.attempts() );
+        assertEquals( "Order " + orderId + " is already fulfilled", again.error() );
+
+        assertNull( fulfillmentQueue.getTicket( "unknown" ) );
+    }
+
+    /**
+     * Tests that lock timeouts are retried after a growing wait until the
+     * fulfillment succeeds, and that an order still failing after the last
+     * attempt is reported as failed.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    @Test
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    void testRetryTransientFailure () throws InterruptedException {
+        final Food tea = foodRepository.save( new Food( "TEA", 5, 2, new ArrayList<>() ) );
+        final OrderDto order = new OrderDto( 0L, "Teas" );
+        order.setFoods( new ArrayList<>( List.of( tea ) ) );
+        final Long orderId = orderService.createOrder( order ).getId();
+        final OrderDto other = new OrderDto( 0L, "MoreTeas" );
+        other.setFoods( new ArrayList<>( List.of( tea ) ) );
+        final Long otherId = orderService.createOrder( other ).getId();
+
+        doThrow( new CannotAcquireLockException( "lock wait timeout" ) )
+                .doThrow( new CannotAcquireLockException( "lock wait timeout" ) ).doCallRealMethod()
+                .when( orderService ).fulfillOrder( orderId );
+        final long start = System.nanoTime();
+        final FulfillmentTicketDto done = awaitFinished( fulfillmentQueue.submit( orderId ).ticketId() );
+        assertEquals( FulfillmentQueue.FULFILLED, done.status() );
+        assertEquals( 3, done.attempts() );
+        // waited 100 ms before the second attempt and 200 ms before the third
+        assertTrue( ( System.nanoTime() - start ) / 1_000_000 >= 300 );
+        assertEquals( 4, foodRepository.findById( tea.getId() ).get().getAmount() );
+
+        doThrow( new CannotAcquireLockException( "lock wait timeout" ) ).when( orderService )
+                .fulfillOrder( otherId );
+        final FulfillmentTicketDto failed = awaitFinished( fulfillmentQueue.submit( otherId ).ticketId() );
+        assertEquals( FulfillmentQueue.FAILED, failed.status() );
+        assertEquals( 3, failed.attempts() );
+        assertEquals( "lock wait timeout", failed.error() );
+        assertEquals( 4, foodRepository.findById( tea.getId() ).get().getAmount() );
+    }
+
+    /**
+     * Tests that a submission finding the queue full is refused with 503
+     * and a Retry-After header, and is accepted once there is room.
+     *
+     * @throws Exception
+     *             if issue when running the test
+     */
+    @Test
+    @WithMockUser ( username = "staff", roles = "STAFF" )
+    void testQueueFull () throws Exception {
+        final CountDownLatch release = new CountDownLatch( 1 );
+        doAnswer( invocation -> {
+            release.await();
+            return null;
+        } ).when( orderService ).fulfillOrder( 1L );
+        doAnswer( invocation -> null ).when( orderService ).fulfillOrder( 2L );
+        doAnswer( invocation -> null ).when( orderService ).fulfillOrder( 3L );
+
+        // the worker holds order 1, and order 2 fills the queue
+        final String running = fulfillmentQueue.submit( 1L ).ticketId();
+        for ( int i = 0; i < 200
+                && !FulfillmentQueue.RUNNING.equals( fulfillmentQueue.getTicket( running ).status() ); i++ ) {
+            Thread.sleep( 50 );
+        }
+        assertEquals( FulfillmentQueue.RUNNING, fulfillmentQueue.getTicket( running ).status() );
+        final String queued = fulfillmentQueue.submit( 2L ).ticketId();
+
+        mvc.perform( post( "/api/orders/fulfillments" ).contentType( MediaType.APPLICATION_JSON )
+                .content( TestUtils.asJsonString( new OrderDto( 3L, "Overflow" ) ) ) )
+                .andExpect( status().isServiceUnavailable() )
+                .andExpect( header().string( HttpHeaders.RETRY_AFTER, "1" ) );
+
+        release.countDown();
+        assertEquals( FulfillmentQueue.FULFILLED, awaitFinished( running ).status() );
+        assertEquals( FulfillmentQueue.FULFILLED, awaitFinished( queued ).status() );
+        assertEquals( FulfillmentQueue.FULFILLED, awaitFinished( fulfillmentQueue.submit( 3L ).ticketId() ).status() );
+    }
+
+    /**
+     * Polls a ticket until it is finished.
+     *
+     * @param ticketId
+     *            ticket id
+     * @return the finished ticket
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    private FulfillmentTicketDto awaitFinished ( final String ticketId ) throws InterruptedException {
+        for ( int i = 0; i < 200; i++ ) {
+            final FulfillmentTicketDto ticket = fulfillmentQueue.getTicket( ticketId );
+            if ( FulfillmentQueue.FULFILLED.equals( ticket.status() )
+                    || FulfillmentQueue.FAILED.equals( ticket.status() ) ) {
+                return ticket;
+            }
+            Thread.sleep( 50 );
+        }
+        throw new AssertionError( "Ticket " + ticketId + " did not finish" );
+    }
+}
@@ -0,0 +1,154 @@
+package FoodSeer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.annotation.Transactional;
+
+import FoodSeer.dto.FulfillmentResultDto;
+import FoodSeer.dto.OrderDto;
+import FoodSeer.entity.Food;
+import FoodSeer.entity.User;
+import FoodSeer.repositories.FoodRepository;
+import FoodSeer.repositories.StockJournalRepository;
+import FoodSeer.repositories.UserRepository;
+import FoodSeer.service.impl.HotStockCounters;
+
+/**
+ * Tests fulfilling orders for hot foods, whose stock is kept in
+ * HotStockCounters and written back by the journal flush.
+ */
+@SpringBootTest ( properties = { "app.hot-stock.enabled=true", "app.hot-stock.foods=latte",
+        "app.hot-stock.flush-interval-ms=3600000" } )
+class HotStockCountersTest {
+
+    /** Reference to Food repository */
+    @Autowired
+    private FoodRepository         foodRepository;
+
+    /** Reference to User repository */
+    @Autowired
+    private UserRepository         userRepository;
+
+    /** Reference to the journal */
+    @Autowired
+    private StockJournalRepository stockJournalRepository;
+
+    /** Reference to Order service */
+    @Autowired
+    private OrderService           orderService;
+
+    /** Reference to the hot stock counters */
+    @SpyBean
+    private HotStockCounters       hotStockCounters;
+
+    /**
+     * Creates the customer placing the orders.
+     */
+    @BeforeEach
+    public void setUp () {
+        userRepository.deleteAll();
+        userRepository.save( User.builder().username( "customer" ).email( "customer@test.com" )
+                .password( "password" ).role( "ROLE_CUSTOMER" ).build() );
+    }
+
+    /**
+     * Tests that hot foods are decremented in memory, journaled and written
+     * back by the flush.
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    void testFulfillHotFood () {
+        final Food latte = foodRepository.save( new Food( "LATTE", 3, 5, new ArrayList<>() ) );
+
+        final OrderDto order = new OrderDto( 0L, "Lattes" );
+        order.setFoods( new ArrayList<>( List.of( latte, latte ) ) );
+        assertTrue( orderService.fulfillOrder( orderService.createOrder( order ).getId() ).getIsFulfilled() );
+
+        // the row is untouched until the flush
+        assertEquals( 3, foodRepository.findById( latte.getId() ).get().getAmount() );
+        assertEquals( 1, hotStockCounters.amount( latte.getId() ) );
+        assertEquals( 1, stockJournalRepository.count() );
+
+        // orders are checked against the in-memory stock
+        assertThrows( IllegalArgumentException.class, () -> orderService.createOrder( order ) );
+
+        hotStockCounters.flush();
+        assertEquals( 1, foodRepository.findById( latte.getId() ).get().getAmount() );
+        assertEquals( 0, stockJournalRepository.count() );
+        assertEquals( 1, hotStockCounters.amount( latte.getId() ) );
+    }
+
+    /**
+     * Tests that the flush does not write back more units than a food has
+     * left, keeping them in the journal until the food is restocked.
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    void testFlushKeepsOversoldUnits () {
+        final Food latte = foodRepository.save( new Food( "LATTE", 3, 5, new ArrayList<>() ) );
+        final OrderDto order = new OrderDto( 0L, "Lattes" );
+        order.setFoods( new ArrayList<>( List.of( latte, latte ) ) );
+        orderService.fulfillOrder( orderService.createOrder( order ).getId() );
+
+        // an edit leaves fewer units than the journal takes out
+        final Food edited = foodRepository.findById( latte.getId() ).get();
+        edited.setAmount( 1 );
+        foodRepository.saveAndFlush( edited );
+        hotStockCounters.flush();
+        assertEquals( 1, foodRepository.findById( latte.getId() ).get().getAmount() );
+        assertEquals( 1, stockJournalRepository.count() );
+        assertEquals( 0, hotStockCounters.amount( latte.getId() ) );
+
+        final Food restocked = foodRepository.findById( latte.getId() ).get();
+        restocked.setAmount( 5 );
+        foodRepository.saveAndFlush( restocked );
+        hotStockCounters.flush();
+        assertEquals( 3, foodRepository.findById( latte.getId() ).get().getAmount() );
+        assertEquals( 0, stockJournalRepository.count() );
+    }
+
+    /**
+     * Tests that hot stock taken by a concurrent fulfillment, after the
+     * batch read it, fails only the orders that needed it.
+     */
+    @Test
+    @Transactional
+    @WithMockUser ( username = "customer", roles = "CUSTOMER" )
+    void testFulfillOrdersReportsTakenHotStock () {
+        final Food latte = foodRepository.save( new Food( "LATTE", 1, 5, new ArrayList<>() ) );
+        final Food scone = foodRepository.save( new Food( "SCONE", 5, 2, new ArrayList<>() ) );
+
+        // the batch reads two lattes, but a concurrent fulfillment took one
+        doReturn( 2 ).when( hotStockCounters ).amount( latte.getId() );
+        final OrderDto first = new OrderDto( 0L, "First" );
+        first.setFoods( new ArrayList<>( List.of( latte, scone ) ) );
+        final OrderDto second = new OrderDto( 0L, "Second" );
+        second.setFoods( new ArrayList<>( List.of( latte, scone ) ) );
+        final Long firstId = orderService.createOrder( first ).getId();
+        final Long secondId = orderService.createOrder( second ).getId();
+
+        final List<FulfillmentResultDto> results = orderService.fulfillOrders( List.of( firstId, secondId ) );
+        assertTrue( results.get( 0 ).fulfilled() );
+        assertFalse( results.get( 1 ).fulfilled() );
+        assertTrue( results.get( 1 ).error().startsWith( "Not enough stock to fulfill the order for LATTE" ) );
+
+        // only the fulfilled order took stock
+        assertEquals( 4, foodRepository.findById( scone.getId() ).get().getAmount() );
+        assertEquals( 1, stockJournalRepository.count() );
+    }
+}
@@ -0,0 +1,164 @@
+package FoodSeer.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import FoodSeer.service.impl.IdempotencyStore;
+
+/**
+ * Tests the idempotency store with keys shared through the database.
+ */
+@SpringBootTest ( properties = "app.idempotency.shared=true" )
+class IdempotencyStoreTest {
+
+    /** Reference to the store */
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    /** Reads the shared table */
+    @Autowired
+    private JdbcTemplate     jdbcTemplate;
+
+    /**
+     * Empties the shared table.
+     */
+    @AfterEach
+    public void tearDown () {
+        jdbcTemplate.update( "DELETE FROM idempotency_keys" );
+    }
+
+    /**
+     * Tests that the first response for a key is stored in the table and
+     * replayed without running the operation again, and that a request with
+     * the key while the first is running is refused.
+     */
+    @Test
+    void testReplay () {
+        final AtomicInteger runs = new AtomicInteger();
+
+        final ResponseEntity<String> first = idempotencyStore.execute( "op", "key-1", "request", String.class, () -> {
+            runs.incrementAndGet();
+            assertEquals( 0, status() );
+            assertEquals( HttpStatus.CONFLICT, idempotencyStore
+                    .execute( "op", "key-1", "request", String.class, () -> ResponseEntity.ok( "nested" ) ).getStatusCode() );
+            return ResponseEntity.ok( "first" );
+        } );
+        assertEquals( "first", first.getBody() );
+        assertNull( first.getHeaders().getFirst( IdempotencyStore.REPLAYED_HEADER ) );
+        assertEquals( 200, status() );
+
+        final ResponseEntity<String> retry = idempotencyStore.execute( "op", "key-1", "request", String.class, () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.ok( "second" );
+        } );
+        assertEquals( "first", retry.getBody() );
+        assertEquals( "true", retry.getHeaders().getFirst( IdempotencyStore.REPLAYED_HEADER ) );
+        assertEquals( 1, runs.get() );
+
+        // the same key for another operation is a different key
+        assertEquals( "other", idempotencyStore
+                .execute( "other-op", "key-1", "request", String.class, () -> ResponseEntity.ok( "other" ) ).getBody() );
+    }
+
+    /**
+     * Tests that server errors and exceptions release the key, so the
+     * request can be retried.
+     */
+    @Test
+    void testReleaseOnFailure () {
+        assertEquals( HttpStatus.SERVICE_UNAVAILABLE, idempotencyStore.execute( "op", "key-2", "request", String.class,
+                () -> new ResponseEntity<String>( HttpStatus.SERVICE_UNAVAILABLE ) ).getStatusCode() );
+        assertEquals( 0, count() );
+
+        assertThrows( IllegalStateException.class, () -> idempotencyStore.execute( "op", "key-2", "request", String.class,
+                () -> {
+                    throw new IllegalStateException( "boom" );
+                } ) );
+        assertEquals( 0, count() );
+
+        assertEquals( "done", idempotencyStore
+                .execute( "op", "key-2", "request", String.class, () -> ResponseEntity.ok( "done" ) ).getBody() );
+        assertEquals( 1, count() );
+    }
+
+    /**
+     * Tests that a key reused with a different request body is refused,
+     * whether its request is still running or has finished.
+     */
+    @Test
+    void testFingerprintMismatch () {
+        final ResponseEntity<String> first = idempotencyStore.execute( "op", "key-3", "request", String.class,
+                () -> {
+                    assertEquals( HttpStatus.UNPROCESSABLE_ENTITY, idempotencyStore.execute( "op", "key-3",
+                            "changed", String.class, () -> ResponseEntity.ok( "nested" ) ).getStatusCode() );
+                    return ResponseEntity.ok( "first" );
+                } );
+        assertEquals( "first", first.getBody() );
+
+        assertEquals( HttpStatus.UNPROCESSABLE_ENTITY, idempotencyStore
+                .execute( "op", "key-3", "changed", String.class, () -> ResponseEntity.ok( "second" ) )
+                .getStatusCode() );
+        assertEquals( "first", idempotencyStore
+                .execute( "op", "key-3", "request", String.class, () -> ResponseEntity.ok( "second" ) )
+                .getBody() );
+    }
+
+    /**
+     * Tests that a claim left by a request that died is taken over once its
+     * lease runs out, while a fresh claim still refuses the key.
+     *
+     * @throws Exception
+     *             if hashing fails
+     */
+    @Test
+    void testAbandonedClaim () throws Exception {
+        final String scoped = HexFormat.of().formatHex( MessageDigest.getInstance( "SHA-256" )
+                .digest( "\0op\0key-4".getBytes( StandardCharsets.UTF_8 ) ) );
+        jdbcTemplate.update( "INSERT INTO idempotency_keys ( idem_key, status, created_at ) VALUES ( ?, 0, ? )",
+                scoped, Timestamp.from( Instant.now() ) );
+        assertEquals( HttpStatus.CONFLICT, idempotencyStore
+                .execute( "op", "key-4", "request", String.class, () -> ResponseEntity.ok( "retry" ) )
+                .getStatusCode() );
+
+        jdbcTemplate.update( "UPDATE idempotency_keys SET created_at = ?",
+                Timestamp.from( Instant.now().minus( Duration.ofHours( 1 ) ) ) );
+        assertEquals( "retry", idempotencyStore
+                .execute( "op", "key-4", "request", String.class, () -> ResponseEntity.ok( "retry" ) ).getBody() );
+        assertEquals( 200, status() );
+    }
+
+    /**
+     * Returns the status stored for the only key in the table.
+     *
+     * @return the status
+     */
+    private int status () {
+        return jdbcTemplate.queryForObject( "SELECT status FROM idempotency_keys", Integer.class );
+    }
+
+    /**
+     * Returns the number of keys in the table.
+     *
+     * @return the number of keys
+     */
+    private int count () {
+        return jdbcTemplate.queryForObject( "SELECT COUNT(*) FROM idempotency_keys", Integer.class );
+    }
+}
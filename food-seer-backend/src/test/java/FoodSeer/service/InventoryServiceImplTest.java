@@ -11,12 +11,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.InventoryChangeDto;
+import FoodSeer.dto.InventoryChangesDto;
 import FoodSeer.dto.InventoryDto;
+import FoodSeer.dto.LowStockDto;
 import FoodSeer.entity.Food;
-import FoodSeer.exception.ResourceNotFoundException;
-import FoodSeer.mapper.InventoryMapper;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.Query;
+import FoodSeer.service.impl.InventoryLedger;
 
 /**
  * Tests InventoryServiceImpl for FoodSeer.
@@ -29,23 +30,21 @@ public class InventoryServiceImplTest {
     @Autowired
     private InventoryService inventoryService;
 
-    /** Reference to EntityManager */
-    @Autowired
-    private EntityManager entityManager;
-    
     /** Reference to FoodService */
     @Autowired
     private FoodService foodService;
 
+    /** Reference to the inventory ledger */
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
     /**
      * Sets up the test case.
-     * We assume only one inventory row.
+     * The inventory lists every food, so clearing the foods empties it.
      */
     @BeforeEach
     public void setUp() throws Exception {
-        // Clear inventory table before each test
-        final Query query = entityManager.createNativeQuery("DELETE FROM inventory");
-        query.executeUpdate();
+        foodService.deleteAllFoods();
     }
 
     /**
@@ -76,6 +75,32 @@ public class InventoryServiceImplTest {
                 () -> assertEquals(40, createdInventoryDto.getFoods().get(2).getAmount()));
     }
 
+    /**
+     * Tests that createInventory() matches foods by name, so an id in the
+     * payload cannot overwrite an unrelated food, and that new foods are
+     * validated and normalized like any other food.
+     */
+    @Test
+    @Transactional
+    public void testCreateInventoryIgnoresIds() {
+        final FoodDto pizza = foodService.createFood(new FoodDto("pizza", 20, 10, new ArrayList<>()));
+
+        final Food pasta = new Food("pasta", 30, 12, new ArrayList<>());
+        pasta.setId(pizza.getId());
+        final Food restock = new Food("Pizza", 25, 10, new ArrayList<>());
+        inventoryService.createInventory(new InventoryDto(1L, new ArrayList<>(List.of(pasta, restock))));
+
+        assertNotEquals(pizza.getId(), pasta.getId());
+        assertEquals(pizza.getId(), restock.getId());
+        assertEquals("PASTA", foodService.getFoodById(pasta.getId()).getFoodName());
+        assertEquals(25, foodService.getFoodById(pizza.getId()).getAmount());
+        assertEquals("PIZZA", foodService.getFoodById(pizza.getId()).getFoodName());
+
+        final Food invalid = new Food("soup", -1, 4, new ArrayList<>());
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryService.createInventory(new InventoryDto(1L, new ArrayList<>(List.of(invalid)))));
+    }
+
     /**
      * Tests InventoryService.updateInventory().
      */
@@ -113,63 +138,147 @@ public class InventoryServiceImplTest {
     }
 
     /**
-     * ✅ Tests InventoryMapper null-handling (mapToInventoryDto & mapToInventory)
+     * Tests that sending the inventory back unchanged keeps every food's
+     * allergies, since the inventory does not carry them.
      */
     @Test
-    public void testInventoryMapperNullCases() {
-        // When Inventory is null → InventoryDto should be null
-        assertNull(InventoryMapper.mapToInventoryDto(null));
+    @Transactional
+    public void testUpdateInventoryRoundTripKeepsAllergies() {
+        final FoodDto latte = foodService.createFood(new FoodDto("latte", 10, 4, new ArrayList<>(List.of("MILK"))));
+
+        final InventoryDto inventory = inventoryService.getInventory();
+        inventory.getFoods().get(0).setAmount(12);
+        inventoryService.updateInventory(inventory);
 
-        // When InventoryDto is null → Inventory should be null
-        assertNull(InventoryMapper.mapToInventory(null));
+        final FoodDto updated = foodService.getFoodById(latte.getId());
+        assertEquals(12, updated.getAmount());
+        assertEquals(List.of("MILK"), updated.getAllergies());
     }
-    
+
     /**
-     * Tests updateInventory throws ResourceNotFoundException when no inventory exists.
+     * Tests that updateInventory() applies the last values of a food listed
+     * twice, skips unknown foods and rejects negative amounts.
      */
     @Test
     @Transactional
-    public void testUpdateInventoryNotFound() {
-        // No inventory exists due to @BeforeEach wiping table
-
-        // Prepare dummy InventoryDto (id doesn't matter — repo will throw)
-        InventoryDto fakeInventory = new InventoryDto(1L, new ArrayList<>());
-
-        ResourceNotFoundException ex = assertThrows(ResourceNotFoundException.class, () -> {
-            inventoryService.updateInventory(fakeInventory);
-        });
+    public void testUpdateInventoryBulk() {
+        final List<Food> foods = new ArrayList<>();
+        foods.add(new Food("pizza", 20, 10, new ArrayList<>()));
+        foods.add(new Food("pasta", 30, 12, new ArrayList<>()));
+        inventoryService.createInventory(new InventoryDto(1L, foods));
+
+        final List<Food> changes = new ArrayList<>();
+        changes.add(new Food("pizza", 50, 10, new ArrayList<>()));
+        changes.add(new Food("taco", 5, 3, new ArrayList<>()));
+        changes.add(new Food("pizza", 60, 11, new ArrayList<>()));
+        final InventoryDto updated = inventoryService.updateInventory(new InventoryDto(1L, changes));
+
+        assertEquals(2, updated.getFoods().size());
+        assertEquals("PIZZA", updated.getFoods().get(0).getFoodName());
+        assertEquals(60, updated.getFoods().get(0).getAmount());
+        assertEquals(11, updated.getFoods().get(0).getPrice());
+        assertEquals(30, updated.getFoods().get(1).getAmount());
+
+        final List<Food> invalid = new ArrayList<>();
+        invalid.add(new Food("pasta", -1, 12, new ArrayList<>()));
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryService.updateInventory(new InventoryDto(1L, invalid)));
+    }
 
-        assertEquals("Inventory does not exist with id of " + fakeInventory.getId(), ex.getMessage());
+    /**
+     * Tests that getLowStock() lists the foods at or below their reorder
+     * threshold and follows stock changes.
+     */
+    @Test
+    @Transactional
+    public void testGetLowStock() {
+        final FoodDto pizza = foodService.createFood(new FoodDto("pizza", 2, 10, new ArrayList<>()));
+        final FoodDto pasta = new FoodDto("pasta", 30, 12, new ArrayList<>());
+        pasta.setReorderThreshold(40);
+        foodService.createFood(pasta);
+        foodService.createFood(new FoodDto("salad", 30, 8, new ArrayList<>()));
+
+        // pizza is under the default threshold, pasta under its own
+        List<LowStockDto> low = inventoryService.getLowStock();
+        assertEquals(List.of("PIZZA", "PASTA"), low.stream().map(LowStockDto::foodName).toList());
+        assertEquals(40, low.get(1).reorderThreshold());
+
+        foodService.updateFood("pizza", 20, 10, new ArrayList<>());
+        foodService.setReorderThreshold(pizza.getId(), 25);
+        foodService.updateFood("pasta", 50, 12, new ArrayList<>());
+        low = inventoryService.getLowStock();
+        assertEquals(1, low.size());
+        assertEquals("PIZZA", low.get(0).foodName());
+        assertEquals(20, low.get(0).amount());
+
+        assertThrows(IllegalArgumentException.class, () -> foodService.setReorderThreshold(pizza.getId(), -1));
     }
-    
+
+    /**
+     * Tests that getChanges() returns only the changes after a sequence
+     * number, pages with the limit, and keeps the latest change of each
+     * food through compaction.
+     */
     @Test
     @Transactional
-    public void testGetInventoryCreatesWhenEmpty() {
-        // ensure DB is empty (BeforeEach already does this, but explicit safety)
-        assertEquals(0, entityManager.createNativeQuery("SELECT * FROM inventory").getResultList().size());
+    public void testGetChanges() {
+        final long start = inventoryService.getChanges(0, InventoryLedger.MAX_LIMIT).latest();
+
+        final FoodDto pizza = foodService.createFood(new FoodDto("pizza", 20, 10, new ArrayList<>()));
+        final FoodDto pasta = foodService.createFood(new FoodDto("pasta", 30, 12, new ArrayList<>()));
+        InventoryChangesDto sync = inventoryService.getChanges(start, null);
+        assertEquals(List.of(pizza.getId(), pasta.getId()),
+                sync.changes().stream().map(InventoryChangeDto::foodId).toList());
+        assertFalse(sync.hasMore());
+
+        // only the delta since the last sync comes back
+        final long seen = sync.latest();
+        foodService.updateFood("pizza", 15, 11, new ArrayList<>());
+        foodService.deleteFood(pasta.getId());
+        sync = inventoryService.getChanges(seen, null);
+        assertEquals(2, sync.changes().size());
+        assertEquals(15, sync.changes().get(0).amount());
+        assertEquals(11, sync.changes().get(0).price());
+        assertTrue(sync.changes().get(1).deleted());
+
+        final InventoryChangesDto page = inventoryService.getChanges(start, 1);
+        assertTrue(page.hasMore());
+        assertEquals(1, page.changes().size());
+        assertEquals(page.changes().get(0).seq(), page.latest());
+
+        // compaction leaves one change per food, the latest
+        inventoryLedger.compact();
+        sync = inventoryService.getChanges(start, null);
+        assertEquals(2, sync.changes().size());
+        assertEquals(15, sync.changes().get(0).amount());
+        assertTrue(sync.changes().get(1).deleted());
+
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.getChanges(-1, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryService.getChanges(0, InventoryLedger.MAX_LIMIT + 1));
+    }
 
+    @Test
+    @Transactional
+    public void testGetInventoryWhenEmpty() {
         InventoryDto result = inventoryService.getInventory();
 
         assertNotNull(result);
         assertEquals(1L, result.getId());
         assertNotNull(result.getFoods());
         assertTrue(result.getFoods().isEmpty());
-
-        // Verify that a row was created in DB
-        int count = entityManager.createNativeQuery("SELECT * FROM inventory").getResultList().size();
-        assertEquals(1, count);
     }
     
     @Test
     @Transactional
     public void testGetInventoryReturnsExisting() {
-        // First call creates the (empty) inventory
+        // First call returns the empty inventory
         InventoryDto first = inventoryService.getInventory();
         assertNotNull(first);
         assertEquals(1L, first.getId());
         assertTrue(first.getFoods().isEmpty());
 
-        // Add a food the correct way (createFood updates/creates inventory entries)
+        // Every created food is part of the inventory
         foodService.createFood(new FoodSeer.dto.FoodDto("burger", 50, 5, new ArrayList<>()));
 
         // Second call should return the same existing inventory, now containing "burger"
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
@@ -16,17 +18,21 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.transaction.annotation.Transactional;
 
+import FoodSeer.dto.DashboardStatsDto;
 import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.FulfillmentResultDto;
 import FoodSeer.dto.InventoryDto;
 import FoodSeer.dto.OrderDto;
+import FoodSeer.dto.OrderLineDto;
+import FoodSeer.dto.OrderPageDto;
 import FoodSeer.entity.Food;
 import FoodSeer.entity.Order;
 import FoodSeer.entity.User;
 import FoodSeer.mapper.FoodMapper;
 import FoodSeer.repositories.FoodRepository;
-import FoodSeer.repositories.InventoryRepository;
 import FoodSeer.repositories.OrderRepository;
 import FoodSeer.repositories.UserRepository;
+import FoodSeer.service.impl.DashboardStats;
 
 /**
  * Tests OrderService and OrderServiceImpl classes for the FoodSeer project.
@@ -38,10 +44,6 @@ class OrderServiceImplTest {
     @Autowired
     private FoodRepository foodRepository;
 
-    /** Reference to Inventory repository */
-    @Autowired
-    private InventoryRepository inventoryRepository;
-
     /** Reference to Order repository */
     @Autowired
     private OrderRepository orderRepository;
@@ -62,6 +64,10 @@ class OrderServiceImplTest {
     @Autowired
     private UserRepository userRepository;
 
+    /** Reference to the dashboard totals */
+    @Autowired
+    private DashboardStats dashboardStats;
+
     /**
      * Clears all repositories before each test.
      */
@@ -69,8 +75,10 @@ class OrderServiceImplTest {
     public void setUp() throws Exception {
         foodRepository.deleteAll();
         orderRepository.deleteAll();
-        inventoryRepository.deleteAll();
         userRepository.deleteAll();
+        // Hibernate flushes inserts before deletes; clear the unique food
+        // names before the tests add their own
+        foodRepository.flush();
 
         // Create test users that match @WithMockUser usernames
         final User customer = User.builder()
@@ -166,6 +174,221 @@ class OrderServiceImplTest {
         assertEquals(savedOrder.getId(), orderService.getOrderById(savedOrder.getId()).getId());
     }
     
+    /**
+     * Tests that fulfilled orders teach which foods are ordered together.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testFulfilledOrdersFeedRelatedFoods() {
+        final Food burger = new Food("BURGER", 10, 8, new ArrayList<>());
+        final Food fries = new Food("FRIES", 10, 3, new ArrayList<>());
+        final Food soda = new Food("SODA", 10, 2, new ArrayList<>());
+        foodRepository.saveAll(List.of(burger, fries, soda));
+
+        final List<List<Food>> orders = List.of(List.of(burger, fries), List.of(burger, fries, fries),
+                List.of(burger, soda));
+        for (final List<Food> foods : orders) {
+            final OrderDto orderDto = new OrderDto(0L, "Combo");
+            orderDto.setFoods(new ArrayList<>(foods));
+            orderService.fulfillOrder(orderService.createOrder(orderDto).getId());
+        }
+        // unfulfilled orders do not count
+        final OrderDto pending = new OrderDto(0L, "Pending");
+        pending.setFoods(new ArrayList<>(List.of(fries, soda)));
+        orderService.createOrder(pending);
+
+        assertEquals(List.of("FRIES", "SODA"), foodService.getRelatedFoods(burger.getId(), null).stream()
+                .map(FoodDto::getFoodName).toList());
+        assertEquals(List.of("BURGER"), foodService.getRelatedFoods(fries.getId(), null).stream()
+                .map(FoodDto::getFoodName).toList());
+        assertEquals(1, foodService.getRelatedFoods(burger.getId(), 1).size());
+    }
+
+    /**
+     * Tests that fulfilling takes the ordered quantities out of stock and
+     * that an order cannot be fulfilled twice.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testFulfillOrderDecrementsStockOnce() {
+        final Food cake = new Food("CAKE", 5, 4, new ArrayList<>());
+        final Food milk = new Food("MILK", 3, 2, new ArrayList<>());
+        foodRepository.saveAll(List.of(cake, milk));
+
+        final OrderDto orderDto = new OrderDto(0L, "Dessert");
+        orderDto.setFoods(new ArrayList<>(List.of(cake, milk, cake)));
+        final OrderDto savedOrder = orderService.createOrder(orderDto);
+
+        final OrderDto fulfilled = orderService.fulfillOrder(savedOrder.getId());
+        assertTrue(fulfilled.getIsFulfilled());
+        assertEquals(3, foodRepository.findById(cake.getId()).get().getAmount());
+        assertEquals(2, foodRepository.findById(milk.getId()).get().getAmount());
+        assertEquals(3, foodService.getFoodById(cake.getId()).getAmount());
+
+        assertThrows(IllegalStateException.class, () -> orderService.fulfillOrder(savedOrder.getId()));
+        assertEquals(3, foodRepository.findById(cake.getId()).get().getAmount());
+    }
+
+    /**
+     * Tests that a batch fulfillment allots stock to orders in id order,
+     * fails only the orders it cannot serve, and deducts the rest.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "staff", roles = "STAFF")
+    void testFulfillOrders() {
+        final Food cake = new Food("CAKE", 5, 4, new ArrayList<>());
+        final Food milk = new Food("MILK", 5, 2, new ArrayList<>());
+        foodRepository.saveAll(List.of(cake, milk));
+
+        final List<Long> ids = new ArrayList<>();
+        for (final List<Food> foods : List.of(List.of(cake, cake), List.of(cake, cake), List.of(cake, milk))) {
+            final OrderDto orderDto = new OrderDto(0L, "Ticket");
+            orderDto.setFoods(new ArrayList<>(foods));
+            ids.add(orderService.createOrder(orderDto).getId());
+        }
+        // two units of cake go missing after ordering
+        cake.setAmount(3);
+        foodRepository.save(cake);
+
+        final List<FulfillmentResultDto> results = orderService.fulfillOrders(ids);
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).fulfilled());
+        assertFalse(results.get(1).fulfilled());
+        assertTrue(results.get(1).error().startsWith("Not enough stock"));
+        assertTrue(results.get(2).fulfilled());
+
+        assertEquals(0, foodRepository.findById(cake.getId()).get().getAmount());
+        assertEquals(4, foodRepository.findById(milk.getId()).get().getAmount());
+        assertFalse(orderService.getOrderById(ids.get(1)).getIsFulfilled());
+
+        final List<FulfillmentResultDto> again = orderService.fulfillOrders(List.of(ids.get(0), -1L));
+        assertEquals("Order " + ids.get(0) + " is already fulfilled", again.get(0).error());
+        assertEquals("Order does not exist with id -1", again.get(1).error());
+        assertThrows(IllegalArgumentException.class, () -> orderService.fulfillOrders(List.of()));
+    }
+
+    /**
+     * Tests that the dashboard totals follow order and stock changes without
+     * a recount, and agree with one.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testDashboardStatsFollowOrders() {
+        dashboardStats.reconcile();
+        final Food cake = new Food("CAKE", 2, 4, new ArrayList<>());
+        final Food milk = new Food("MILK", 0, 2, new ArrayList<>());
+        foodRepository.saveAll(List.of(cake, milk));
+        assertEquals(new DashboardStatsDto(0, 0, 0, 2, 1, 1), dashboardStats.snapshot());
+
+        final OrderDto orderDto = new OrderDto(0L, "Dessert");
+        orderDto.setFoods(new ArrayList<>(List.of(cake, cake)));
+        final OrderDto savedOrder = orderService.createOrder(orderDto);
+        assertEquals(new DashboardStatsDto(1, 0, 1, 2, 1, 1), dashboardStats.snapshot());
+
+        orderService.fulfillOrder(savedOrder.getId());
+        final DashboardStatsDto stats = dashboardStats.snapshot();
+        assertEquals(new DashboardStatsDto(0, 1, 1, 2, 0, 2), stats);
+
+        dashboardStats.reconcile();
+        assertEquals(stats, dashboardStats.snapshot());
+    }
+
+    /**
+     * Tests that an order keeps one line per food with its quantity and the
+     * price at the time of ordering, whether the units come as line items or
+     * as repeated foods.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCreateOrderWithLines() {
+        final Food coffee = new Food("COFFEE", 60, 3, new ArrayList<>());
+        final Food bagel = new Food("BAGEL", 10, 4, new ArrayList<>());
+        foodRepository.saveAll(List.of(coffee, bagel));
+
+        final OrderDto catering = new OrderDto(0L, "Catering");
+        catering.setLines(new ArrayList<>(List.of(new OrderLineDto(coffee.getId(), null, 50, 0))));
+        catering.setFoods(new ArrayList<>(List.of(bagel, bagel)));
+        final OrderDto saved = orderService.createOrder(catering);
+
+        assertEquals(2, saved.getLines().size());
+        assertEquals(new OrderLineDto(coffee.getId(), "COFFEE", 50, 3), saved.getLines().get(0));
+        assertEquals(new OrderLineDto(bagel.getId(), "BAGEL", 2, 4), saved.getLines().get(1));
+
+        // the line keeps the price the order was placed at
+        coffee.setPrice(5);
+        foodRepository.save(coffee);
+        assertEquals(3, orderService.getOrderById(saved.getId()).getLines().get(0).unitPrice());
+
+        orderService.fulfillOrder(saved.getId());
+        assertEquals(10, foodRepository.findById(coffee.getId()).get().getAmount());
+        assertEquals(8, foodRepository.findById(bagel.getId()).get().getAmount());
+
+        final OrderDto empty = new OrderDto(0L, "Nothing");
+        empty.setLines(new ArrayList<>(List.of(new OrderLineDto(coffee.getId(), null, 0, 0))));
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(empty));
+
+        // lines that add up past an int, or past the stock, are rejected
+        final OrderDto overflow = new OrderDto(0L, "Overflow");
+        overflow.setLines(new ArrayList<>(List.of(new OrderLineDto(bagel.getId(), null, Integer.MAX_VALUE, 0),
+                new OrderLineDto(bagel.getId(), null, Integer.MAX_VALUE, 0))));
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(overflow));
+        final OrderDto tooMany = new OrderDto(0L, "Too many");
+        tooMany.setLines(new ArrayList<>(List.of(new OrderLineDto(bagel.getId(), null, 5, 0),
+                new OrderLineDto(bagel.getId(), null, 4, 0))));
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(tooMany));
+    }
+
+    /**
+     * Tests that order listings carry each order's user and lines, that
+     * the fulfilled and unfulfilled listings filter in the query, and that
+     * keyset pages continue after their cursor.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testListOrdersWithLines() {
+        final Food wrap = new Food("WRAP", 10, 6, new ArrayList<>());
+        final Food juice = new Food("JUICE", 10, 2, new ArrayList<>());
+        foodRepository.saveAll(List.of(wrap, juice));
+
+        final OrderDto lunch = new OrderDto(0L, "Lunch");
+        lunch.setLines(new ArrayList<>(List.of(new OrderLineDto(wrap.getId(), null, 2, 0),
+                new OrderLineDto(juice.getId(), null, 3, 0))));
+        final Long lunchId = orderService.createOrder(lunch).getId();
+        final OrderDto snack = new OrderDto(0L, "Snack");
+        snack.setFoods(new ArrayList<>(List.of(juice)));
+        final Long snackId = orderService.createOrder(snack).getId();
+        orderService.fulfillOrder(snackId);
+
+        final List<OrderDto> all = orderService.getAllOrders();
+        assertEquals(List.of(lunchId, snackId), all.stream().map(OrderDto::getId).toList());
+        assertEquals("customer", all.get(0).getUsername());
+        assertEquals(List.of(new OrderLineDto(wrap.getId(), "WRAP", 2, 6),
+                new OrderLineDto(juice.getId(), "JUICE", 3, 2)), all.get(0).getLines());
+        assertEquals(List.of(new OrderLineDto(juice.getId(), "JUICE", 1, 2)), all.get(1).getLines());
+
+        assertEquals(List.of(lunchId), orderService.getAllUnfulfilledOrders().stream().map(OrderDto::getId).toList());
+        final List<OrderDto> fulfilled = orderService.getCurrentUserFulfilledOrders();
+        assertEquals(List.of(snackId), fulfilled.stream().map(OrderDto::getId).toList());
+        assertEquals(1, fulfilled.get(0).getLines().size());
+
+        // keyset pages carry their orders' lines and end with a null cursor
+        final OrderPageDto first = orderService.getCurrentUserOrderPage(null, 1, null);
+        assertEquals(List.of(lunchId), first.orders().stream().map(OrderDto::getId).toList());
+        assertEquals(2, first.orders().get(0).getLines().size());
+        final OrderPageDto second = orderService.getCurrentUserOrderPage(null, 1, first.nextCursor());
+        assertEquals(List.of(snackId), second.orders().stream().map(OrderDto::getId).toList());
+        assertEquals(1, second.orders().get(0).getLines().size());
+        assertNull(second.nextCursor());
+        assertTrue(orderService.getOrderPage(false, 10, first.nextCursor()).orders().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrderPage(null, 0, null));
+    }
+
     @Test
     @Transactional
     void testCreateOrderNoAuthenticatedUser() {
@@ -196,17 +419,56 @@ class OrderServiceImplTest {
         OrderDto orderDto = new OrderDto(0L, "TeaOrder");
         orderDto.setFoods(new ArrayList<>(List.of(food, food))); // ordering 2 units
 
+        IllegalArgumentException ex = org.junit.jupiter.api.Assertions.assertThrows(
+                IllegalArgumentException.class, () -> orderService.createOrder(orderDto));
+
+        assertEquals(
+            "Not enough stock to order TEA. Requested: 2, Available: 1",
+            ex.getMessage()
+        );
+
+        // One TEA can be ordered, but not fulfilled once the stock is gone
+        orderDto.setFoods(new ArrayList<>(List.of(food)));
         OrderDto savedOrder = orderService.createOrder(orderDto);
+        foodService.updateFood("TEA", 0, 3, new ArrayList<>());
 
-        IllegalArgumentException ex = org.junit.jupiter.api.Assertions.assertThrows(
+        ex = org.junit.jupiter.api.Assertions.assertThrows(
                 IllegalArgumentException.class, () -> orderService.fulfillOrder(savedOrder.getId()));
 
         assertEquals(
-            "Not enough stock to fulfill the order for TEA. Need: 2, Available: 1",
+            "Not enough stock to fulfill the order for TEA. Need: 1, Available: 0",
             ex.getMessage()
         );
     }
 
+    /**
+     * Tests that creating an order holds its stock until it is fulfilled.
+     */
+    @Test
+    @Transactional
+    @WithMockUser(username = "customer", roles = "CUSTOMER")
+    void testCreateOrderHoldsStock() {
+        final Food pie = new Food("PIE", 3, 6, new ArrayList<>());
+        foodRepository.save(pie);
+
+        final OrderDto first = new OrderDto(0L, "First");
+        first.setFoods(new ArrayList<>(List.of(pie, pie)));
+        final OrderDto savedFirst = orderService.createOrder(first);
+
+        // only one unit is left to promise
+        final OrderDto second = new OrderDto(0L, "Second");
+        second.setFoods(new ArrayList<>(List.of(pie, pie)));
+        assertThrows(IllegalArgumentException.class, () -> orderService.createOrder(second));
+
+        // fulfilling turns the hold into a stock decrement
+        orderService.fulfillOrder(savedFirst.getId());
+        assertEquals(1, foodRepository.findById(pie.getId()).get().getAmount());
+
+        second.setFoods(new ArrayList<>(List.of(pie)));
+        assertTrue(orderService.fulfillOrder(orderService.createOrder(second).getId()).getIsFulfilled());
+        assertEquals(0, foodRepository.findById(pie.getId()).get().getAmount());
+    }
+
     @Test
     @Transactional
     void testGetCurrentUserOrdersNoUser() {
@@ -342,7 +604,8 @@ class OrderServiceImplTest {
         OrderDto orderDto = new OrderDto(1L, "MorningOrder");
         orderDto.setFoods(new ArrayList<>(List.of(
                 FoodMapper.mapToFood(f1),
-                FoodMapper.mapToFood(f2)
+                FoodMapper.mapToFood(f2),
+                FoodMapper.mapToFood(f1)
         )));
         orderDto.setIsFulfilled(true);
 
@@ -353,25 +616,25 @@ class OrderServiceImplTest {
         assertAll(
             () -> assertEquals(orderDto.getId(), mappedOrder.getId()),
             () -> assertEquals(orderDto.getName(), mappedOrder.getName()),
-            () -> assertEquals(2, mappedOrder.getFoods().size()),
+            () -> assertEquals(2, mappedOrder.getLines().size()),
             
-            // Food #1 check
-            () -> assertEquals("LATTE", mappedOrder.getFoods().get(0).getFoodName()),
-            () -> assertEquals(2, mappedOrder.getFoods().get(0).getAmount()),
-            () -> assertEquals(5, mappedOrder.getFoods().get(0).getPrice()),
+            // Food #1 check: listed twice, one line
+            () -> assertEquals("LATTE", mappedOrder.getLines().get(0).getFood().getFoodName()),
+            () -> assertEquals(2, mappedOrder.getLines().get(0).getQuantity()),
+            () -> assertEquals(5, mappedOrder.getLines().get(0).getUnitPrice()),
 
             // Food #2 check
-            () -> assertEquals("TEA", mappedOrder.getFoods().get(1).getFoodName()),
-            () -> assertEquals(1, mappedOrder.getFoods().get(1).getAmount()),
-            () -> assertEquals(3, mappedOrder.getFoods().get(1).getPrice()),
+            () -> assertEquals("TEA", mappedOrder.getLines().get(1).getFood().getFoodName()),
+            () -> assertEquals(1, mappedOrder.getLines().get(1).getQuantity()),
+            () -> assertEquals(3, mappedOrder.getLines().get(1).getUnitPrice()),
 
             // Fulfillment flag
             () -> assertTrue(mappedOrder.getIsFulfilled())
         );
 
         // Ensure we created NEW Food entities, not reusing objects
-        assertNotSame(orderDto.getFoods().get(0), mappedOrder.getFoods().get(0));
-        assertNotSame(orderDto.getFoods().get(1), mappedOrder.getFoods().get(1));
+        assertNotSame(orderDto.getFoods().get(0), mappedOrder.getLines().get(0).getFood());
+        assertNotSame(orderDto.getFoods().get(1), mappedOrder.getLines().get(1).getFood());
     }
 
 }
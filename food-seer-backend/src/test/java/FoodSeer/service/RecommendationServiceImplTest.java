@@ -0,0 +1,94 @@
+package FoodSeer.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import FoodSeer.dto.FoodDto;
+import FoodSeer.dto.RecommendationPageDto;
+import FoodSeer.entity.User;
+
+@SpringBootTest
+@Transactional
+public class RecommendationServiceImplTest {
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private FoodService foodService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        foodService.deleteAllFoods();
+        foodService.createFood(new FoodDto("SALAD", 5, 8, Arrays.asList()));
+        foodService.createFood(new FoodDto("LATTE", 9, 6, Arrays.asList("MILK", "CAFFEINE")));
+        foodService.createFood(new FoodDto("TOAST", 3, 6, Arrays.asList("WHEAT")));
+        foodService.createFood(new FoodDto("PASTA", 4, 15, Arrays.asList("WHEAT", "EGGS")));
+        foodService.createFood(new FoodDto("STEAK", 2, 30, Arrays.asList("BEEF")));
+        foodService.createFood(new FoodDto("LOBSTER", 1, 60, Arrays.asList("SHELLFISH")));
+        foodService.createFood(new FoodDto("SOUP", 0, 4, Arrays.asList()));
+        foodService.createFood(new FoodDto("CURRY", 6, 12, Arrays.asList("CORIANDER")));
+    }
+
+    private User user(String costPreference, String dietaryRestrictions) {
+        return User.builder()
+                .username("diner")
+                .costPreference(costPreference)
+                .dietaryRestrictions(dietaryRestrictions)
+                .build();
+    }
+
+    private List<String> names(RecommendationPageDto page) {
+        return page.foods().stream().map(FoodDto::getFoodName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testBudgetTiersAreCumulativeAndInStock() {
+        assertEquals(List.of("LATTE", "TOAST", "SALAD"),
+                names(recommendationService.getRecommendations(user("budget", null), null, null)));
+        assertEquals(List.of("LATTE", "TOAST", "SALAD", "CURRY", "PASTA"),
+                names(recommendationService.getRecommendations(user("moderate", null), null, null)));
+        assertEquals(7, recommendationService.getRecommendations(user("no-limit", null), null, null).total());
+        assertEquals(7, recommendationService.getRecommendations(user(null, null), null, null).total());
+    }
+
+    @Test
+    public void testDietaryRestrictionsExcludeFoods() {
+        assertEquals(List.of("SALAD", "CURRY"),
+                names(recommendationService.getRecommendations(user("moderate", "milk, Wheat"), null, null)));
+        assertEquals(List.of("LATTE", "TOAST", "SALAD", "PASTA"),
+                names(recommendationService.getRecommendations(user("moderate", "coriander"), null, null)));
+    }
+
+    @Test
+    public void testPagination() {
+        RecommendationPageDto page = recommendationService.getRecommendations(user("premium", null), 1, 2);
+        assertEquals(List.of("SALAD", "CURRY"), names(page));
+        assertEquals(6, page.total());
+
+        page = recommendationService.getRecommendations(user("premium", null), 3, 2);
+        assertTrue(page.foods().isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                recommendationService.getRecommendations(user("premium", null), -1, 2));
+        assertThrows(IllegalArgumentException.class, () ->
+                recommendationService.getRecommendations(user("premium", null), 0, 0));
+    }
+
+    @Test
+    public void testRecommendationsFollowCatalogChanges() {
+        assertEquals(3, recommendationService.getRecommendations(user("budget", null), null, null).total());
+
+        foodService.updateFood("SOUP", 10, 4, Arrays.asList());
+
+        assertEquals(List.of("SOUP", "LATTE", "TOAST", "SALAD"),
+                names(recommendationService.getRecommendations(user("budget", null), null, null)));
+    }
+}
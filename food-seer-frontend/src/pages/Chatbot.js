@@ -1,6 +1,6 @@
 import React, { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { sendChatMessage, getCurrentUser, getAllFoods } from '../services/api';
+import { sendChatMessage, getCurrentUser, getRecommendations } from '../services/api';
 
 const Chatbot = () => {
   const navigate = useNavigate();
@@ -101,7 +101,7 @@ const Chatbot = () => {
   }, [messages]);
 
   const getPersonalizedPrompt = (mood, hunger, preference, userData, foods) => {
-    const budget = userData?.costPreference || 'moderate';
+    const budget = userData?.costPreference || 'no-limit';
     const dietaryRestrictions = userData?.dietaryRestrictions || '';
     
     // Convert dietary restrictions to array if it's a string
@@ -109,26 +109,7 @@ const Chatbot = () => {
       ? dietaryRestrictions.split(',').map(a => a.trim().toLowerCase()).filter(a => a.length > 0)
       : [];
     
-    // Filter foods based on budget and allergies
-    const availableFoods = foods.filter(food => {
-      // Budget filtering (cumulative)
-      if (budget === 'budget' && food.price > 10) return false;
-      if (budget === 'moderate' && food.price > 20) return false;
-      if (budget === 'premium' && food.price > 35) return false;
-      
-      // Allergy filtering - exclude foods that contain any of user's allergens
-      if (allergies.length > 0 && food.allergies && food.allergies.length > 0) {
-        const foodAllergies = food.allergies.map(a => a.toLowerCase());
-        // If any user allergen matches any food allergen, exclude this food
-        if (allergies.some(userAllergen => foodAllergies.includes(userAllergen))) {
-          return false;
-        }
-      }
-      
-      return true;
-    });
-
-    const foodList = availableFoods.map(f => `${f.foodName} ($${f.price})`).join(', ');
+    const foodList = foods.map(f => `${f.foodName} ($${f.price})`).join(', ');
     const allergiesText = allergies.length > 0 ? allergies.join(', ') : 'none';
     
     return `You are a helpful food recommendation assistant. Based on the following information, recommend ONE specific food item from the available menu.
@@ -168,9 +149,10 @@ Format your response as: "I recommend [FOOD NAME]! [Explanation]"`;
 
       // If we've asked all questions, get food recommendation
       if (conversationStep === 2) {
-        // Get user data and foods for personalized recommendation
+        // Get user data and the foods that fit their budget and dietary
+        // restrictions (filtered by the server)
         const userData = await getCurrentUser();
-        const foods = await getAllFoods();
+        const { foods } = await getRecommendations(0, 100);
         
         const personalizedPrompt = getPersonalizedPrompt(
           responses.mood,
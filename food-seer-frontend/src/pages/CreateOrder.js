@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate, useLocation } from 'react-router-dom';
-import { getAllFoods, createOrder, getCurrentUser } from '../services/api';
+import { getAllFoods, createOrder, getCurrentUser, searchFoodNames } from '../services/api';
 
 const CreateOrder = () => {
   const [foods, setFoods] = useState([]);
@@ -9,6 +9,7 @@ const CreateOrder = () => {
   const [loading, setLoading] = useState(true);
   const [submitting, setSubmitting] = useState(false);
   const [searchTerm, setSearchTerm] = useState('');
+  const [searchResults, setSearchResults] = useState(null);
   const [notification, setNotification] = useState(null);
   const navigate = useNavigate();
   const location = useLocation();
@@ -31,6 +32,34 @@ const CreateOrder = () => {
     fetchFoods();
   }, [navigate]);
 
+  // Search on the server once typing pauses
+  useEffect(() => {
+    const term = searchTerm.trim();
+    if (!term) {
+      setSearchResults(null);
+      return undefined;
+    }
+
+    let cancelled = false;
+    const timer = setTimeout(async () => {
+      try {
+        const results = await searchFoodNames(term);
+        if (!cancelled) {
+          setSearchResults(results.filter(food => food.amount > 0));
+        }
+      } catch (error) {
+        if (!cancelled) {
+          setSearchResults(null);
+        }
+      }
+    }, 150);
+
+    return () => {
+      cancelled = true;
+      clearTimeout(timer);
+    };
+  }, [searchTerm]);
+
   // Handle food from chatbot recommendation
   useEffect(() => {
     if (location.state?.addToCart && foods.length > 0) {
@@ -114,14 +143,15 @@ const CreateOrder = () => {
 
     setSubmitting(true);
     try {
-      // Prepare order data - send foods with only id field for backend processing
-      const orderFoods = Object.values(cart).flatMap(item => 
-        Array(item.quantity).fill({ id: item.food.id })
-      );
+      // Prepare order data - one line per food with its quantity
+      const orderLines = Object.values(cart).map(item => ({
+        foodId: item.food.id,
+        quantity: item.quantity
+      }));
 
       const orderData = {
         name: orderName,
-        foods: orderFoods,
+        lines: orderLines,
         isFulfilled: false
       };
 
@@ -137,7 +167,8 @@ const CreateOrder = () => {
     }
   };
 
-  const filteredFoods = foods.filter(food =>
+  // Fall back to filtering locally until the server results arrive
+  const filteredFoods = searchResults ?? foods.filter(food =>
     food.foodName.toLowerCase().includes(searchTerm.toLowerCase())
   );
 
@@ -1,6 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { getAllFoods, createFood, updateFood, deleteFood, getCurrentUser } from '../services/api';
+import { getAllFoods, createFood, updateFood, deleteFood, getCurrentUser, getLowStock, watchLowStock, getStats } from '../services/api';
 
 const InventoryManagement = () => {
   // Comprehensive list of allergens
@@ -12,6 +12,8 @@ const InventoryManagement = () => {
   ];
 
   const [foods, setFoods] = useState([]);
+  const [lowStock, setLowStock] = useState([]);
+  const [stats, setStats] = useState(null);
   const [loading, setLoading] = useState(true);
   const [showAddForm, setShowAddForm] = useState(false);
   const [editingFood, setEditingFood] = useState(null);
@@ -36,6 +38,8 @@ const InventoryManagement = () => {
 
       const foodsData = await getAllFoods();
       setFoods(foodsData);
+      setLowStock(await getLowStock());
+      setStats(await getStats());
     } catch (error) {
       console.error('Error fetching foods:', error);
       navigate('/');
@@ -48,6 +52,17 @@ const InventoryManagement = () => {
     fetchFoods();
   }, []);
 
+  // Keep the low stock list current without polling the inventory
+  useEffect(() => {
+    const stop = watchLowStock((type, food) => {
+      setLowStock(prev => {
+        const others = prev.filter(f => f.foodId !== food.foodId);
+        return type === 'low' ? [...others, food] : others;
+      });
+    });
+    return stop;
+  }, []);
+
   const handleInputChange = (e) => {
     const { name, value } = e.target;
     setFormData(prev => ({
@@ -184,15 +199,19 @@ const InventoryManagement = () => {
       <div className="dashboard-stats">
         <div className="stat-card">
           <h3>Total Foods</h3>
-          <p className="stat-number">{foods.length}</p>
+          <p className="stat-number">{stats ? stats.totalFoods : '-'}</p>
         </div>
         <div className="stat-card">
           <h3>In Stock</h3>
-          <p className="stat-number">{foods.filter(f => f.amount > 0).length}</p>
+          <p className="stat-number">{stats ? stats.inStockFoods : '-'}</p>
         </div>
         <div className="stat-card">
           <h3>Out of Stock</h3>
-          <p className="stat-number">{foods.filter(f => f.amount === 0).length}</p>
+          <p className="stat-number">{stats ? stats.outOfStockFoods : '-'}</p>
+        </div>
+        <div className="stat-card">
+          <h3>Low Stock</h3>
+          <p className="stat-number">{lowStock.length}</p>
         </div>
       </div>
 
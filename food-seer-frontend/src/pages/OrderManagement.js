@@ -1,10 +1,15 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { getUnfulfilledOrders, getFulfilledOrders, fulfillOrder, getCurrentUser } from '../services/api';
+import { getUnfulfilledOrders, getOrderPage, fulfillOrder, fulfillOrders, getCurrentUser, getStats } from '../services/api';
+
+// Fulfilled orders fetched per page
+const FULFILLED_PAGE_SIZE = 50;
 
 const OrderManagement = () => {
   const [unfulfilledOrders, setUnfulfilledOrders] = useState([]);
   const [fulfilledOrders, setFulfilledOrders] = useState([]);
+  const [fulfilledCursor, setFulfilledCursor] = useState(null);
+  const [stats, setStats] = useState(null);
   const [loading, setLoading] = useState(true);
   const [view, setView] = useState('unfulfilled'); // unfulfilled or fulfilled
   const [processing, setProcessing] = useState({});
@@ -22,9 +27,11 @@ const OrderManagement = () => {
       }
 
       const unfulfilled = await getUnfulfilledOrders();
-      const fulfilled = await getFulfilledOrders();
+      const fulfilled = await getOrderPage('fulfilledOrders', { limit: FULFILLED_PAGE_SIZE });
       setUnfulfilledOrders(unfulfilled);
-      setFulfilledOrders(fulfilled);
+      setFulfilledOrders(fulfilled.orders);
+      setFulfilledCursor(fulfilled.nextCursor);
+      setStats(await getStats());
     } catch (error) {
       console.error('Error fetching orders:', error);
       navigate('/');
@@ -57,8 +64,48 @@ const OrderManagement = () => {
     }
   };
 
+  const handleFulfillAll = async () => {
+    if (!window.confirm(`Fulfill all ${unfulfilledOrders.length} pending orders?`)) {
+      return;
+    }
+
+    setProcessing(prev => ({ ...prev, all: true }));
+
+    try {
+      const results = await fulfillOrders(unfulfilledOrders.map(order => order.id));
+      const failed = results.filter(result => !result.fulfilled);
+      if (failed.length === 0) {
+        alert(`${results.length} orders fulfilled successfully!`);
+      } else {
+        alert(`${results.length - failed.length} orders fulfilled. Not fulfilled:\n`
+          + failed.map(result => `#${result.orderId}: ${result.error}`).join('\n'));
+      }
+      // Refresh orders
+      await fetchOrders();
+    } catch (error) {
+      console.error('Error fulfilling orders:', error);
+      alert('Failed to fulfill orders. Please try again.');
+    } finally {
+      setProcessing(prev => ({ ...prev, all: false }));
+    }
+  };
+
+  const handleLoadMore = async () => {
+    try {
+      const page = await getOrderPage('fulfilledOrders', { limit: FULFILLED_PAGE_SIZE, cursor: fulfilledCursor });
+      setFulfilledOrders(prev => [...prev, ...page.orders]);
+      setFulfilledCursor(page.nextCursor);
+    } catch (error) {
+      console.error('Error fetching orders:', error);
+    }
+  };
+
   const getTotalPrice = (order) => {
-    return order.foods.reduce((total, food) => total + food.price, 0);
+    return order.lines.reduce((total, line) => total + line.unitPrice * line.quantity, 0);
+  };
+
+  const getTotalItems = (order) => {
+    return order.lines.reduce((total, line) => total + line.quantity, 0);
   };
 
   const handleBack = () => {
@@ -87,15 +134,15 @@ const OrderManagement = () => {
       <div className="dashboard-stats">
         <div className="stat-card">
           <h3>Pending Orders</h3>
-          <p className="stat-number">{unfulfilledOrders.length}</p>
+          <p className="stat-number">{stats ? stats.pendingOrders : '-'}</p>
         </div>
         <div className="stat-card">
-          <h3>Fulfilled Today</h3>
-          <p className="stat-number">{fulfilledOrders.length}</p>
+          <h3>Fulfilled Orders</h3>
+          <p className="stat-number">{stats ? stats.fulfilledOrders : '-'}</p>
         </div>
         <div className="stat-card">
           <h3>Total Orders</h3>
-          <p className="stat-number">{unfulfilledOrders.length + fulfilledOrders.length}</p>
+          <p className="stat-number">{stats ? stats.totalOrders : '-'}</p>
         </div>
       </div>
 
@@ -110,8 +157,17 @@ const OrderManagement = () => {
           className={`toggle-button ${view === 'fulfilled' ? 'active' : ''}`}
           onClick={() => setView('fulfilled')}
         >
-          Fulfilled Orders ({fulfilledOrders.length})
+          Fulfilled Orders ({stats ? stats.fulfilledOrders : fulfilledOrders.length})
         </button>
+        {view === 'unfulfilled' && unfulfilledOrders.length > 1 && (
+          <button
+            className="fulfill-button"
+            onClick={handleFulfillAll}
+            disabled={processing.all}
+          >
+            {processing.all ? 'Processing...' : '✓ Fulfill All'}
+          </button>
+        )}
       </div>
 
       {displayOrders.length === 0 ? (
@@ -143,7 +199,7 @@ const OrderManagement = () => {
               <div className="order-summary">
                 <div className="summary-item">
                   <span className="label">Total Items:</span>
-                  <span className="value">{order.foods.length}</span>
+                  <span className="value">{getTotalItems(order)}</span>
                 </div>
                 <div className="summary-item">
                   <span className="label">Total Price:</span>
@@ -157,19 +213,16 @@ const OrderManagement = () => {
                   <thead>
                     <tr>
                       <th>Item</th>
-                      <th>Price</th>
-                      <th>Allergies</th>
+                      <th>Quantity</th>
+                      <th>Unit Price</th>
                     </tr>
                   </thead>
                   <tbody>
-                    {order.foods.map((food, index) => (
-                      <tr key={`${food.id}-${index}`}>
-                        <td>{food.foodName}</td>
-                        <td>${food.price}</td>
-                        <td>{food.allergies && food.allergies.length > 0 
-                          ? food.allergies.join(', ') 
-                          : 'None'}
-                        </td>
+                    {order.lines.map((line) => (
+                      <tr key={line.foodId}>
+                        <td>{line.foodName}</td>
+                        <td>{line.quantity}</td>
+                        <td>${line.unitPrice}</td>
                       </tr>
                     ))}
                   </tbody>
@@ -177,6 +230,11 @@ const OrderManagement = () => {
               </div>
             </div>
           ))}
+          {view === 'fulfilled' && fulfilledCursor && (
+            <button className="toggle-button" onClick={handleLoadMore}>
+              Load More
+            </button>
+          )}
         </div>
       )}
     </div>
@@ -45,7 +45,11 @@ const Orders = () => {
   };
 
   const getTotalPrice = (order) => {
-    return order.foods.reduce((total, food) => total + food.price, 0);
+    return order.lines.reduce((total, line) => total + line.unitPrice * line.quantity, 0);
+  };
+
+  const getTotalItems = (order) => {
+    return order.lines.reduce((total, line) => total + line.quantity, 0);
   };
 
   if (loading) {
@@ -114,16 +118,16 @@ const Orders = () => {
               <div className="order-details">
                 <div className="order-info">
                   <p><strong>Order ID:</strong> #{order.id}</p>
-                  <p><strong>Total Items:</strong> {order.foods.length}</p>
+                  <p><strong>Total Items:</strong> {getTotalItems(order)}</p>
                   <p><strong>Total Price:</strong> ${getTotalPrice(order)}</p>
                 </div>
 
                 <div className="order-items">
                   <h4>Items:</h4>
                   <ul>
-                    {order.foods.map((food, index) => (
-                      <li key={`${food.id}-${index}`}>
-                        {food.foodName} - ${food.price}
+                    {order.lines.map((line) => (
+                      <li key={line.foodId}>
+                        {line.quantity} x {line.foodName} - ${line.unitPrice}
                       </li>
                     ))}
                   </ul>
@@ -1,11 +1,14 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
-import { getCurrentUser, logout, getAllFoods } from '../services/api';
+import { getCurrentUser, logout, getRecommendations } from '../services/api';
+
+const PAGE_SIZE = 20;
 
 const Recommendations = () => {
   const [user, setUser] = useState(null);
-  const [foods, setFoods] = useState([]);
-  const [filteredFoods, setFilteredFoods] = useState([]);
+  const [recommendations, setRecommendations] = useState([]);
+  const [total, setTotal] = useState(0);
+  const [page, setPage] = useState(0);
   const [loading, setLoading] = useState(true);
   const navigate = useNavigate();
 
@@ -15,11 +18,11 @@ const Recommendations = () => {
         const userData = await getCurrentUser();
         setUser(userData);
         
-        const foodsData = await getAllFoods();
-        setFoods(foodsData);
-        
-        // Filter foods based on user preferences
-        filterFoodsByPreferences(foodsData, userData);
+        // The server filters by budget and dietary restrictions
+        const result = await getRecommendations(0, PAGE_SIZE);
+        setRecommendations(result.foods);
+        setTotal(result.total);
+        setPage(0);
       } catch (error) {
         console.error('Error fetching data:', error);
         navigate('/');
@@ -31,47 +34,15 @@ const Recommendations = () => {
     fetchData();
   }, [navigate]);
 
-  const filterFoodsByPreferences = (foodsData, userData) => {
-    let filtered = [...foodsData];
-
-    // Filter by budget/cost preference (cumulative ranges)
-    if (userData.costPreference && userData.costPreference !== 'no-limit') {
-      const budget = userData.costPreference.toLowerCase();
-      
-      if (budget === 'budget') {
-        // Budget option: $0-$10 (most affordable)
-        filtered = filtered.filter(food => food.price <= 10);
-      } else if (budget === 'moderate') {
-        // Moderate option: $0-$20 (includes budget + mid-range)
-        filtered = filtered.filter(food => food.price <= 20);
-      } else if (budget === 'premium') {
-        // Premium option: $0-$35 (includes everything)
-        filtered = filtered.filter(food => food.price <= 35);
-      }
-      // If no-limit or unrecognized value, show all foods (no filtering)
-    }
-
-    // Filter by dietary restrictions (allergies)
-    if (userData.dietaryRestrictions) {
-      const restrictionsInput = userData.dietaryRestrictions.toLowerCase();
-      const userRestrictions = restrictionsInput.split(',').map(r => r.trim()).filter(r => r.length > 0);
-      
-      filtered = filtered.filter(food => {
-        if (!food.allergies || food.allergies.length === 0) {
-          return true; // No allergies means safe for all
-        }
-        
-        // Check if any of the food's allergies match user's restrictions
-        const foodAllergies = food.allergies.map(a => a.toLowerCase());
-        
-        // Return false if any user restriction matches any food allergen
-        return !userRestrictions.some(restriction => 
-          foodAllergies.some(allergy => allergy === restriction)
-        );
-      });
+  const handleLoadMore = async () => {
+    try {
+      const result = await getRecommendations(page + 1, PAGE_SIZE);
+      setRecommendations(prev => [...prev, ...result.foods]);
+      setTotal(result.total);
+      setPage(page + 1);
+    } catch (error) {
+      console.error('Error loading more recommendations:', error);
     }
-
-    setFilteredFoods(filtered);
   };
 
   const handleLogout = () => {
@@ -142,14 +113,14 @@ const Recommendations = () => {
 
       <div className="recommendations-content">
         <h2>Your Personalized Recommendations</h2>
-        {filteredFoods.length === 0 ? (
+        {recommendations.length === 0 ? (
           <div className="no-recommendations">
             <p>No foods match your current preferences.</p>
             <p>Try adjusting your budget or dietary restrictions, or browse all available foods.</p>
           </div>
         ) : (
         <div className="recommendations-grid">
-            {filteredFoods.map((food) => (
+            {recommendations.map((food) => (
               <div key={food.id} className="recommendation-card">
                 <div className="recommendation-icon">🍽️</div>
                 <h3>{food.foodName}</h3>
@@ -167,11 +138,16 @@ const Recommendations = () => {
             ))}
           </div>
         )}
+        {recommendations.length < total && (
+          <button className="nav-button" onClick={handleLoadMore}>
+            Show More
+          </button>
+        )}
       </div>
 
       <div className="recommendations-footer">
         <p>Recommendations are based on your cost preference ({user?.costPreference || 'not set'}) and dietary restrictions ({user?.dietaryRestrictions || 'none'}).</p>
-        <p>Showing {filteredFoods.length} of {foods.length} available foods.</p>
+        <p>Showing {recommendations.length} of {total} matching foods.</p>
       </div>
     </div>
   );
@@ -135,6 +135,83 @@ export const getAllFoods = async () => {
   }
 };
 
+// Server-side catalog query. Supported params: name, minPrice, maxPrice,
+// inStock, excludeAllergens (array), sort, limit, cursor. Returns the page of
+// foods and the cursor for the next page (null on the last page).
+export const searchFoods = async (params = {}) => {
+  try {
+    const query = new URLSearchParams();
+    Object.entries(params).forEach(([key, value]) => {
+      if (value === undefined || value === null || value === '') {
+        return;
+      }
+      if (Array.isArray(value)) {
+        value.forEach((v) => query.append(key, v));
+      } else {
+        query.append(key, value);
+      }
+    });
+
+    const response = await fetch(`${API_BASE_URL}/api/foods?${query.toString()}`, {
+      method: 'GET',
+      headers: createHeaders(true),
+    });
+    
+    if (!response.ok) {
+      throw new Error('Failed to search foods');
+    }
+    
+    const foods = await response.json();
+    return { foods, nextCursor: response.headers.get('X-Next-Cursor') };
+  } catch (error) {
+    console.error('Search foods error:', error);
+    throw error;
+  }
+};
+
+// Type-ahead search by food name. Returns up to `limit` foods, best match
+// first; typos are tolerated and foods in stock rank ahead.
+export const searchFoodNames = async (q, limit = 20) => {
+  try {
+    const query = new URLSearchParams({ q, limit });
+    const response = await fetch(`${API_BASE_URL}/api/foods/search?${query.toString()}`, {
+      method: 'GET',
+      headers: createHeaders(true),
+    });
+
+    if (!response.ok) {
+      throw new Error('Failed to search foods');
+    }
+
+    return await response.json();
+  } catch (error) {
+    console.error('Search food names error:', error);
+    throw error;
+  }
+};
+
+// Personalized recommendations for the current user, computed by the server
+// from the stored budget and dietary restrictions. Returns
+// { foods, page, size, total }.
+export const getRecommendations = async (page = 0, size = 20) => {
+  try {
+    const query = new URLSearchParams({ page, size });
+    const response = await fetch(`${API_BASE_URL}/api/recommendations?${query.toString()}`, {
+      method: 'GET',
+      headers: createHeaders(true),
+    });
+
+    if (!response.ok) {
+      throw new Error('Failed to fetch recommendations');
+    }
+
+    return await response.json();
+  } catch (error) {
+    console.error('Get recommendations error:', error);
+    throw error;
+  }
+};
+
 export const getFoodById = async (id) => {
   try {
     const response = await fetch(`${API_BASE_URL}/api/foods/${id}`, {
@@ -252,6 +329,92 @@ export const updateInventory = async (inventoryData) => {
   }
 };
 
+export const getLowStock = async () => {
+  try {
+    const response = await fetch(`${API_BASE_URL}/api/inventory/lowStock`, {
+      method: 'GET',
+      headers: createHeaders(true),
+    });
+    
+    if (!response.ok) {
+      throw new Error('Failed to fetch low stock foods');
+    }
+    
+    return await response.json();
+  } catch (error) {
+    console.error('Get low stock error:', error);
+    throw error;
+  }
+};
+
+// Order and stock totals for the staff dashboards, kept up to date on the server
+export const getStats = async () => {
+  try {
+    const response = await fetch(`${API_BASE_URL}/api/stats`, {
+      method: 'GET',
+      headers: createHeaders(true),
+    });
+    
+    if (!response.ok) {
+      throw new Error('Failed to fetch stats');
+    }
+    
+    return await response.json();
+  } catch (error) {
+    console.error('Get stats error:', error);
+    throw error;
+  }
+};
+
+// Streams low stock events ("low" and "restocked") to onEvent(type, food).
+// EventSource cannot send the Authorization header, so the stream is read
+// with fetch. Returns a function that closes the stream.
+export const watchLowStock = (onEvent) => {
+  const controller = new AbortController();
+  const read = async () => {
+    const response = await fetch(`${API_BASE_URL}/api/inventory/lowStock/stream`, {
+      method: 'GET',
+      headers: { ...createHeaders(true), Accept: 'text/event-stream' },
+      signal: controller.signal,
+    });
+    if (!response.ok) {
+      throw new Error('Failed to open low stock stream');
+    }
+    const reader = response.body.getReader();
+    const decoder = new TextDecoder();
+    let buffer = '';
+    for (;;) {
+      const { done, value } = await reader.read();
+      if (done) {
+        return;
+      }
+      buffer += decoder.decode(value, { stream: true });
+      const events = buffer.split('\n\n');
+      buffer = events.pop();
+      for (const event of events) {
+        let type = 'message';
+        let data = '';
+        for (const line of event.split('\n')) {
+          if (line.startsWith('event:')) {
+            type = line.slice(6).trim();
+          } else if (line.startsWith('data:')) {
+            data += line.slice(5);
+          }
+        }
+        if (data) {
+          onEvent(type, JSON.parse(data));
+        }
+      }
+    }
+  };
+  read().catch((error) => {
+    if (error.name !== 'AbortError') {
+      console.error('Low stock stream error:', error);
+    }
+  });
+  return () => controller.abort();
+};
+
 // Order API calls
 export const getAllOrders = async () => {
   try {
@@ -325,6 +488,37 @@ export const getUnfulfilledOrders = async () => {
   }
 };
 
+// One page of an order listing. `path` is one of the listing paths under
+// /api/orders ('' for all orders, 'unfulfilledOrders', 'fulfilledOrders',
+// 'my-orders', 'my-orders/fulfilled', 'my-orders/unfulfilled'). Returns the
+// orders and the cursor for the next page (null on the last page).
+export const getOrderPage = async (path, { limit, cursor } = {}) => {
+  try {
+    const query = new URLSearchParams();
+    if (limit) {
+      query.append('limit', limit);
+    }
+    if (cursor) {
+      query.append('cursor', cursor);
+    }
+    const base = path ? `${API_BASE_URL}/api/orders/${path}` : `${API_BASE_URL}/api/orders`;
+    const response = await fetch(`${base}?${query.toString()}`, {
+      method: 'GET',
+      headers: createHeaders(true),
+    });
+
+    if (!response.ok) {
+      throw new Error('Failed to fetch orders');
+    }
+
+    const orders = await response.json();
+    return { orders, nextCursor: response.headers.get('X-Next-Cursor') };
+  } catch (error) {
+    console.error('Get order page error:', error);
+    throw error;
+  }
+};
+
 export const getOrderById = async (id) => {
   try {
     const response = await fetch(`${API_BASE_URL}/api/orders/${id}`, {
@@ -381,6 +575,27 @@ export const fulfillOrder = async (orderId) => {
   }
 };
 
+// Fulfills several orders in one request; resolves to one
+// { orderId, fulfilled, error } result per order
+export const fulfillOrders = async (orderIds) => {
+  try {
+    const response = await fetch(`${API_BASE_URL}/api/orders/fulfillOrders`, {
+      method: 'POST',
+      headers: createHeaders(true),
+      body: JSON.stringify(orderIds),
+    });
+    
+    if (!response.ok) {
+      throw new Error('Failed to fulfill orders');
+    }
+    
+    return await response.json();
+  } catch (error) {
+    console.error('Fulfill orders error:', error);
+    throw error;
+  }
+};
+
 // Admin User Management API calls
 export const getAllUsers = async () => {
   try {